@@ -0,0 +1,338 @@
+package de.medys;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchrone Gegenst&uuml;cke zu den blockierenden Operationen von {@link MedysFileIO}.
+ * <br><br>
+ * Alle Methoden kehren sofort zur&uuml;ck und liefern ein {@link CompletableFuture}, so da&szlig; ein einzelner
+ * Thread viele Lese- und Schreibvorg&auml;nge gleichzeitig anstossen kann.
+ * <br><br>
+ * <u>Umsetzung</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>Lesen und Schreiben erfolgen &uuml;ber {@link AsynchronousFileChannel}, nur das Anh&auml;ngen
+ * 			l&auml;uft im Anh&auml;ngemodus auf dem I/O-Executor</li>
+ * 		<li>Kopieren und Entfernen, f&uuml;r die das JDK keine asynchrone Variante bietet, laufen auf einem
+ * 			eigenen I/O-Executor (siehe {@link #gibExecutor()})</li>
+ * 		<li>Fehler werden nicht geworfen, sondern schlie&szlig;en das Future mit der urspr&uuml;nglichen
+ * 			Exception ab</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public final class MedysAsyncFileIO
+{
+	private static final ExecutorService IO_EXECUTOR = erzeugeExecutor();
+
+	private MedysAsyncFileIO()
+	{
+	}
+
+	/**
+	 * Liefert den Executor, auf dem die asynchronen Operationen ohne JDK-Entsprechung laufen.
+	 * <br><br>
+	 * Er besteht aus Daemon-Threads, so da&szlig; er das Beenden der Anwendung nicht verhindert.
+	 *
+	 * @return der I/O-Executor dieser Klasse
+	 */
+	public static ExecutorService gibExecutor()
+	{
+		return IO_EXECUTOR;
+	}
+
+	/**
+	 * Liest den Inhalt einer Datei asynchron in ein ByteArray
+	 *
+	 * @param datei die Datei, die ausgelesen werden soll
+	 * @return ein Future mit dem Inhalt der Datei in Bytes
+	 * @see MedysFileIO#gibDateiInhalt(File)
+	 */
+	public static CompletableFuture<byte[]> gibDateiInhaltAsync(File datei)
+	{
+		CompletableFuture<byte[]> ergebnis = new CompletableFuture<>();
+
+		AsynchronousFileChannel kanal = null;
+
+		try
+		{
+			kanal = AsynchronousFileChannel.open(datei.toPath(), StandardOpenOption.READ);
+
+			long groesse = kanal.size();
+
+			if (groesse > Integer.MAX_VALUE - 8)
+			{
+				throw new IOException("Die Datei " + datei.getName() + " ist mit " + groesse + " Bytes zu groß für ein ByteArray");
+			}
+
+			byte[] inhalt = new byte[(int) groesse];
+
+			lese(kanal, ByteBuffer.wrap(inhalt), 0L, ergebnis, inhalt);
+		}
+		catch (IOException | RuntimeException oeffnenFehler)
+		{
+			if (kanal != null)
+			{
+				schliesse(kanal);
+			}
+			ergebnis.completeExceptionally(oeffnenFehler);
+		}
+		return ergebnis;
+	}
+
+	/**
+	 * Schreibt einen Inhalt asynchron in eine <b>existierende</b> Datei mit einem vorgegebenen Zeichensatz.
+	 * <br><br>
+	 * Ist die Option &quot;alsAnhang&quot; <code>true</code>, so wird wie bei 
+	 * {@link MedysFileIO#schreibInDatei(String, String, String, boolean)} im Anh&auml;ngemodus an das jeweils 
+	 * aktuelle Dateiende geschrieben, gleichzeitige Anh&auml;nge an dieselbe Datei &uuml;berschreiben sich 
+	 * daher nicht. Da {@link AsynchronousFileChannel} keinen Anh&auml;ngemodus kennt, l&auml;uft das Anh&auml;ngen
+	 * auf dem I/O-Executor. Sonst wird der bisherige Inhalt ersetzt.
+	 * <br><br>
+	 * Der Inhalt wird vor dem &Ouml;ffnen der Datei kodiert, ein Fehler dabei l&auml;&szlig;t die Datei unver&auml;ndert.
+	 *
+	 * @param pfadZurDatei die absolute Pfadangabe zu einer Datei (inkl. Dateiname und Endung)
+	 * @param inhalt der Inhalt, der geschrieben werden soll
+	 * @param zeichensatz der Zeichensatz, der hier angewendet werden soll
+	 * @param alsAnhang ob der Inhalt ans Dateiende angeh&auml;ngt werden soll oder nicht
+	 * @return ein Future mit der Anzahl der geschriebenen Bytes
+	 * @see MedysFileIO#schreibInDatei(String, String, String, boolean)
+	 */
+	public static CompletableFuture<Integer> schreibInDateiAsync(String pfadZurDatei, String inhalt, Charset zeichensatz,
+			boolean alsAnhang)
+	{
+		CompletableFuture<Integer> ergebnis = new CompletableFuture<>();
+
+		try
+		{
+			if (inhalt == null)
+			{
+				throw new IOException("IOException aus MedysAsyncFileIO.schreibInDateiAsync\nDer Inhalt ist NULL.\nBitte geben Sie einen Inhalt an!");
+			}
+			if (!MedysFileIO.istDateiKeinVerzeichnis(MedysFileIO.gibDatei(pfadZurDatei)))
+			{
+				throw new IOException("IOException aus MedysAsyncFileIO.schreibInDateiAsync\nUnter der Pfadangabe "
+						+ pfadZurDatei + " existiert keine Datei die beschrieben werden kann");
+			}
+
+			Path pfad = new File(pfadZurDatei).toPath();
+
+			// zuerst kodieren, damit ein Fehler die Datei weder kürzt noch einen Kanal offen lässt
+			//
+			ByteBuffer daten = zeichensatz.encode(inhalt);
+
+			// der Zwischenspeicher wird bereinigt, bevor der Aufrufer vom Abschluss erfährt, sonst könnte er
+			// unmittelbar danach noch veraltete Attribute lesen
+			//
+			CompletableFuture<Integer> geschrieben = new CompletableFuture<>();
+
+			geschrieben.whenComplete((anzahl, fehler) -> {
+				MedysFileIO.vergiss(pfad.toFile());
+
+				if (fehler != null)
+				{
+					ergebnis.completeExceptionally(fehler);
+				}
+				else
+				{
+					ergebnis.complete(anzahl);
+				}
+			});
+
+			if (alsAnhang)
+			{
+				IO_EXECUTOR.execute(() -> haengeAn(pfad, daten, geschrieben));
+			}
+			else
+			{
+				AsynchronousFileChannel kanal = AsynchronousFileChannel.open(pfad, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+
+				schreibe(kanal, daten, 0L, geschrieben, daten.remaining());
+			}
+		}
+		catch (IOException | RuntimeException oeffnenFehler)
+		{
+			ergebnis.completeExceptionally(oeffnenFehler);
+		}
+		return ergebnis;
+	}
+
+	/**
+	 * Kopiert eine Datei asynchron in ein Zielverzeichnis, siehe {@link MedysFileIO#kopiereDatei(String, File)}
+	 *
+	 * @param zielVerzeichnis das Verzeichnis in das eine Datei kopiert werden soll
+	 * @param datei die Datei, die kopiert werden soll
+	 * @return ein Future, das nach dem Kopieren abgeschlossen wird
+	 */
+	public static CompletableFuture<Void> kopiereDateiAsync(String zielVerzeichnis, File datei)
+	{
+		return CompletableFuture.runAsync(() -> {
+			try
+			{
+				MedysFileIO.kopiereDatei(zielVerzeichnis, datei);
+			}
+			catch (Exception kopierFehler)
+			{
+				throw new CompletionException(kopierFehler);
+			}
+		}, IO_EXECUTOR);
+	}
+
+	/**
+	 * Entfernt eine Datei asynchron, siehe {@link MedysFileIO#entferneDatei(String)}
+	 *
+	 * @param absPathToFile absolute Verzeichnispfadangabe zur Datei
+	 * @return ein Future mit <code>true</code> wenn die Datei existierte und entfernt wurde, sonst <code>false</code>
+	 */
+	public static CompletableFuture<Boolean> entferneDateiAsync(String absPathToFile)
+	{
+		return CompletableFuture.supplyAsync(() -> {
+			try
+			{
+				return MedysFileIO.entferneDatei(absPathToFile);
+			}
+			catch (Exception entfernFehler)
+			{
+				throw new CompletionException(entfernFehler);
+			}
+		}, IO_EXECUTOR);
+	}
+
+	/*
+	 * liest rekursiv über CompletionHandler, bis der Puffer voll ist oder die Datei endet
+	 */
+	private static void lese(AsynchronousFileChannel kanal, ByteBuffer puffer, long position,
+			CompletableFuture<byte[]> ergebnis, byte[] inhalt)
+	{
+		if (!puffer.hasRemaining())
+		{
+			schliesse(kanal);
+			ergebnis.complete(inhalt);
+			return;
+		}
+
+		kanal.read(puffer, position, null, new CompletionHandler<Integer, Void>()
+		{
+			@Override
+			public void completed(Integer gelesen, Void anhang)
+			{
+				if (gelesen < 0)
+				{
+					// die Datei ist seit der Größenabfrage geschrumpft
+					//
+					schliesse(kanal);
+					ergebnis.complete(Arrays.copyOf(inhalt, puffer.position()));
+				}
+				else
+				{
+					lese(kanal, puffer, position + gelesen, ergebnis, inhalt);
+				}
+			}
+
+			@Override
+			public void failed(Throwable fehler, Void anhang)
+			{
+				schliesse(kanal);
+				ergebnis.completeExceptionally(fehler);
+			}
+		});
+	}
+
+	/*
+	 * schreibt rekursiv über CompletionHandler, bis der Puffer vollständig geschrieben ist
+	 */
+	private static void schreibe(AsynchronousFileChannel kanal, ByteBuffer puffer, long position,
+			CompletableFuture<Integer> ergebnis, int gesamt)
+	{
+		if (!puffer.hasRemaining())
+		{
+			schliesse(kanal);
+			ergebnis.complete(gesamt);
+			return;
+		}
+
+		kanal.write(puffer, position, null, new CompletionHandler<Integer, Void>()
+		{
+			@Override
+			public void completed(Integer geschrieben, Void anhang)
+			{
+				schreibe(kanal, puffer, position + geschrieben, ergebnis, gesamt);
+			}
+
+			@Override
+			public void failed(Throwable fehler, Void anhang)
+			{
+				schliesse(kanal);
+				ergebnis.completeExceptionally(fehler);
+			}
+		});
+	}
+
+	/*
+	 * schreibt im Anhängemodus (O_APPEND), jeder Schreibvorgang landet am dann aktuellen Dateiende
+	 */
+	private static void haengeAn(Path pfad, ByteBuffer daten, CompletableFuture<Integer> ergebnis)
+	{
+		int gesamt = daten.remaining();
+
+		try (FileChannel kanal = FileChannel.open(pfad, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+		{
+			while (daten.hasRemaining())
+			{
+				kanal.write(daten);
+			}
+			ergebnis.complete(gesamt);
+		}
+		catch (IOException | RuntimeException schreibFehler)
+		{
+			ergebnis.completeExceptionally(schreibFehler);
+		}
+	}
+
+	private static void schliesse(AsynchronousFileChannel kanal)
+	{
+		try
+		{
+			kanal.close();
+		}
+		catch (IOException schliessFehler)
+		{
+			// der Vorgang selbst ist bereits abgeschlossen
+		}
+	}
+
+	private static ExecutorService erzeugeExecutor()
+	{
+		int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+		AtomicInteger nummer = new AtomicInteger();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), aufgabe -> {
+					Thread thread = new Thread(aufgabe, "MedysAsyncFileIO-" + nummer.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+}
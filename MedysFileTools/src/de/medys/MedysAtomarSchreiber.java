@@ -0,0 +1,228 @@
+package de.medys;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Schreibt Dateien vollst&auml;ndig und ersetzt sie atomar.
+ * <br><br>
+ * Der Inhalt wird zuerst in eine tempor&auml;re Datei im selben Verzeichnis geschrieben und auf den
+ * Datentr&auml;ger gezwungen (fsync). Anschlie&szlig;end ersetzt
+ * {@link Files#move(Path, Path, java.nio.file.CopyOption...)} mit {@link StandardCopyOption#ATOMIC_MOVE} das Ziel.
+ * Leser sehen so immer entweder den alten oder den neuen, vollst&auml;ndigen Inhalt, aber nie eine leere
+ * oder halb geschriebene Datei.
+ * <br><br>
+ * <u>Verzeichnis-Synchronisierung</u>
+ * <blockquote>
+ * 	Damit auch das Ersetzen selbst einen Absturz &uuml;bersteht, mu&szlig; das &uuml;bergeordnete Verzeichnis
+ * 	synchronisiert werden. Eine Instanz dieser Klasse merkt sich die Verzeichnisse aller geschriebenen Dateien
+ * 	und synchronisiert jedes davon nur einmal durch {@link #synchronisiereVerzeichnisse()} bzw.
+ * 	{@link #close()}. So kosten tausende kleine Dateien in einem Verzeichnis nur einen einzigen
+ * 	Verzeichnis-fsync.
+ * </blockquote>
+ *
+ * Beispiel:
+ * <blockquote>
+ * 	<code>
+ * 		try (MedysAtomarSchreiber schreiber = new MedysAtomarSchreiber())<br>
+ * 		{<br>
+ * 			&nbsp;&nbsp;for (Export export : exporte)<br>
+ * 			&nbsp;&nbsp;&nbsp;&nbsp;schreiber.schreibe(export.gibDatei(), export.gibBytes());<br>
+ * 		}
+ * 	</code>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ * @see MedysFileIO#schreibeDateiAtomar(String, byte[])
+ */
+public class MedysAtomarSchreiber implements Closeable
+{
+	private final Set<Path> verzeichnisse = new LinkedHashSet<>();
+
+	/**
+	 * Schreibt eine Datei atomar, die Synchronisierung ihres Verzeichnisses erfolgt erst durch
+	 * {@link #synchronisiereVerzeichnisse()} bzw. {@link #close()}.
+	 *
+	 * @param ziel die Datei, die geschrieben bzw. ersetzt werden soll
+	 * @param inhalt der vollst&auml;ndige neue Inhalt
+	 * @throws IOException wenn die Datei nicht geschrieben oder ersetzt werden kann
+	 */
+	public void schreibe(File ziel, byte[] inhalt) throws IOException
+	{
+		Path verzeichnis = schreibeAtomar(ziel.toPath(), ByteBuffer.wrap(inhalt));
+
+		synchronized (verzeichnisse)
+		{
+			verzeichnisse.add(verzeichnis);
+		}
+	}
+
+	/**
+	 * Synchronisiert jedes Verzeichnis, in das seit dem letzten Aufruf geschrieben wurde, genau einmal
+	 *
+	 * @throws IOException wenn ein Verzeichnis nicht synchronisiert werden kann
+	 */
+	public void synchronisiereVerzeichnisse() throws IOException
+	{
+		Path[] offen;
+
+		synchronized (verzeichnisse)
+		{
+			offen = verzeichnisse.toArray(new Path[0]);
+
+			verzeichnisse.clear();
+		}
+
+		for (Path verzeichnis : offen)
+		{
+			synchronisiereVerzeichnis(verzeichnis);
+		}
+	}
+
+	/**
+	 * Synchronisiert alle noch offenen Verzeichnisse, siehe {@link #synchronisiereVerzeichnisse()}
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronisiereVerzeichnisse();
+	}
+
+	/**
+	 * Schreibt eine einzelne Datei atomar und synchronisiert anschlie&szlig;end ihr Verzeichnis
+	 *
+	 * @param ziel die Datei, die geschrieben bzw. ersetzt werden soll
+	 * @param inhalt der vollst&auml;ndige neue Inhalt
+	 * @throws IOException wenn die Datei nicht geschrieben oder ersetzt werden kann
+	 */
+	public static void schreibeEinzeln(File ziel, byte[] inhalt) throws IOException
+	{
+		synchronisiereVerzeichnis(schreibeAtomar(ziel.toPath(), ByteBuffer.wrap(inhalt)));
+	}
+
+	/*
+	 * schreibt über eine temporäre Datei im selben Verzeichnis und liefert dieses Verzeichnis
+	 */
+	private static Path schreibeAtomar(Path ziel, ByteBuffer inhalt) throws IOException
+	{
+		Path absolut = ziel.toAbsolutePath();
+		Path verzeichnis = absolut.getParent();
+
+		if (Files.isDirectory(absolut))
+		{
+			throw new IOException("IOException aus MedysAtomarSchreiber.schreibe\nDie Pfadangabe " + absolut
+					+ " referenziert auf ein Verzeichnis und nicht auf eine Datei!");
+		}
+
+		Path temp = legeTempDateiAn(verzeichnis, absolut.getFileName().toString());
+
+		try
+		{
+			uebernimmRechte(absolut, temp);
+
+			try (FileChannel kanal = FileChannel.open(temp, StandardOpenOption.WRITE))
+			{
+				while (inhalt.hasRemaining())
+				{
+					kanal.write(inhalt);
+				}
+				kanal.force(true);
+			}
+
+			try
+			{
+				Files.move(temp, absolut, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException nichtAtomar)
+			{
+				Files.move(temp, absolut, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException | RuntimeException schreibFehler)
+		{
+			Files.deleteIfExists(temp);
+
+			throw schreibFehler;
+		}
+		finally
+		{
+			MedysFileIO.vergiss(absolut.toFile());
+		}
+		return verzeichnis;
+	}
+
+	/*
+	 * Files.createTempFile legt die Datei mit den Rechten 0600 an, Files.createFile dagegen mit den üblichen
+	 * Rechten gemäß umask, wie sie auch ein direktes Schreiben der Zieldatei ergeben hätte
+	 */
+	private static Path legeTempDateiAn(Path verzeichnis, String name) throws IOException
+	{
+		while (true)
+		{
+			// Punkt am Anfang: auf Unix versteckt, Endung .tmp: von Verzeichnisbeobachtern als temporär erkennbar
+			//
+			Path temp = verzeichnis.resolve("." + name + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())
+					+ ".tmp");
+
+			try
+			{
+				return Files.createFile(temp);
+			}
+			catch (FileAlreadyExistsException vergeben)
+			{
+				// nächster Versuch mit einem anderen Namen
+				//
+			}
+		}
+	}
+
+	/*
+	 * überträgt die POSIX-Rechte einer bestehenden Zieldatei, damit das Ersetzen sie nicht verändert
+	 */
+	private static void uebernimmRechte(Path ziel, Path temp) throws IOException
+	{
+		if (Files.exists(ziel) && (Files.getFileAttributeView(ziel, PosixFileAttributeView.class) != null))
+		{
+			Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(ziel));
+		}
+	}
+
+	/*
+	 * nicht jedes Betriebssystem erlaubt das Öffnen eines Verzeichnisses (z.B. Windows), dort genügt der Move
+	 */
+	private static void synchronisiereVerzeichnis(Path verzeichnis) throws IOException
+	{
+		FileChannel kanal;
+
+		try
+		{
+			kanal = FileChannel.open(verzeichnis, StandardOpenOption.READ);
+		}
+		catch (IOException | UnsupportedOperationException nichtUnterstuetzt)
+		{
+			return;
+		}
+
+		try
+		{
+			kanal.force(true);
+		}
+		finally
+		{
+			kanal.close();
+		}
+	}
+}
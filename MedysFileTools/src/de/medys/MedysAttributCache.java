@@ -0,0 +1,319 @@
+package de.medys;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Begrenzter Zwischenspeicher f&uuml;r {@link MedysDateiAttribute} mit Ablaufzeit (TTL).
+ * <br><br>
+ * Wiederholte Existenz- und Typpr&uuml;fungen derselben Pfadangabe (z.B. auf NFS-Freigaben) werden aus dem
+ * Speicher beantwortet, bis der Eintrag abl&auml;uft oder ung&uuml;ltig wird.
+ * <br><br>
+ * <u>Invalidierung</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>jeder Eintrag verf&auml;llt nach der angegebenen Ablaufzeit</li>
+ * 		<li>f&uuml;r Verzeichnisse, die durch {@link #beobachte(Path)} registriert wurden, werden
+ * 			betroffene Eintr&auml;ge durch einen {@link WatchService} sofort verworfen</li>
+ * 		<li>&uuml;berschreitet der Speicher die maximale Anzahl an Eintr&auml;gen, so wird der am l&auml;ngsten
+ * 			nicht genutzte Eintrag verworfen</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Durch {@link MedysFileIO#setzeAttributCache(MedysAttributCache)} beantworten die Pr&uuml;fmethoden von
+ * {@link MedysFileIO} ihre Anfragen &uuml;ber diesen Zwischenspeicher.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysAttributCache implements Closeable
+{
+	private final int maxEintraege;
+
+	private final long ablaufNanos;
+
+	private final LinkedHashMap<Path, Eintrag> eintraege;
+
+	/*
+	 * findet die Einträge unterhalb eines Verzeichnisses ohne alle Einträge zu durchsuchen
+	 */
+	private final MedysPfadBaum baum = new MedysPfadBaum();
+
+	/*
+	 * wird bei jeder Invalidierung erhöht, damit vorher gelesene Attribute nicht mehr eingetragen werden
+	 */
+	private long generation;
+
+	private final AtomicLong treffer = new AtomicLong();
+
+	private final AtomicLong fehlzugriffe = new AtomicLong();
+
+	private WatchService watchService;
+
+	/**
+	 * Erstellt einen neuen Zwischenspeicher
+	 *
+	 * @param maxEintraege die maximale Anzahl zwischengespeicherter Pfadangaben
+	 * @param ablaufMillis die Ablaufzeit eines Eintrags in Millisekunden
+	 */
+	public MedysAttributCache(int maxEintraege, long ablaufMillis)
+	{
+		if ((maxEintraege < 1) || (ablaufMillis < 0))
+		{
+			throw new IllegalArgumentException("Ungültige Cache-Parameter " + maxEintraege + "/" + ablaufMillis);
+		}
+		this.maxEintraege = maxEintraege;
+		this.ablaufNanos = ablaufMillis * 1_000_000L;
+		this.eintraege = new LinkedHashMap<Path, Eintrag>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, Eintrag> aeltester)
+			{
+				if (size() > MedysAttributCache.this.maxEintraege)
+				{
+					verwirf(aeltester.getKey());
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Liefert die Attribute einer Pfadangabe aus dem Zwischenspeicher oder liest sie mit einem
+	 * einzigen Dateisystemzugriff und speichert sie zwischen.
+	 *
+	 * @param pfad die Pfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute der Pfadangabe
+	 */
+	public MedysDateiAttribute gib(Path pfad)
+	{
+		if (pfad == null)
+		{
+			return MedysDateiAttribute.NICHT_VORHANDEN;
+		}
+
+		return gibNormalisiert(pfad.toAbsolutePath().normalize());
+	}
+
+	/*
+	 * wie gib(Path), die Pfadangabe ist bereits absolut und normalisiert (siehe MedysPfadIO.gibAttribute)
+	 */
+	MedysDateiAttribute gibNormalisiert(Path schluessel)
+	{
+		long jetzt = System.nanoTime();
+
+		long gelesenIn;
+
+		synchronized (eintraege)
+		{
+			Eintrag eintrag = eintraege.get(schluessel);
+
+			if ((eintrag != null) && (jetzt - eintrag.gelesen < ablaufNanos))
+			{
+				treffer.incrementAndGet();
+				return eintrag.attribute;
+			}
+			gelesenIn = generation;
+		}
+
+		fehlzugriffe.incrementAndGet();
+
+		MedysDateiAttribute attribute = MedysDateiAttribute.lese(schluessel);
+
+		synchronized (eintraege)
+		{
+			// eine Invalidierung während des Lesens macht die Attribute möglicherweise ungültig
+			//
+			if (generation == gelesenIn)
+			{
+				eintraege.put(schluessel, new Eintrag(attribute, jetzt));
+
+				baum.fuegeHinzu(schluessel);
+			}
+		}
+		return attribute;
+	}
+
+	/**
+	 * Verwirft den Eintrag einer Pfadangabe und alle Eintr&auml;ge unterhalb dieser Pfadangabe
+	 *
+	 * @param pfad die Pfadangabe, deren Eintr&auml;ge verworfen werden sollen
+	 */
+	public void invalidiere(Path pfad)
+	{
+		if (pfad != null)
+		{
+			Path schluessel = pfad.toAbsolutePath().normalize();
+
+			synchronized (eintraege)
+			{
+				generation++;
+
+				for (Path betroffen : baum.entferneUnterhalb(schluessel))
+				{
+					eintraege.remove(betroffen);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Verwirft alle Eintr&auml;ge
+	 */
+	public void leere()
+	{
+		synchronized (eintraege)
+		{
+			generation++;
+
+			eintraege.clear();
+
+			baum.leere();
+		}
+	}
+
+	/**
+	 * Beobachtet ein Verzeichnis durch einen {@link WatchService}, so da&szlig; Eintr&auml;ge der darin
+	 * enthaltenen Dateien bei jeder &Auml;nderung sofort verworfen werden.
+	 * <br><br>
+	 * Unterverzeichnisse werden nicht automatisch beobachtet.
+	 *
+	 * @param verzeichnis das Verzeichnis, das beobachtet werden soll
+	 * @throws IOException wenn das Verzeichnis nicht beobachtet werden kann
+	 */
+	public synchronized void beobachte(Path verzeichnis) throws IOException
+	{
+		if (watchService == null)
+		{
+			watchService = verzeichnis.getFileSystem().newWatchService();
+
+			WatchService dienst = watchService;
+
+			Thread beobachter = new Thread(() -> verarbeiteEreignisse(dienst), "MedysAttributCache-Beobachter");
+			beobachter.setDaemon(true);
+			beobachter.start();
+		}
+
+		verzeichnis.toAbsolutePath().normalize().register(watchService,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_DELETE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+	}
+
+	/**
+	 * @return die Anzahl der aus dem Zwischenspeicher beantworteten Anfragen
+	 */
+	public long gibTreffer()
+	{
+		return treffer.get();
+	}
+
+	/**
+	 * @return die Anzahl der Anfragen, die das Dateisystem abfragen mu&szlig;ten
+	 */
+	public long gibFehlzugriffe()
+	{
+		return fehlzugriffe.get();
+	}
+
+	/**
+	 * @return die aktuelle Anzahl zwischengespeicherter Eintr&auml;ge
+	 */
+	public int gibAnzahlEintraege()
+	{
+		synchronized (eintraege)
+		{
+			return eintraege.size();
+		}
+	}
+
+	/**
+	 * Beendet die Beobachtung aller Verzeichnisse und verwirft alle Eintr&auml;ge
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (watchService != null)
+		{
+			watchService.close();
+			watchService = null;
+		}
+		leere();
+	}
+
+	private void verarbeiteEreignisse(WatchService dienst)
+	{
+		try
+		{
+			while (true)
+			{
+				WatchKey schluessel = dienst.take();
+
+				Path verzeichnis = (Path) schluessel.watchable();
+
+				// das Verzeichnis selbst hat sich ebenfalls geändert (Änderungszeitpunkt)
+				//
+				synchronized (eintraege)
+				{
+					generation++;
+
+					verwirf(verzeichnis);
+				}
+
+				for (WatchEvent<?> ereignis : schluessel.pollEvents())
+				{
+					if (ereignis.kind() == StandardWatchEventKinds.OVERFLOW)
+					{
+						invalidiere(verzeichnis);
+					}
+					else
+					{
+						invalidiere(verzeichnis.resolve((Path) ereignis.context()));
+					}
+				}
+
+				if (!schluessel.reset())
+				{
+					invalidiere(verzeichnis);
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException beendet)
+		{
+			// Beobachtung beendet
+		}
+	}
+
+	/*
+	 * verwirft genau einen Eintrag, muss unter der Sperre aufgerufen werden
+	 */
+	private void verwirf(Path schluessel)
+	{
+		eintraege.remove(schluessel);
+
+		baum.entferne(schluessel);
+	}
+
+	private static final class Eintrag
+	{
+		private final MedysDateiAttribute attribute;
+
+		private final long gelesen;
+
+		Eintrag(MedysDateiAttribute attribute, long gelesen)
+		{
+			this.attribute = attribute;
+			this.gelesen = gelesen;
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package de.medys;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Speicherbegrenzter Zwischenspeicher f&uuml;r dekodierte Bilddateien.
+ * <br><br>
+ * Ein Bild wird nur beim ersten Zugriff durch {@link ImageIO#read(java.io.File)} dekodiert. Jeder weitere
+ * Zugriff pr&uuml;ft lediglich &Auml;nderungszeitpunkt und Gr&ouml;&szlig;e der Datei (ein Dateisystemzugriff)
+ * und liefert bei &Uuml;bereinstimmung das bereits dekodierte Bild.
+ * <br><br>
+ * <u>Speicherbegrenzung</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>jedes Bild z&auml;hlt mit der Gr&ouml;&szlig;e seines Pixelpuffers (nicht der Dateigr&ouml;&szlig;e)</li>
+ * 		<li>&uuml;berschreitet die Summe das Budget, so werden die am l&auml;ngsten nicht genutzten Bilder
+ * 			verdr&auml;ngt</li>
+ * 		<li>Bilder, die allein gr&ouml;&szlig;er als das Budget sind, werden nicht zwischengespeichert</li>
+ * 		<li>die Bilder werden &uuml;ber {@link SoftReference} gehalten, so da&szlig; sie bei Speicherknappheit
+ * 			vom Garbage Collector freigegeben werden k&ouml;nnen</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * <u>Wichtig</u>
+ * <blockquote>
+ * 	Alle Aufrufer erhalten dasselbe {@link BufferedImage}-Objekt. Das Bild darf daher nicht ver&auml;ndert
+ * 	werden, zum Bearbeiten ist vorher eine Kopie anzulegen.
+ * </blockquote>
+ *
+ * Durch {@link MedysFileIO#setzeBildCache(MedysBildCache)} l&auml;dt
+ * {@link MedysFileIO#ladeBild(String, String)} &uuml;ber diesen Zwischenspeicher.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysBildCache
+{
+	private final long maxBytes;
+
+	private final LinkedHashMap<Path, Eintrag> eintraege = new LinkedHashMap<>(16, 0.75f, true);
+
+	/*
+	 * findet die Einträge unterhalb eines Verzeichnisses ohne alle Einträge zu durchsuchen
+	 */
+	private final MedysPfadBaum baum = new MedysPfadBaum();
+
+	private final ReferenceQueue<BufferedImage> freigegeben = new ReferenceQueue<>();
+
+	private final AtomicLong treffer = new AtomicLong();
+
+	private final AtomicLong fehlzugriffe = new AtomicLong();
+
+	private final AtomicLong verdraengungen = new AtomicLong();
+
+	private final AtomicLong freigaben = new AtomicLong();
+
+	private long belegteBytes;
+
+	/**
+	 * Erstellt einen neuen Zwischenspeicher
+	 *
+	 * @param maxBytes das Budget f&uuml;r die Pixelpuffer aller zwischengespeicherten Bilder in Bytes
+	 */
+	public MedysBildCache(long maxBytes)
+	{
+		if (maxBytes < 1)
+		{
+			throw new IllegalArgumentException("Ungültiges Cache-Budget " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Liefert das dekodierte Bild einer Bilddatei aus dem Zwischenspeicher oder dekodiert es und speichert
+	 * es zwischen.
+	 *
+	 * @param pfad die Pfadangabe zur Bilddatei
+	 * @return das Bild, NULL wenn das Bildformat nicht unterst&uuml;tzt wird (siehe {@link ImageIO#read(java.io.File)})
+	 * @throws IOException wenn die Bilddatei nicht existiert oder nicht gelesen werden kann
+	 */
+	public BufferedImage gib(Path pfad) throws IOException
+	{
+		Path schluessel = pfad.toAbsolutePath().normalize();
+
+		BasicFileAttributes attribute = Files.readAttributes(schluessel, BasicFileAttributes.class);
+
+		long geaendert = attribute.lastModifiedTime().toMillis();
+		long groesse = attribute.size();
+
+		synchronized (eintraege)
+		{
+			raeumeAuf();
+
+			Eintrag eintrag = eintraege.get(schluessel);
+
+			if (eintrag != null)
+			{
+				BufferedImage bild = eintrag.get();
+
+				if ((bild != null) && (eintrag.geaendert == geaendert) && (eintrag.groesse == groesse))
+				{
+					treffer.incrementAndGet();
+					return bild;
+				}
+				entferne(eintrag);
+			}
+		}
+
+		fehlzugriffe.incrementAndGet();
+
+		// außerhalb der Sperre dekodieren, damit andere Bilder währenddessen geliefert werden können
+		//
+		BufferedImage bild = ImageIO.read(schluessel.toFile());
+
+		if (bild != null)
+		{
+			long gewicht = gibGewicht(bild);
+
+			if (gewicht <= maxBytes)
+			{
+				synchronized (eintraege)
+				{
+					Eintrag alt = eintraege.get(schluessel);
+
+					if (alt != null)
+					{
+						entferne(alt);
+					}
+					eintraege.put(schluessel, new Eintrag(schluessel, bild, geaendert, groesse, gewicht, freigegeben));
+
+					baum.fuegeHinzu(schluessel);
+
+					belegteBytes += gewicht;
+
+					verdraenge();
+				}
+			}
+		}
+		return bild;
+	}
+
+	/**
+	 * Verwirft den Eintrag einer Pfadangabe und alle Eintr&auml;ge unterhalb dieser Pfadangabe
+	 *
+	 * @param pfad die Pfadangabe, deren Eintr&auml;ge verworfen werden sollen
+	 */
+	public void invalidiere(Path pfad)
+	{
+		if (pfad != null)
+		{
+			Path schluessel = pfad.toAbsolutePath().normalize();
+
+			synchronized (eintraege)
+			{
+				for (Path betroffen : baum.entferneUnterhalb(schluessel))
+				{
+					belegteBytes -= eintraege.remove(betroffen).gewicht;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Verwirft alle Eintr&auml;ge
+	 */
+	public void leere()
+	{
+		synchronized (eintraege)
+		{
+			eintraege.clear();
+
+			baum.leere();
+
+			belegteBytes = 0L;
+		}
+	}
+
+	/**
+	 * @return die Anzahl der Zugriffe, die aus dem Zwischenspeicher beantwortet wurden
+	 */
+	public long gibTreffer()
+	{
+		return treffer.get();
+	}
+
+	/**
+	 * @return die Anzahl der Zugriffe, f&uuml;r die das Bild dekodiert werden mu&szlig;te
+	 */
+	public long gibFehlzugriffe()
+	{
+		return fehlzugriffe.get();
+	}
+
+	/**
+	 * @return die Anzahl der Bilder, die wegen des Budgets verdr&auml;ngt wurden
+	 */
+	public long gibVerdraengungen()
+	{
+		return verdraengungen.get();
+	}
+
+	/**
+	 * @return die Anzahl der Bilder, die der Garbage Collector bei Speicherknappheit freigegeben hat
+	 */
+	public long gibFreigaben()
+	{
+		return freigaben.get();
+	}
+
+	/**
+	 * @return die Summe der Pixelpuffer aller zwischengespeicherten Bilder in Bytes
+	 */
+	public long gibBelegteBytes()
+	{
+		synchronized (eintraege)
+		{
+			raeumeAuf();
+
+			return belegteBytes;
+		}
+	}
+
+	/**
+	 * @return das Budget in Bytes
+	 */
+	public long gibMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	/**
+	 * @return die Anzahl der zwischengespeicherten Bilder
+	 */
+	public int gibAnzahlEintraege()
+	{
+		synchronized (eintraege)
+		{
+			raeumeAuf();
+
+			return eintraege.size();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "MedysBildCache[Eintraege=" + gibAnzahlEintraege() + ", Bytes=" + gibBelegteBytes() + "/" + maxBytes
+				+ ", Treffer=" + gibTreffer() + ", Fehlzugriffe=" + gibFehlzugriffe()
+				+ ", Verdraengungen=" + gibVerdraengungen() + ", Freigaben=" + gibFreigaben() + "]";
+	}
+
+	/*
+	 * Größe des Pixelpuffers in Bytes, unabhängig vom Datentyp und der Anzahl der Bänke
+	 */
+	static long gibGewicht(BufferedImage bild)
+	{
+		DataBuffer puffer = bild.getRaster().getDataBuffer();
+
+		return (long) puffer.getSize() * puffer.getNumBanks() * DataBuffer.getDataTypeSize(puffer.getDataType()) / 8L;
+	}
+
+	/*
+	 * verwirft Einträge, deren Bilder der Garbage Collector freigegeben hat, muss unter der Sperre aufgerufen werden
+	 */
+	private void raeumeAuf()
+	{
+		Reference<? extends BufferedImage> referenz;
+
+		while ((referenz = freigegeben.poll()) != null)
+		{
+			Eintrag eintrag = (Eintrag) referenz;
+
+			if (eintraege.get(eintrag.schluessel) == eintrag)
+			{
+				entferne(eintrag);
+
+				freigaben.incrementAndGet();
+			}
+		}
+	}
+
+	/*
+	 * verdrängt die am längsten nicht genutzten Einträge bis das Budget eingehalten wird
+	 */
+	private void verdraenge()
+	{
+		Iterator<Eintrag> aelteste = eintraege.values().iterator();
+
+		while ((belegteBytes > maxBytes) && aelteste.hasNext())
+		{
+			Eintrag eintrag = aelteste.next();
+
+			aelteste.remove();
+
+			baum.entferne(eintrag.schluessel);
+
+			belegteBytes -= eintrag.gewicht;
+
+			verdraengungen.incrementAndGet();
+		}
+	}
+
+	private void entferne(Eintrag eintrag)
+	{
+		eintraege.remove(eintrag.schluessel);
+
+		baum.entferne(eintrag.schluessel);
+
+		belegteBytes -= eintrag.gewicht;
+	}
+
+	private static final class Eintrag extends SoftReference<BufferedImage>
+	{
+		private final Path schluessel;
+
+		private final long geaendert;
+
+		private final long groesse;
+
+		private final long gewicht;
+
+		private Eintrag(Path schluessel, BufferedImage bild, long geaendert, long groesse, long gewicht,
+				ReferenceQueue<BufferedImage> freigegeben)
+		{
+			super(bild, freigegeben);
+			this.schluessel = schluessel;
+			this.geaendert = geaendert;
+			this.groesse = groesse;
+			this.gewicht = gewicht;
+		}
+	}
+}
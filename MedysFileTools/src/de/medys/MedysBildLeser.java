@@ -0,0 +1,279 @@
+package de.medys;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Dekodiert Bilddateien verkleinert oder ausschnittsweise durch {@link ImageReader} und {@link ImageReadParam}.
+ * <br><br>
+ * Im Gegensatz zu {@link ImageIO#read(java.io.File)} werden nur die Pixel dekodiert, die tats&auml;chlich
+ * ben&ouml;tigt werden: bei einer Zielgr&ouml;&szlig;e wird jede n-te Zeile und Spalte gelesen
+ * (Subsampling), bei einem Ausschnitt nur der angegebene Bereich. Eine Vorschau eines 40-Megapixel-Scans
+ * belegt so nur einen Bruchteil des Heaps.
+ * <br><br>
+ * <u>Wichtig</u>
+ * <blockquote>
+ * 	Eine Instanz h&auml;lt je Bildformat einen wiederverwendbaren {@link ImageReader} und ist daher
+ * 	<b>nicht</b> threadsicher. Jeder Thread sollte eine eigene Instanz nutzen und diese nach Gebrauch durch
+ * 	{@link #close()} freigeben.
+ * </blockquote>
+ *
+ * Beispiel:
+ * <blockquote>
+ * 	<code>
+ * 		try (MedysBildLeser leser = new MedysBildLeser())<br>
+ * 		{<br>
+ * 			&nbsp;&nbsp;BufferedImage vorschau = leser.lese(scan, 800, 600);<br>
+ * 		}
+ * 	</code>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ * @see MedysFileIO#ladeBild(String, String, int, int)
+ * @see MedysFileIO#ladeBild(String, String, Rectangle)
+ */
+public class MedysBildLeser implements Closeable
+{
+	private final Map<ImageReaderSpi, ImageReader> reader = new HashMap<>();
+
+	/**
+	 * Dekodiert eine Bilddatei vollst&auml;ndig
+	 *
+	 * @param datei die Pfadangabe zur Bilddatei
+	 * @return das Bild, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht gelesen werden kann
+	 */
+	public BufferedImage lese(Path datei) throws IOException
+	{
+		return lese(datei, null, 0, 0);
+	}
+
+	/**
+	 * Dekodiert eine Bilddatei verkleinert.
+	 * <br><br>
+	 * Es wird der gr&ouml;&szlig;te ganzzahlige Faktor gew&auml;hlt, mit dem das Bild noch
+	 * <u>mindestens</u> die Zielgr&ouml;&szlig;e hat, so da&szlig; eine anschlie&szlig;ende Skalierung keine
+	 * Qualit&auml;t verliert. Ist das Bild bereits kleiner, so wird es vollst&auml;ndig dekodiert.
+	 *
+	 * @param datei die Pfadangabe zur Bilddatei
+	 * @param zielBreite die ben&ouml;tigte Breite in Pixeln, 0 wenn die Breite keine Rolle spielt
+	 * @param zielHoehe die ben&ouml;tigte H&ouml;he in Pixeln, 0 wenn die H&ouml;he keine Rolle spielt
+	 * @return das verkleinerte Bild, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht gelesen werden kann
+	 */
+	public BufferedImage lese(Path datei, int zielBreite, int zielHoehe) throws IOException
+	{
+		return lese(datei, null, zielBreite, zielHoehe);
+	}
+
+	/**
+	 * Dekodiert einen Ausschnitt einer Bilddatei in voller Aufl&ouml;sung
+	 *
+	 * @param datei die Pfadangabe zur Bilddatei
+	 * @param bereich der Ausschnitt in Pixeln des Originalbildes
+	 * @return der Ausschnitt, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht gelesen werden kann oder der Ausschnitt au&szlig;erhalb
+	 * 			des Bildes liegt
+	 */
+	public BufferedImage leseAusschnitt(Path datei, Rectangle bereich) throws IOException
+	{
+		return lese(datei, bereich, 0, 0);
+	}
+
+	/**
+	 * Dekodiert einen Ausschnitt einer Bilddatei verkleinert, siehe {@link #lese(Path, int, int)} und
+	 * {@link #leseAusschnitt(Path, Rectangle)}
+	 *
+	 * @param datei die Pfadangabe zur Bilddatei
+	 * @param bereich der Ausschnitt in Pixeln des Originalbildes, NULL f&uuml;r das gesamte Bild
+	 * @param zielBreite die ben&ouml;tigte Breite des Ausschnitts in Pixeln, 0 wenn die Breite keine Rolle spielt
+	 * @param zielHoehe die ben&ouml;tigte H&ouml;he des Ausschnitts in Pixeln, 0 wenn die H&ouml;he keine Rolle spielt
+	 * @return das Bild, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht gelesen werden kann oder der Ausschnitt au&szlig;erhalb
+	 * 			des Bildes liegt
+	 */
+	public BufferedImage lese(Path datei, Rectangle bereich, int zielBreite, int zielHoehe) throws IOException
+	{
+		try (ImageInputStream eingabe = oeffne(datei))
+		{
+			ImageReader leser = gibReader(eingabe);
+
+			if (leser == null)
+			{
+				return null;
+			}
+
+			try
+			{
+				leser.setInput(eingabe, true, true);
+
+				Rectangle bild = new Rectangle(0, 0, leser.getWidth(0), leser.getHeight(0));
+				Rectangle quelle = bereich != null ? bereich.intersection(bild) : bild;
+
+				if (quelle.isEmpty())
+				{
+					throw new IOException("IOException aus MedysBildLeser.lese\nDer Ausschnitt " + bereich
+							+ " liegt außerhalb des Bildes " + datei + " (" + bild.width + "x" + bild.height + ")!");
+				}
+
+				ImageReadParam parameter = leser.getDefaultReadParam();
+
+				if (bereich != null)
+				{
+					parameter.setSourceRegion(quelle);
+				}
+
+				int faktor = gibFaktor(quelle.width, quelle.height, zielBreite, zielHoehe);
+
+				if (faktor > 1)
+				{
+					parameter.setSourceSubsampling(faktor, faktor, 0, 0);
+				}
+				return leser.read(0, parameter);
+			}
+			finally
+			{
+				leser.setInput(null);
+			}
+		}
+	}
+
+	/**
+	 * Liest nur die Abmessungen einer Bilddatei aus dem Dateikopf, ohne Pixel zu dekodieren
+	 *
+	 * @param datei die Pfadangabe zur Bilddatei
+	 * @return Breite und H&ouml;he in Pixeln, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht gelesen werden kann
+	 */
+	public Dimension gibAbmessungen(Path datei) throws IOException
+	{
+		try (ImageInputStream eingabe = oeffne(datei))
+		{
+			ImageReader leser = gibReader(eingabe);
+
+			if (leser == null)
+			{
+				return null;
+			}
+
+			try
+			{
+				leser.setInput(eingabe, true, true);
+
+				return new Dimension(leser.getWidth(0), leser.getHeight(0));
+			}
+			finally
+			{
+				leser.setInput(null);
+			}
+		}
+	}
+
+	/**
+	 * Gibt alle gehaltenen {@link ImageReader} frei
+	 */
+	@Override
+	public void close()
+	{
+		for (ImageReader leser : reader.values())
+		{
+			leser.dispose();
+		}
+		reader.clear();
+	}
+
+	/*
+	 * größter ganzzahliger Faktor, mit dem der Bereich mindestens die Zielgröße behält
+	 */
+	static int gibFaktor(int breite, int hoehe, int zielBreite, int zielHoehe)
+	{
+		int faktor = Integer.MAX_VALUE;
+
+		if (zielBreite > 0)
+		{
+			faktor = Math.min(faktor, breite / zielBreite);
+		}
+		if (zielHoehe > 0)
+		{
+			faktor = Math.min(faktor, hoehe / zielHoehe);
+		}
+		return faktor == Integer.MAX_VALUE ? 1 : Math.max(1, faktor);
+	}
+
+	private static ImageInputStream oeffne(Path datei) throws IOException
+	{
+		ImageInputStream eingabe = ImageIO.createImageInputStream(datei.toFile());
+
+		if (eingabe == null)
+		{
+			throw new IOException("IOException aus MedysBildLeser.lese\nDie Bilddatei " + datei
+					+ " kann nicht gelesen werden!");
+		}
+		return eingabe;
+	}
+
+	/*
+	 * erkennt das Format wie ImageIO anhand der ersten Bytes, erzeugt aber je Format nur einen Reader
+	 */
+	private ImageReader gibReader(ImageInputStream eingabe) throws IOException
+	{
+		Iterator<ImageReaderSpi> anbieter = IIORegistry.getDefaultInstance().getServiceProviders(ImageReaderSpi.class, true);
+
+		while (anbieter.hasNext())
+		{
+			ImageReaderSpi spi = anbieter.next();
+
+			if (kannDekodieren(spi, eingabe))
+			{
+				ImageReader leser = reader.get(spi);
+
+				if (leser == null)
+				{
+					leser = spi.createReaderInstance();
+
+					reader.put(spi, leser);
+				}
+				return leser;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * zu kurze oder beschädigte Dateiköpfe bedeuten wie bei ImageIO nur "anderes Format"
+	 */
+	private static boolean kannDekodieren(ImageReaderSpi spi, ImageInputStream eingabe)
+	{
+		try
+		{
+			eingabe.mark();
+
+			try
+			{
+				return spi.canDecodeInput(eingabe);
+			}
+			finally
+			{
+				eingabe.reset();
+			}
+		}
+		catch (IOException unlesbar)
+		{
+			return false;
+		}
+	}
+}
@@ -0,0 +1,416 @@
+package de.medys;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.imageio.ImageIO;
+
+/**
+ * L&auml;dt viele Bilddateien (z.B. alle gescannten Seiten eines Ordners) gleichzeitig.
+ * <br><br>
+ * Die Bilder werden von mehreren Threads dekodiert, jeder Thread nutzt dabei einen eigenen
+ * {@link MedysBildLeser} und damit einen eigenen {@link javax.imageio.ImageReader} je Bildformat.
+ * <br><br>
+ * <u>Reihenfolge und Speicher</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>die Ergebnisse werden in der Reihenfolge der Dateien geliefert, unabh&auml;ngig davon, welches
+ * 			Bild zuerst fertig dekodiert ist</li>
+ * 		<li>es werden h&ouml;chstens so viele Bilder im Voraus dekodiert, wie durch <code>maxImVoraus</code>
+ * 			angegeben, so da&szlig; der Speicherbedarf auch bei tausenden Dateien begrenzt bleibt</li>
+ * 		<li>Fehler einzelner Dateien brechen das Laden nicht ab, sondern werden im {@link Ergebnis} der
+ * 			jeweiligen Datei gemeldet</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Beispiel:
+ * <blockquote>
+ * 	<code>
+ * 		try (MedysBildStapelLader lader = new MedysBildStapelLader();<br>
+ * 			&nbsp;&nbsp;Stream&lt;MedysBildStapelLader.Ergebnis&gt; seiten = lader.ladeVerzeichnis(scanOrdner, 0, 0))<br>
+ * 		{<br>
+ * 			&nbsp;&nbsp;seiten.forEach(seite -&gt; ocr.verarbeite(seite.gibBild()));<br>
+ * 		}
+ * 	</code>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysBildStapelLader implements Closeable
+{
+	private static final AtomicInteger NUMMER = new AtomicInteger();
+
+	private final int parallelitaet;
+
+	private final int maxImVoraus;
+
+	private final ExecutorService pool;
+
+	private final List<MedysBildLeser> alleLeser = Collections.synchronizedList(new ArrayList<>());
+
+	private final ThreadLocal<MedysBildLeser> leser = ThreadLocal.withInitial(() -> {
+		MedysBildLeser neu = new MedysBildLeser();
+		alleLeser.add(neu);
+		return neu;
+	});
+
+	/**
+	 * Erstellt einen Lader, der so viele Threads nutzt, wie Prozessoren verf&uuml;gbar sind, und doppelt so
+	 * viele Bilder im Voraus dekodiert
+	 */
+	public MedysBildStapelLader()
+	{
+		this(Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Erstellt einen Lader mit einer festen Anzahl paralleler Threads
+	 *
+	 * @param parallelitaet die Anzahl der Threads, die gleichzeitig dekodieren (mindestens 1)
+	 * @param maxImVoraus die maximale Anzahl dekodierter bzw. in Dekodierung befindlicher Bilder, die noch
+	 * 			nicht abgeholt wurden (mindestens 1)
+	 */
+	public MedysBildStapelLader(int parallelitaet, int maxImVoraus)
+	{
+		if ((parallelitaet < 1) || (maxImVoraus < 1))
+		{
+			throw new IllegalArgumentException("Ungültige Lader-Parameter " + parallelitaet + "/" + maxImVoraus);
+		}
+		this.parallelitaet = parallelitaet;
+		this.maxImVoraus = maxImVoraus;
+		this.pool = Executors.newFixedThreadPool(parallelitaet, aufgabe -> {
+			Thread thread = new Thread(aufgabe, "MedysBildStapelLader-" + NUMMER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return die Anzahl der Threads, die gleichzeitig dekodieren
+	 */
+	public int gibParallelitaet()
+	{
+		return parallelitaet;
+	}
+
+	/**
+	 * @return die maximale Anzahl im Voraus dekodierter Bilder
+	 */
+	public int gibMaxImVoraus()
+	{
+		return maxImVoraus;
+	}
+
+	/**
+	 * L&auml;dt alle Bilddateien eines Verzeichnisses (ohne Unterverzeichnisse) in der Reihenfolge ihrer
+	 * Namen, siehe {@link #lade(List, int, int)}.
+	 * <br><br>
+	 * Ber&uuml;cksichtigt werden Dateien mit einer Endung, f&uuml;r die {@link ImageIO} einen Leser anbietet
+	 * (z.B. png, jpg, tif, bmp, gif).
+	 *
+	 * @param verzeichnis das Verzeichnis mit den Bilddateien
+	 * @param zielBreite die ben&ouml;tigte Breite in Pixeln, 0 f&uuml;r volle Aufl&ouml;sung
+	 * @param zielHoehe die ben&ouml;tigte H&ouml;he in Pixeln, 0 f&uuml;r volle Aufl&ouml;sung
+	 * @return die Ergebnisse in der Reihenfolge der Dateinamen
+	 * @throws IOException wenn das Verzeichnis nicht gelesen werden kann
+	 */
+	public Stream<Ergebnis> ladeVerzeichnis(File verzeichnis, int zielBreite, int zielHoehe) throws IOException
+	{
+		Set<String> endungen = new HashSet<>();
+
+		for (String endung : ImageIO.getReaderFileSuffixes())
+		{
+			endungen.add(endung.toLowerCase(Locale.ROOT));
+		}
+
+		List<Path> dateien = new ArrayList<>();
+
+		try (DirectoryStream<Path> eintraege = Files.newDirectoryStream(verzeichnis.toPath()))
+		{
+			for (Path eintrag : eintraege)
+			{
+				String name = eintrag.getFileName().toString();
+
+				int punkt = name.lastIndexOf('.');
+
+				if ((punkt > 0) && endungen.contains(name.substring(punkt + 1).toLowerCase(Locale.ROOT))
+						&& Files.isRegularFile(eintrag))
+				{
+					dateien.add(eintrag);
+				}
+			}
+		}
+		Collections.sort(dateien);
+
+		return lade(dateien, zielBreite, zielHoehe);
+	}
+
+	/**
+	 * L&auml;dt Bilddateien in voller Aufl&ouml;sung, siehe {@link #lade(List, int, int)}
+	 *
+	 * @param dateien die Bilddateien
+	 * @return die Ergebnisse in der Reihenfolge der Dateien
+	 */
+	public Stream<Ergebnis> lade(List<Path> dateien)
+	{
+		return lade(dateien, 0, 0);
+	}
+
+	/**
+	 * L&auml;dt Bilddateien gleichzeitig und liefert die Ergebnisse in der Reihenfolge der Dateien.
+	 * <br><br>
+	 * Das Dekodieren beginnt sofort f&uuml;r die ersten Dateien, jedes abgeholte Ergebnis gibt einen Platz
+	 * f&uuml;r die n&auml;chste Datei frei. Wird der Stream vorzeitig geschlossen, so werden noch nicht
+	 * abgeholte Dekodierungen abgebrochen. Bei einer Zielgr&ouml;&szlig;e wird wie bei
+	 * {@link MedysBildLeser#lese(Path, int, int)} verkleinert dekodiert.
+	 *
+	 * @param dateien die Bilddateien
+	 * @param zielBreite die ben&ouml;tigte Breite in Pixeln, 0 f&uuml;r volle Aufl&ouml;sung
+	 * @param zielHoehe die ben&ouml;tigte H&ouml;he in Pixeln, 0 f&uuml;r volle Aufl&ouml;sung
+	 * @return die Ergebnisse in der Reihenfolge der Dateien
+	 */
+	public Stream<Ergebnis> lade(List<Path> dateien, int zielBreite, int zielHoehe)
+	{
+		Ergebnisse ergebnisse = new Ergebnisse(new ArrayList<>(dateien), zielBreite, zielHoehe);
+
+		return StreamSupport.stream(
+				Spliterators.spliterator(ergebnisse, dateien.size(),
+						Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED),
+				false).onClose(ergebnisse::brecheAb);
+	}
+
+	/**
+	 * Beendet alle Threads und gibt die {@link javax.imageio.ImageReader} frei
+	 */
+	@Override
+	public void close()
+	{
+		pool.shutdownNow();
+
+		try
+		{
+			pool.awaitTermination(10L, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException unterbrochen)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		synchronized (alleLeser)
+		{
+			for (MedysBildLeser einLeser : alleLeser)
+			{
+				einLeser.close();
+			}
+			alleLeser.clear();
+		}
+	}
+
+	private Ergebnis dekodiere(Path datei, int zielBreite, int zielHoehe)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			BufferedImage bild = leser.get().lese(datei, zielBreite, zielHoehe);
+
+			if (bild == null)
+			{
+				return new Ergebnis(datei, null, new IOException("IOException aus MedysBildStapelLader.lade\n"
+						+ "Das Bildformat der Datei " + datei + " wird nicht unterstützt!"), System.nanoTime() - start);
+			}
+			return new Ergebnis(datei, bild, null, System.nanoTime() - start);
+		}
+		catch (IOException | RuntimeException fehler)
+		{
+			return new Ergebnis(datei, null, fehler instanceof IOException ? (IOException) fehler
+					: new IOException(fehler.getMessage(), fehler), System.nanoTime() - start);
+		}
+	}
+
+	/*
+	 * liefert die Ergebnisse der Reihe nach und hält dabei höchstens maxImVoraus Aufgaben offen
+	 */
+	private final class Ergebnisse implements Iterator<Ergebnis>
+	{
+		private final List<Path> dateien;
+
+		private final int zielBreite;
+
+		private final int zielHoehe;
+
+		private final ArrayDeque<Future<Ergebnis>> offen = new ArrayDeque<>();
+
+		private int naechsteDatei;
+
+		private int naechstesErgebnis;
+
+		private Ergebnisse(List<Path> dateien, int zielBreite, int zielHoehe)
+		{
+			this.dateien = dateien;
+			this.zielBreite = zielBreite;
+			this.zielHoehe = zielHoehe;
+
+			fuelleAuf();
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return naechstesErgebnis < dateien.size();
+		}
+
+		@Override
+		public Ergebnis next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+
+			Future<Ergebnis> aufgabe = offen.poll();
+
+			Path datei = dateien.get(naechstesErgebnis++);
+
+			Ergebnis ergebnis;
+
+			try
+			{
+				ergebnis = aufgabe.get();
+			}
+			catch (InterruptedException unterbrochen)
+			{
+				Thread.currentThread().interrupt();
+
+				aufgabe.cancel(true);
+
+				ergebnis = new Ergebnis(datei, null, new InterruptedIOException("Laden wurde unterbrochen"), 0L);
+			}
+			catch (ExecutionException | CancellationException abgebrochen)
+			{
+				ergebnis = new Ergebnis(datei, null, new IOException("IOException aus MedysBildStapelLader.lade\n"
+						+ "Das Laden der Datei " + datei + " wurde abgebrochen!", abgebrochen), 0L);
+			}
+
+			fuelleAuf();
+
+			return ergebnis;
+		}
+
+		private void fuelleAuf()
+		{
+			while ((offen.size() < maxImVoraus) && (naechsteDatei < dateien.size()))
+			{
+				Path datei = dateien.get(naechsteDatei++);
+
+				offen.add(pool.submit(() -> dekodiere(datei, zielBreite, zielHoehe)));
+			}
+		}
+
+		private void brecheAb()
+		{
+			for (Future<Ergebnis> aufgabe : offen)
+			{
+				aufgabe.cancel(true);
+			}
+			offen.clear();
+
+			naechsteDatei = dateien.size();
+			naechstesErgebnis = dateien.size();
+		}
+	}
+
+	/**
+	 * Das Ergebnis einer einzelnen Bilddatei
+	 */
+	public static final class Ergebnis
+	{
+		private final Path datei;
+
+		private final BufferedImage bild;
+
+		private final IOException fehler;
+
+		private final long dauerNanos;
+
+		private Ergebnis(Path datei, BufferedImage bild, IOException fehler, long dauerNanos)
+		{
+			this.datei = datei;
+			this.bild = bild;
+			this.fehler = fehler;
+			this.dauerNanos = dauerNanos;
+		}
+
+		/**
+		 * @return die Bilddatei
+		 */
+		public Path gibDatei()
+		{
+			return datei;
+		}
+
+		/**
+		 * @return das dekodierte Bild, NULL wenn die Datei nicht geladen werden konnte
+		 */
+		public BufferedImage gibBild()
+		{
+			return bild;
+		}
+
+		/**
+		 * @return der Fehler, NULL wenn das Bild geladen wurde
+		 */
+		public IOException gibFehler()
+		{
+			return fehler;
+		}
+
+		/**
+		 * @return die Dauer der Dekodierung in Nanosekunden
+		 */
+		public long gibDauerNanos()
+		{
+			return dauerNanos;
+		}
+
+		/**
+		 * @return <code>true</code> wenn das Bild geladen wurde, sonst <code>false</code>
+		 */
+		public boolean istErfolgreich()
+		{
+			return fehler == null;
+		}
+
+		@Override
+		public String toString()
+		{
+			return datei + (fehler == null ? " (" + bild.getWidth() + "x" + bild.getHeight() + ")" : " -> " + fehler.getMessage());
+		}
+	}
+}
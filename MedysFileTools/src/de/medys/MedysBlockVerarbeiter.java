@@ -0,0 +1,29 @@
+package de.medys;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * R&uuml;ckruf-Schnittstelle f&uuml;r das blockweise Lesen einer Datei durch
+ * {@link MedysFileIO#leseDateiInBloecken(java.io.File, int, MedysBlockVerarbeiter)}.
+ * <br><br>
+ * <u>Wichtig</u>
+ * <blockquote>
+ * 	Der &uuml;bergebene Puffer wird f&uuml;r jeden Block wiederverwendet und ist nur w&auml;hrend des
+ * 	Aufrufs von {@link #verarbeite(ByteBuffer)} g&uuml;ltig. Wer die Daten l&auml;nger ben&ouml;tigt,
+ * 	mu&szlig; sie kopieren.
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+@FunctionalInterface
+public interface MedysBlockVerarbeiter
+{
+	/**
+	 * Verarbeitet einen gelesenen Block einer Datei
+	 *
+	 * @param block der Block (Position 0, Limit = Anzahl gelesener Bytes)
+	 * @throws IOException wenn der Block nicht verarbeitet werden konnte, bricht das Lesen ab
+	 */
+	void verarbeite(ByteBuffer block) throws IOException;
+}
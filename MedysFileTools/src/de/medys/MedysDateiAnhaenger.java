@@ -0,0 +1,558 @@
+package de.medys;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dauerhaft ge&ouml;ffneter Anh&auml;nger an eine Datei, z.B. f&uuml;r ein Protokoll (Audit-Trail).
+ * <br><br>
+ * Im Gegensatz zu {@link MedysFileIO#schreibInDatei(String, String, String, boolean)} wird die Datei nicht
+ * f&uuml;r jeden Datensatz ge&ouml;ffnet und geschlossen. Gleichzeitige Aufrufe von {@link #haengeAn(String)}
+ * aus beliebig vielen Threads werden von einem Schreib-Thread gesammelt und mit einem einzigen
+ * Schreibvorgang an das Dateiende geschrieben (Group Commit).
+ * <br><br>
+ * <u>Regeln</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>existiert die Datei nicht, so wird sie angelegt</li>
+ * 		<li>{@link #haengeAn(String)} kehrt zur&uuml;ck, sobald der Datensatz geschrieben wurde</li>
+ * 		<li>wann die Datei zus&auml;tzlich auf den Datentr&auml;ger gezwungen wird (fsync), bestimmt die
+ * 			{@link SyncRegel}</li>
+ * 		<li>schl&auml;gt ein Schreibvorgang fehl, so schlagen auch alle folgenden Aufrufe fehl</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Beispiel:
+ * <blockquote>
+ * 	<code>
+ * 		try (MedysDateiAnhaenger protokoll = new MedysDateiAnhaenger(datei, StandardCharsets.ISO_8859_1,
+ * 				MedysDateiAnhaenger.SyncRegel.alleMillis(200)))<br>
+ * 		{<br>
+ * 			&nbsp;&nbsp;protokoll.haengeAn("Benutzer angemeldet\n");<br>
+ * 		}
+ * 	</code>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysDateiAnhaenger implements Closeable
+{
+	private static final int MAX_BATCH = 1024;
+
+	private final File datei;
+
+	private final Charset zeichensatz;
+
+	private final SyncRegel syncRegel;
+
+	private final FileChannel kanal;
+
+	private final LinkedBlockingQueue<Auftrag> warteschlange = new LinkedBlockingQueue<>();
+
+	private final Thread schreiber;
+
+	private final AtomicLong batches = new AtomicLong();
+
+	private final AtomicLong datensaetze = new AtomicLong();
+
+	private final AtomicLong groessterBatch = new AtomicLong();
+
+	private final AtomicLong syncs = new AtomicLong();
+
+	private final AtomicLong latenzSummeNanos = new AtomicLong();
+
+	private final AtomicLong groessteLatenzNanos = new AtomicLong();
+
+	private volatile boolean geschlossen;
+
+	private volatile IOException fehler;
+
+	private int unsynchronisiert;
+
+	private long letzterSync = System.nanoTime();
+
+	/**
+	 * &Ouml;ffnet eine Datei zum Anh&auml;ngen und startet den Schreib-Thread
+	 *
+	 * @param datei die Datei, an die angeh&auml;ngt werden soll
+	 * @param zeichensatz der Zeichensatz, mit dem die Datens&auml;tze geschrieben werden
+	 * @param syncRegel die Regel, wann die Datei auf den Datentr&auml;ger gezwungen wird
+	 * @throws IOException wenn die Datei nicht ge&ouml;ffnet werden kann
+	 */
+	public MedysDateiAnhaenger(File datei, Charset zeichensatz, SyncRegel syncRegel) throws IOException
+	{
+		this.datei = datei;
+		this.zeichensatz = zeichensatz;
+		this.syncRegel = syncRegel;
+		this.kanal = FileChannel.open(datei.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+
+		MedysFileIO.vergiss(datei);
+
+		schreiber = new Thread(this::schreibe, "MedysDateiAnhaenger-" + datei.getName());
+		schreiber.setDaemon(true);
+		schreiber.start();
+	}
+
+	/**
+	 * H&auml;ngt einen Datensatz an das Dateiende an und wartet, bis er geschrieben wurde.
+	 * <br><br>
+	 * Zeilenumbr&uuml;che werden nicht automatisch erg&auml;nzt.
+	 *
+	 * @param inhalt der Inhalt, der angeh&auml;ngt werden soll
+	 * @throws IOException wenn der Anh&auml;nger geschlossen ist oder der Datensatz nicht geschrieben werden kann
+	 */
+	public void haengeAn(String inhalt) throws IOException
+	{
+		try
+		{
+			haengeAnAsync(inhalt).get();
+		}
+		catch (InterruptedException unterbrochen)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new InterruptedIOException("Warten auf den Schreibvorgang wurde unterbrochen");
+		}
+		catch (ExecutionException schreibFehler)
+		{
+			Throwable ursache = schreibFehler.getCause();
+
+			throw ursache instanceof IOException ? (IOException) ursache : new IOException(ursache);
+		}
+	}
+
+	/**
+	 * H&auml;ngt einen Datensatz an das Dateiende an, ohne auf den Schreibvorgang zu warten
+	 *
+	 * @param inhalt der Inhalt, der angeh&auml;ngt werden soll
+	 * @return ein Future, das abgeschlossen wird, sobald der Datensatz geschrieben wurde
+	 */
+	public CompletableFuture<Void> haengeAnAsync(String inhalt)
+	{
+		CompletableFuture<Void> erledigt = new CompletableFuture<>();
+
+		if (inhalt == null)
+		{
+			erledigt.completeExceptionally(new IOException("IOException aus MedysDateiAnhaenger.haengeAn\nDer Inhalt ist NULL.\nBitte geben Sie einen Inhalt an!"));
+		}
+		else if (fehler != null)
+		{
+			erledigt.completeExceptionally(fehler);
+		}
+		else
+		{
+			Auftrag auftrag = new Auftrag(zeichensatz.encode(inhalt), erledigt);
+
+			// Prüfen und Einreihen unter derselben Sperre wie close(), damit kein Auftrag hinter ENDE landet
+			//
+			synchronized (warteschlange)
+			{
+				if (geschlossen)
+				{
+					erledigt.completeExceptionally(gibGeschlossenFehler());
+				}
+				else
+				{
+					warteschlange.add(auftrag);
+				}
+			}
+		}
+		return erledigt;
+	}
+
+	/**
+	 * @return die Datei, an die angeh&auml;ngt wird
+	 */
+	public File gibDatei()
+	{
+		return datei;
+	}
+
+	/**
+	 * @return eine Momentaufnahme der bisherigen Kennzahlen
+	 */
+	public Metriken gibMetriken()
+	{
+		return new Metriken(batches.get(), datensaetze.get(), groessterBatch.get(), syncs.get(),
+				latenzSummeNanos.get(), groessteLatenzNanos.get());
+	}
+
+	/**
+	 * Schreibt alle noch wartenden Datens&auml;tze, zwingt die Datei auf den Datentr&auml;ger (au&szlig;er bei
+	 * {@link SyncRegel#nie()}) und schlie&szlig;t sie.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (warteschlange)
+		{
+			if (geschlossen)
+			{
+				return;
+			}
+			geschlossen = true;
+
+			warteschlange.add(Auftrag.ENDE);
+		}
+
+		try
+		{
+			schreiber.join();
+		}
+		catch (InterruptedException unterbrochen)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			// bleibt nach einer Unterbrechung etwas in der Warteschlange, so darf niemand ewig darauf warten
+			//
+			if (!schreiber.isAlive())
+			{
+				List<Auftrag> verblieben = new ArrayList<>();
+
+				warteschlange.drainTo(verblieben);
+				verblieben.remove(Auftrag.ENDE);
+
+				melde(verblieben, fehler != null ? fehler : gibGeschlossenFehler());
+			}
+
+			try
+			{
+				if ((fehler == null) && (unsynchronisiert > 0) && syncRegel.syncBeimSchliessen())
+				{
+					kanal.force(false);
+					syncs.incrementAndGet();
+				}
+			}
+			finally
+			{
+				kanal.close();
+
+				MedysFileIO.vergiss(datei);
+			}
+		}
+	}
+
+	/*
+	 * Schleife des Schreib-Threads: sammelt alle wartenden Aufträge und schreibt sie gemeinsam
+	 */
+	private void schreibe()
+	{
+		List<Auftrag> batch = new ArrayList<>();
+
+		boolean ende = false;
+
+		try
+		{
+			while (!ende)
+			{
+				Auftrag erster = syncRegel.intervallNanos > 0
+						? warteschlange.poll(syncRegel.intervallNanos, TimeUnit.NANOSECONDS)
+						: warteschlange.take();
+
+				if (erster != null)
+				{
+					batch.add(erster);
+					warteschlange.drainTo(batch, MAX_BATCH - 1);
+				}
+
+				ende = batch.remove(Auftrag.ENDE);
+
+				schreibeBatch(batch);
+
+				batch.clear();
+			}
+
+			// Aufträge, die noch während des Schließens eingereiht wurden
+			//
+			warteschlange.drainTo(batch);
+			schreibeBatch(batch);
+		}
+		catch (InterruptedException unterbrochen)
+		{
+			melde(batch, new InterruptedIOException("Schreib-Thread wurde unterbrochen"));
+		}
+	}
+
+	private void schreibeBatch(List<Auftrag> batch)
+	{
+		try
+		{
+			if (fehler != null)
+			{
+				melde(batch, fehler);
+				return;
+			}
+
+			if (!batch.isEmpty())
+			{
+				ByteBuffer[] puffer = new ByteBuffer[batch.size()];
+
+				long verbleibend = 0L;
+
+				for (int i = 0; i < puffer.length; i++)
+				{
+					puffer[i] = batch.get(i).daten;
+					verbleibend += puffer[i].remaining();
+				}
+
+				while (verbleibend > 0)
+				{
+					verbleibend -= kanal.write(puffer);
+				}
+				unsynchronisiert += batch.size();
+			}
+
+			if ((unsynchronisiert > 0) && syncRegel.istFaellig(unsynchronisiert, System.nanoTime() - letzterSync))
+			{
+				kanal.force(false);
+				syncs.incrementAndGet();
+
+				unsynchronisiert = 0;
+				letzterSync = System.nanoTime();
+			}
+
+			if (!batch.isEmpty())
+			{
+				MedysFileIO.vergiss(datei);
+
+				erfasse(batch);
+			}
+		}
+		catch (IOException schreibFehler)
+		{
+			fehler = schreibFehler;
+
+			melde(batch, schreibFehler);
+		}
+	}
+
+	private IOException gibGeschlossenFehler()
+	{
+		return new IOException("IOException aus MedysDateiAnhaenger.haengeAn\nDer Anhänger für " + datei.getName()
+				+ " ist bereits geschlossen");
+	}
+
+	private void erfasse(List<Auftrag> batch)
+	{
+		long jetzt = System.nanoTime();
+
+		batches.incrementAndGet();
+		datensaetze.addAndGet(batch.size());
+		groessterBatch.accumulateAndGet(batch.size(), Math::max);
+
+		for (Auftrag auftrag : batch)
+		{
+			long latenz = jetzt - auftrag.eingereiht;
+
+			latenzSummeNanos.addAndGet(latenz);
+			groessteLatenzNanos.accumulateAndGet(latenz, Math::max);
+
+			auftrag.erledigt.complete(null);
+		}
+	}
+
+	private static void melde(List<Auftrag> batch, IOException schreibFehler)
+	{
+		for (Auftrag auftrag : batch)
+		{
+			auftrag.erledigt.completeExceptionally(schreibFehler);
+		}
+	}
+
+	private static final class Auftrag
+	{
+		private static final Auftrag ENDE = new Auftrag(null, null);
+
+		private final ByteBuffer daten;
+
+		private final CompletableFuture<Void> erledigt;
+
+		private final long eingereiht = System.nanoTime();
+
+		Auftrag(ByteBuffer daten, CompletableFuture<Void> erledigt)
+		{
+			this.daten = daten;
+			this.erledigt = erledigt;
+		}
+	}
+
+	/**
+	 * Regel, wann ein {@link MedysDateiAnhaenger} die Datei auf den Datentr&auml;ger zwingt (fsync)
+	 */
+	public static final class SyncRegel
+	{
+		private final int alleDatensaetze;
+
+		private final long intervallNanos;
+
+		private SyncRegel(int alleDatensaetze, long intervallNanos)
+		{
+			this.alleDatensaetze = alleDatensaetze;
+			this.intervallNanos = intervallNanos;
+		}
+
+		/**
+		 * Die Datei wird nie explizit synchronisiert, das Betriebssystem entscheidet
+		 *
+		 * @return die Regel
+		 */
+		public static SyncRegel nie()
+		{
+			return new SyncRegel(0, 0L);
+		}
+
+		/**
+		 * Die Datei wird synchronisiert, sobald mindestens n Datens&auml;tze seit der letzten Synchronisierung
+		 * geschrieben wurden
+		 *
+		 * @param n die Anzahl der Datens&auml;tze (mindestens 1, 1 synchronisiert nach jedem Batch)
+		 * @return die Regel
+		 */
+		public static SyncRegel alleDatensaetze(int n)
+		{
+			if (n < 1)
+			{
+				throw new IllegalArgumentException("Ungültige Anzahl an Datensätzen " + n);
+			}
+			return new SyncRegel(n, 0L);
+		}
+
+		/**
+		 * Die Datei wird sp&auml;testens nach der angegebenen Zeit synchronisiert, wenn seitdem etwas
+		 * geschrieben wurde
+		 *
+		 * @param millis das Intervall in Millisekunden (mindestens 1)
+		 * @return die Regel
+		 */
+		public static SyncRegel alleMillis(long millis)
+		{
+			if (millis < 1)
+			{
+				throw new IllegalArgumentException("Ungültiges Intervall " + millis);
+			}
+			return new SyncRegel(0, TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+
+		boolean istFaellig(int unsynchronisiert, long seitLetztemSyncNanos)
+		{
+			return ((alleDatensaetze > 0) && (unsynchronisiert >= alleDatensaetze))
+					|| ((intervallNanos > 0) && (seitLetztemSyncNanos >= intervallNanos));
+		}
+
+		boolean syncBeimSchliessen()
+		{
+			return (alleDatensaetze > 0) || (intervallNanos > 0);
+		}
+
+		@Override
+		public String toString()
+		{
+			return alleDatensaetze > 0 ? "alle " + alleDatensaetze + " Datensätze"
+					: intervallNanos > 0 ? "alle " + TimeUnit.NANOSECONDS.toMillis(intervallNanos) + " ms" : "nie";
+		}
+	}
+
+	/**
+	 * Momentaufnahme der Kennzahlen eines {@link MedysDateiAnhaenger}
+	 */
+	public static final class Metriken
+	{
+		private final long batches;
+		private final long datensaetze;
+		private final long groessterBatch;
+		private final long syncs;
+		private final long latenzSummeNanos;
+		private final long groessteLatenzNanos;
+
+		private Metriken(long batches, long datensaetze, long groessterBatch, long syncs, long latenzSummeNanos,
+				long groessteLatenzNanos)
+		{
+			this.batches = batches;
+			this.datensaetze = datensaetze;
+			this.groessterBatch = groessterBatch;
+			this.syncs = syncs;
+			this.latenzSummeNanos = latenzSummeNanos;
+			this.groessteLatenzNanos = groessteLatenzNanos;
+		}
+
+		/**
+		 * @return die Anzahl der Schreibvorg&auml;nge (Batches)
+		 */
+		public long gibAnzahlBatches()
+		{
+			return batches;
+		}
+
+		/**
+		 * @return die Anzahl der geschriebenen Datens&auml;tze
+		 */
+		public long gibAnzahlDatensaetze()
+		{
+			return datensaetze;
+		}
+
+		/**
+		 * @return die durchschnittliche Anzahl an Datens&auml;tzen je Batch
+		 */
+		public double gibDurchschnittlicheBatchGroesse()
+		{
+			return batches > 0 ? (double) datensaetze / batches : 0.0;
+		}
+
+		/**
+		 * @return die gr&ouml;&szlig;te Anzahl an Datens&auml;tzen in einem Batch
+		 */
+		public long gibGroesstenBatch()
+		{
+			return groessterBatch;
+		}
+
+		/**
+		 * @return die Anzahl der Synchronisierungen (fsync)
+		 */
+		public long gibAnzahlSyncs()
+		{
+			return syncs;
+		}
+
+		/**
+		 * @return die durchschnittliche Zeit vom Aufruf bis zum Schreiben eines Datensatzes in Nanosekunden
+		 */
+		public long gibDurchschnittlicheLatenzNanos()
+		{
+			return datensaetze > 0 ? latenzSummeNanos / datensaetze : 0L;
+		}
+
+		/**
+		 * @return die l&auml;ngste Zeit vom Aufruf bis zum Schreiben eines Datensatzes in Nanosekunden
+		 */
+		public long gibGroessteLatenzNanos()
+		{
+			return groessteLatenzNanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return datensaetze + " Datensätze in " + batches + " Batches (max. " + groessterBatch + "), " + syncs
+					+ " Syncs, Latenz ø " + (gibDurchschnittlicheLatenzNanos() / 1_000) + " µs / max. "
+					+ (groessteLatenzNanos / 1_000) + " µs";
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package de.medys;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Unver&auml;nderlicher Schnappschu&szlig; der Attribute einer Datei oder eines Verzeichnisses.
+ * <br><br>
+ * Existenz, Typ, Gr&ouml;&szlig;e und &Auml;nderungszeitpunkt werden durch einen einzigen
+ * {@link Files#readAttributes(Path, Class, java.nio.file.LinkOption...)}-Aufruf ermittelt, anstatt
+ * f&uuml;r jede Frage das Dateisystem erneut abzufragen.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ * @see MedysAttributCache
+ */
+public final class MedysDateiAttribute
+{
+	/**
+	 * Attribute einer nicht existierenden Datei
+	 */
+	public static final MedysDateiAttribute NICHT_VORHANDEN = new MedysDateiAttribute(false, false, 0L, 0L);
+
+	private final boolean existiert;
+
+	private final boolean verzeichnis;
+
+	private final long groesse;
+
+	private final long geaendert;
+
+	private MedysDateiAttribute(boolean existiert, boolean verzeichnis, long groesse, long geaendert)
+	{
+		this.existiert = existiert;
+		this.verzeichnis = verzeichnis;
+		this.groesse = groesse;
+		this.geaendert = geaendert;
+	}
+
+	/**
+	 * Liest die Attribute einer Pfadangabe mit einem einzigen Dateisystemzugriff.
+	 *
+	 * @param pfad die Pfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute, {@link #NICHT_VORHANDEN} wenn die Pfadangabe <code>NULL</code> ist,
+	 * 			nicht existiert oder nicht gelesen werden kann
+	 */
+	public static MedysDateiAttribute lese(Path pfad)
+	{
+		MedysDateiAttribute attribute = NICHT_VORHANDEN;
+
+		if (pfad != null)
+		{
+			try
+			{
+				BasicFileAttributes basis = Files.readAttributes(pfad, BasicFileAttributes.class);
+
+				attribute = aus(basis);
+			}
+			catch (IOException | SecurityException nichtLesbar)
+			{
+				attribute = NICHT_VORHANDEN;
+			}
+		}
+		return attribute;
+	}
+
+	/**
+	 * Liest die Attribute einer Verzeichnispfadangabe mit einem einzigen Dateisystemzugriff.
+	 *
+	 * @param pfad die Verzeichnispfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute, {@link #NICHT_VORHANDEN} wenn die Pfadangabe <code>NULL</code>, leer oder
+	 * 			ung&uuml;ltig ist oder nicht existiert
+	 */
+	public static MedysDateiAttribute lese(String pfad)
+	{
+		Path p = gibPfad(pfad);
+
+		return p != null ? lese(p) : NICHT_VORHANDEN;
+	}
+
+	/*
+	 * übernimmt bereits gelesene Attribute, z.B. aus einem Verzeichnisdurchlauf
+	 */
+	static MedysDateiAttribute aus(BasicFileAttributes basis)
+	{
+		return new MedysDateiAttribute(true, basis.isDirectory(), basis.size(), basis.lastModifiedTime().toMillis());
+	}
+
+	/*
+	 * wandelt eine Verzeichnispfadangabe in einen Path, NULL wenn leer oder ungültig
+	 */
+	static Path gibPfad(String pfad)
+	{
+		Path p = null;
+
+		if ((pfad != null) && !pfad.isEmpty())
+		{
+			try
+			{
+				p = Paths.get(pfad);
+			}
+			catch (InvalidPathException ungueltig)
+			{
+				p = null;
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * @return <code>true</code> wenn die Datei oder das Verzeichnis existiert, sonst <code>false</code>
+	 */
+	public boolean existiert()
+	{
+		return existiert;
+	}
+
+	/**
+	 * @return <code>true</code> wenn es sich um ein existierendes Verzeichnis handelt, sonst <code>false</code>
+	 */
+	public boolean istVerzeichnis()
+	{
+		return verzeichnis;
+	}
+
+	/**
+	 * @return <code>true</code> wenn die Datei existiert und kein Verzeichnis ist, sonst <code>false</code>
+	 */
+	public boolean istDateiKeinVerzeichnis()
+	{
+		return existiert && !verzeichnis;
+	}
+
+	/**
+	 * @return die Gr&ouml;&szlig;e in Bytes, 0 wenn nicht vorhanden
+	 */
+	public long gibGroesse()
+	{
+		return groesse;
+	}
+
+	/**
+	 * @return der Zeitpunkt der letzten &Auml;nderung in Millisekunden seit 1970, 0 wenn nicht vorhanden
+	 */
+	public long gibGeaendert()
+	{
+		return geaendert;
+	}
+
+	@Override
+	public String toString()
+	{
+		return existiert ? (verzeichnis ? "Verzeichnis" : "Datei") + ", " + groesse + " Bytes, geändert " + geaendert
+				: "nicht vorhanden";
+	}
+}
@@ -1,32 +1,46 @@
 package de.medys;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.logging.FileHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
-
-import javax.imageio.ImageIO;
-
-import org.apache.commons.io.output.FileWriterWithEncoding;
-
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * MedyysFileIO-Klasse dient f&uuml;r Input/Output-Operationen auf Dateien.
@@ -65,8 +79,16 @@ public class MedysFileIO {
 	
 	// Hilfsklassen
 	//
+	/**
+	 * Standard-Blockgr&ouml;&szlig;e f&uuml;r das blockweise Lesen von Dateien (64 KB)
+	 */
+	public static final int STANDARD_BLOCKGROESSE = 64 * 1024;
+	
 	private static MedysLogger medysLogger = new MedysLogger();;
-	private static StringBuilder sb = new StringBuilder();
+	private static volatile MedysAttributCache attributCache;
+	private static volatile MedysVerzeichnisIndex verzeichnisIndex;
+	private static volatile MedysBildCache bildCache;
+	private static final ThreadLocal<Map<Charset, CharsetDecoder>> DECODER = ThreadLocal.withInitial(HashMap::new);
 	
 	
 	protected FileHandler fileHandler;
@@ -138,6 +160,106 @@ public class MedysFileIO {
 		arbeitsverzeichnis = gibValidenOrdnerPfad(gibBenutzerDesktopPfad());
 	}
 	
+	/**
+	 * Legt einen {@link MedysAttributCache} fest, &uuml;ber den alle Existenz- und Typpr&uuml;fungen 
+	 * dieser Klasse (z.B. {@link #existiert(String)}, {@link #istVerzeichnisUndExistiert(String)}) 
+	 * beantwortet werden.
+	 * <br><br>
+	 * &Auml;nderungen, die &uuml;ber diese Klasse erfolgen, verwerfen die betroffenen Eintr&auml;ge sofort. 
+	 * &Auml;nderungen von au&szlig;en werden erst nach Ablauf der Cache-Ablaufzeit oder durch 
+	 * {@link MedysAttributCache#beobachte(Path)} sichtbar.
+	 * 
+	 * @param cache der Zwischenspeicher, <code>NULL</code> um jede Pr&uuml;fung direkt am Dateisystem durchzuf&uuml;hren
+	 */
+	public static void setzeAttributCache(MedysAttributCache cache)
+	{
+		attributCache = cache;
+	}
+	
+	/**
+	 * Liefert den durch {@link #setzeAttributCache(MedysAttributCache)} festgelegten Zwischenspeicher
+	 * 
+	 * @return der Zwischenspeicher, sonst NULL
+	 */
+	public static MedysAttributCache gibAttributCache()
+	{
+		return attributCache;
+	}
+	
+	/**
+	 * Legt einen {@link MedysVerzeichnisIndex} fest, &uuml;ber den alle Existenz- und Typpr&uuml;fungen 
+	 * dieser Klasse f&uuml;r Pfadangaben unterhalb seiner Wurzel (z.B. des Arbeitsverzeichnisses) ohne 
+	 * Zugriff auf das Dateisystem beantwortet werden.
+	 * <br><br>
+	 * Der Index hat Vorrang vor einem {@link MedysAttributCache}. &Auml;nderungen, die &uuml;ber diese Klasse 
+	 * erfolgen, werden sofort in den Index &uuml;bernommen.
+	 * 
+	 * @param index der Verzeichnisindex, <code>NULL</code> um keinen Index zu nutzen
+	 */
+	public static void setzeVerzeichnisIndex(MedysVerzeichnisIndex index)
+	{
+		verzeichnisIndex = index;
+	}
+	
+	/**
+	 * Liefert den durch {@link #setzeVerzeichnisIndex(MedysVerzeichnisIndex)} festgelegten Verzeichnisindex
+	 * 
+	 * @return der Verzeichnisindex, sonst NULL
+	 */
+	public static MedysVerzeichnisIndex gibVerzeichnisIndex()
+	{
+		return verzeichnisIndex;
+	}
+	
+	/**
+	 * Legt einen {@link MedysBildCache} fest, &uuml;ber den {@link #ladeBild(String, String)} bereits 
+	 * dekodierte Bilder liefert, solange sich &Auml;nderungszeitpunkt und Gr&ouml;&szlig;e der Bilddatei 
+	 * nicht ge&auml;ndert haben.
+	 * 
+	 * @param cache der Zwischenspeicher, <code>NULL</code> um jedes Bild neu zu dekodieren
+	 */
+	public static void setzeBildCache(MedysBildCache cache)
+	{
+		bildCache = cache;
+	}
+	
+	/**
+	 * Liefert den durch {@link #setzeBildCache(MedysBildCache)} festgelegten Zwischenspeicher
+	 * 
+	 * @return der Zwischenspeicher, sonst NULL
+	 */
+	public static MedysBildCache gibBildCache()
+	{
+		return bildCache;
+	}
+	
+	/**
+	 * Liefert Existenz, Typ, Gr&ouml;&szlig;e und &Auml;nderungszeitpunkt einer Datei durch einen einzigen 
+	 * Dateisystemzugriff oder aus dem {@link MedysVerzeichnisIndex} bzw. {@link MedysAttributCache}, 
+	 * falls einer festgelegt wurde.
+	 * 
+	 * @param pfadangabe die Verzeichnispfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute, {@link MedysDateiAttribute#NICHT_VORHANDEN} wenn die Pfadangabe NULL, leer 
+	 * 			oder ung&uuml;ltig ist oder nicht existiert
+	 */
+	public static MedysDateiAttribute gibAttribute(String pfadangabe)
+	{
+		return MedysPfadIO.gibAttribute(MedysDateiAttribute.gibPfad(pfadangabe));
+	}
+	
+	/**
+	 * Liefert Existenz, Typ, Gr&ouml;&szlig;e und &Auml;nderungszeitpunkt einer Datei durch einen einzigen 
+	 * Dateisystemzugriff oder aus dem {@link MedysVerzeichnisIndex} bzw. {@link MedysAttributCache}, 
+	 * falls einer festgelegt wurde.
+	 * 
+	 * @param datei die Datei oder das Verzeichnis
+	 * @return die Attribute, {@link MedysDateiAttribute#NICHT_VORHANDEN} wenn die Datei NULL ist oder nicht existiert
+	 */
+	public static MedysDateiAttribute gibAttribute(File datei)
+	{
+		return datei != null ? gibAttribute(datei.getPath()) : MedysDateiAttribute.NICHT_VORHANDEN;
+	}
+	
 	/**
 	 * Fassadenmethode - ruft intern {@link MedysLogger#initLogger(Object)} auf 
 	 */
@@ -156,14 +278,27 @@ public class MedysFileIO {
 	 * @param dateiOrdner Verzeichnispfadangabe zum Ordner in der sich die Datei befindet
 	 * @param dateiName der Name der Datei, die umbennant werden soll
 	 * @param neuerName der neue Name der Datei
+	 * @see MedysPfadIO#benenneUm(Path, String)
 	 */
 	public static void benenneUm(String dateiOrdner, String dateiName, String neuerName)
 	{
 		if(existiert(dateiOrdner, dateiName))
 		{
-			File datei = gibDatei(dateiOrdner, dateiName);
-			
-			datei.renameTo(new File(dateiOrdner, neuerName));
+			try
+			{
+				MedysPfadIO.benenneUm(Paths.get(dateiOrdner, dateiName), neuerName);
+			}
+			catch (IOException ioexec)
+			{
+				String meldung = " aus MedysFileIO.benenneUm\nDie Datei " + dateiName + " konnte nicht in " 
+						+ neuerName + " umbenannt werden.\n" + ioexec.getMessage();
+				
+				if(istLoggingGestartet())
+				{
+					medysLogger.logConfigMessage(Level.INFO, meldung);
+				}
+				MedysLogger.printMessgeOnConsole("INFO\n" + meldung);
+			}
 		}
 	}
 	
@@ -182,18 +317,9 @@ public class MedysFileIO {
 	 */
 	public static boolean entferneDatei(String absPathToFile) throws Exception
 	{
-		boolean entferntStat = false;
-		
-		if(existiert(absPathToFile))
-		{
-			File file = gibDatei(absPathToFile);
-			
-			file.delete();
-			
-			entferntStat = true;
-		}
+		Path pfad = MedysDateiAttribute.gibPfad(absPathToFile);
 		
-		return entferntStat;
+		return pfad != null ? MedysPfadIO.entferneDatei(pfad) : false;
 	}
 	
 	/**
@@ -213,12 +339,18 @@ public class MedysFileIO {
 	{
 		boolean entferntStat = false;
 		
-		File file = new File(dateiOrdner, dateiName);
+		Path ordner = MedysDateiAttribute.gibPfad(dateiOrdner);
 		
-		if(existiert(file))
+		if((ordner != null) && (dateiName != null))
 		{
-			file.delete();
-			entferntStat = true;
+			try
+			{
+				entferntStat = MedysPfadIO.entferneDatei(ordner.resolve(dateiName));
+			}
+			catch (IOException | InvalidPathException nichtEntfernt)
+			{
+				entferntStat = false;
+			}
 		}
 		
 		return entferntStat;
@@ -237,18 +369,17 @@ public class MedysFileIO {
 	 */
 	public static boolean erstelleVerzeichnis(String absVerzeichnispfad) throws IOException
 	{
-		boolean status = false;
+		Path pfad = MedysDateiAttribute.gibPfad(absVerzeichnispfad);
 		
-		// folgende prüft auch ob das Verzeichnis existiert und ein Verzeichnis darstellt
-		//
-		if(!istVerzeichnisUnterAngabe(absVerzeichnispfad))
+		if(pfad == null)
 		{
-			File verz = new File(absVerzeichnispfad);
-			verz.mkdirs();
-			status = true;
+			throw new IOException("IOException aus MedysFileIO.erstelleVerzeichnis\nDie Pfadangabe " 
+					+ absVerzeichnispfad + " ist ungültig!");
 		}
 		
-		return status;
+		// folgende prüft auch ob das Verzeichnis existiert und ein Verzeichnis darstellt
+		//
+		return MedysPfadIO.erstelleVerzeichnis(pfad);
 	}
 	
 	/**
@@ -265,7 +396,7 @@ public class MedysFileIO {
 		
 		if(file != null)
 		{
-			status = file.exists();
+			status = gibAttribute(file).existiert();
 		}
 		return status;
 	}
@@ -279,24 +410,15 @@ public class MedysFileIO {
 	 */
 	public static boolean existiert(String absolutePfadangabeZurDatei)
 	{
-		boolean status = false;
-		
-		if(absolutePfadangabeZurDatei != null)
-		{
-			File file = new File(absolutePfadangabeZurDatei);
-			
-			if(existiert(file))
-			{
-				status = true;
-			}
-		}
-		
-		return status;
+		return gibAttribute(absolutePfadangabeZurDatei).existiert();
 	}
 	
 	/**
 	 * pr&uuml;ft, ob eine Datei unter den gegebenen Parameterangaben 
 	 * exisitiert oder nicht
+	 * <br><br>
+	 * Die Pr&uuml;fung erfolgt durch einen einzigen Dateisystemzugriff auf die Datei selbst, da eine 
+	 * existierende Datei ein existierendes &uuml;bergeordnetes Verzeichnis voraussetzt.
 	 * 
 	 * @param pathToFile die Verzeichnispfadangabe zu der Datei oder Ordner
 	 * @param fileName der Name einer Datei oder eines Verzeichnisses
@@ -306,17 +428,9 @@ public class MedysFileIO {
 	{
 		boolean status = false;
 		
-		if(existiert(pathToFile) && (fileName != null))
+		if((pathToFile != null) && !pathToFile.isEmpty() && (fileName != null))
 		{
-			if(istVerzeichnisUndExistiert(pathToFile))
-			{
-				File file = new File(pathToFile, fileName);
-				
-				if(existiert(file.getAbsolutePath()))
-				{
-					status = true;
-				}
-			}
+			status = gibAttribute(new File(pathToFile, fileName)).existiert();
 		}
 		return status;
 	}
@@ -333,12 +447,9 @@ public class MedysFileIO {
 	{
 		boolean status = false;
 		
-		if(existiert(file))
+		if(file != null)
 		{
-			if (!file.isDirectory())
-			{
-				status = true;
-			}
+			status = gibAttribute(file).istDateiKeinVerzeichnis();
 		}
 		return status;
 	}
@@ -392,18 +503,7 @@ public class MedysFileIO {
 	 */
 	public static boolean istVerzeichnisUnterAngabe(String verzeichnispfad)
 	{
-		boolean status  = false;
-		
-		if(existiert(verzeichnispfad))
-		{
-			File file = new File(verzeichnispfad);
-			
-			if(!istDateiKeinVerzeichnis(file))
-			{
-				status = true;
-			}
-		}
-		return status;
+		return gibAttribute(verzeichnispfad).istVerzeichnis();
 	}
 	
 	/**
@@ -416,9 +516,7 @@ public class MedysFileIO {
 	 */
 	public static boolean istVerzeichnisUndExistiert(String verzeichnisPfad)
 	{
-		return existiert(verzeichnisPfad)
-				? istVerzeichnisUndExistiert(new File(verzeichnisPfad))
-				: false;
+		return gibAttribute(verzeichnisPfad).istVerzeichnis();
 	}
 	
 	/**
@@ -430,7 +528,7 @@ public class MedysFileIO {
 	 */
 	public static boolean istVerzeichnisUndExistiert(File file) 
 	{
-		return file != null ? file.isDirectory() : false;
+		return file != null ? gibAttribute(file).istVerzeichnis() : false;
 	}
 	
 	/**
@@ -481,6 +579,9 @@ public class MedysFileIO {
     
     /**
 	 * L&auml;dt eine Bilddatei
+	 * <br><br>
+	 * Ist ein {@link MedysBildCache} festgelegt, so wird das Bild aus diesem geliefert und darf nicht 
+	 * ver&auml;ndert werden, siehe {@link #setzeBildCache(MedysBildCache)}.
 	 * 
 	 * @param pathToPicture absoulte Verzeichnispfadangabe zum Ordner einer Bilddatei
 	 * @param pictureName der Name der Bilddatei
@@ -490,7 +591,51 @@ public class MedysFileIO {
 	 */
 	public static BufferedImage ladeBild(String pathToPicture, String pictureName) throws IOException,FileNotFoundException
 	{
-		return ImageIO.read(new File(pathToPicture, pictureName));
+		return MedysPfadIO.ladeBild(new File(pathToPicture, pictureName).toPath());
+	}
+	
+	/**
+	 * L&auml;dt eine Bilddatei verkleinert f&uuml;r eine Vorschau.
+	 * <br><br>
+	 * Es wird nur jede n-te Zeile und Spalte dekodiert, so da&szlig; das Bild noch <u>mindestens</u> die 
+	 * Zielgr&ouml;&szlig;e hat, siehe {@link MedysBildLeser#lese(Path, int, int)}. Das Bild wird nicht 
+	 * &uuml;ber einen {@link MedysBildCache} geliefert.
+	 * 
+	 * @param pathToPicture absolute Verzeichnispfadangabe zum Ordner einer Bilddatei
+	 * @param pictureName der Name der Bilddatei
+	 * @param zielBreite die ben&ouml;tigte Breite in Pixeln, 0 wenn die Breite keine Rolle spielt
+	 * @param zielHoehe die ben&ouml;tigte H&ouml;he in Pixeln, 0 wenn die H&ouml;he keine Rolle spielt
+	 * @return das verkleinerte Bild, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht existiert oder nicht geladen werden kann
+	 */
+	public static BufferedImage ladeBild(String pathToPicture, String pictureName, int zielBreite, int zielHoehe) 
+			throws IOException
+	{
+		try (MedysBildLeser leser = new MedysBildLeser())
+		{
+			return leser.lese(new File(pathToPicture, pictureName).toPath(), zielBreite, zielHoehe);
+		}
+	}
+	
+	/**
+	 * L&auml;dt einen Ausschnitt einer Bilddatei in voller Aufl&ouml;sung.
+	 * <br><br>
+	 * Es werden nur die Pixel des Ausschnitts dekodiert, siehe {@link MedysBildLeser#leseAusschnitt(Path, Rectangle)}. 
+	 * Das Bild wird nicht &uuml;ber einen {@link MedysBildCache} geliefert.
+	 * 
+	 * @param pathToPicture absolute Verzeichnispfadangabe zum Ordner einer Bilddatei
+	 * @param pictureName der Name der Bilddatei
+	 * @param bereich der Ausschnitt in Pixeln des Originalbildes
+	 * @return der Ausschnitt, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht existiert, nicht geladen werden kann oder der 
+	 * 			Ausschnitt au&szlig;erhalb des Bildes liegt
+	 */
+	public static BufferedImage ladeBild(String pathToPicture, String pictureName, Rectangle bereich) throws IOException
+	{
+		try (MedysBildLeser leser = new MedysBildLeser())
+		{
+			return leser.leseAusschnitt(new File(pathToPicture, pictureName).toPath(), bereich);
+		}
 	}
 	
 	/**
@@ -504,28 +649,7 @@ public class MedysFileIO {
 	 */
 	public static File legeDateiAn(String absolutePfadangabe) throws IOException
 	{		
-		File file = new File(absolutePfadangabe);
-		
-		if (file.exists())
-		{
-			if (istDateiKeinVerzeichnis(file))
-			{
-				file.delete();
-			}
-			else
-			{
-				sb = loeschStringBuilderInhalt(sb);
-				
-				sb.append("IOException aus MedysFileIO.legeDateiAn(String)\nDie Pfadangabe ").append(absolutePfadangabe)
-				.append(" referenziert auf ein Verzeichnis und nicht auf eine Datei!").append("\n");
-				
-				throw new IOException(sb.toString());
-			}
-		}
-		FileWriter fw = new FileWriter(file);
-		fw.close();
-		
-		return file;
+		return MedysPfadIO.legeDateiAn(Paths.get(absolutePfadangabe)).toFile();
 	}
 	
 	/**
@@ -545,27 +669,26 @@ public class MedysFileIO {
 		{
 			if(istDateiKeinVerzeichnis(file))
 			{
-				if(!file.delete())
+				try
+				{
+					// die vorherige Datei in einem Zug leeren, statt sie zu löschen und neu anzulegen
+					MedysPfadIO.legeDateiAn(file.toPath());
+				}
+				catch (IOException leerenFehler)
 				{
-					sb = loeschStringBuilderInhalt(sb);
+					StringBuilder sb = new StringBuilder();
 					
 					sb.append("IOException aus MedysFileIO.legeDateiAn(String, boolean)\nKonnte die vorherige Datei unter ")
-					.append(absolutePfadangabe).append(" nicht löschen!").append("\n");
+					.append(absolutePfadangabe).append(" nicht leeren!").append("\n").append(leerenFehler.toString());
 					
 					throw new IOException(sb.toString());
 				}
-				else
-				{
-					// eine einzelne Datei erzeugen 
-					FileWriter fw = new FileWriter(file);
-					fw.close();
-				}
 			}
 			if(alsVerzeichnis)
 			{
 				if(!MedysFileIO.loescheVerzeichnis(file))
 				{
-					sb = loeschStringBuilderInhalt(sb);
+					StringBuilder sb = new StringBuilder();
 					
 					sb.append("IOException aus MedysFileIO.legeDateiAn(String, boolean)\nKonnte das Verzeichnis unter ")
 					.append(absolutePfadangabe).append(" nicht löschen!").append("\n");
@@ -589,6 +712,8 @@ public class MedysFileIO {
 			}
 			
 		}
+		vergiss(file);
+		
 		return file;
 	}
 	
@@ -611,22 +736,13 @@ public class MedysFileIO {
 			
 			file = new File(dateiMitPfad);
 			
-			FileWriter fw = null;
-			
-			if(istDateiKeinVerzeichnis(file))
-			{
-				file.delete();
-			}
-			
 			try
 			{
-				fw = new FileWriter(file);
-				
-				fw.close();
+				MedysPfadIO.legeDateiAn(file.toPath());
 			}
 			catch(IOException creationFailed)
 			{
-				sb = loeschStringBuilderInhalt(sb);
+				StringBuilder sb = new StringBuilder();
 				
 				sb.append("Exception aus MedysFileIO.legeDateiAn\nDie Datei ").append(dateiName).append(" konnte im Verzeichnis ")
 				.append(dateiPfad).append(" nicht angelegt werden!\n").append(creationFailed.toString()).append("\n");
@@ -667,13 +783,13 @@ public class MedysFileIO {
 	 */
 	public static File gibDatei(String pathToFile, String fileName) 
 	{
-		String folder = gibValidenOrdnerPfad(pathToFile);
+		Path ordner = MedysDateiAttribute.gibPfad(pathToFile);
 		
 		File file = null;
 		
-		if(existiert(folder))
+		if(MedysPfadIO.existiert(ordner))
 		{
-			file = new File(folder + fileName);
+			file = ordner.resolve(String.valueOf(fileName)).toFile();
 		}
 		return file;
 	}
@@ -690,13 +806,15 @@ public class MedysFileIO {
 	{
 		byte[] documentInBytes = new byte[0];
 		
+		Path ordner = MedysDateiAttribute.gibPfad(pathToFile);
+		
 		try
 		{
-			File file = gibDatei(pathToFile, fileName);
+			Path pfad = ordner != null ? ordner.resolve(String.valueOf(fileName)) : null;
 	
-			if(istDateiKeinVerzeichnis(file))
+			if(MedysPfadIO.istDateiKeinVerzeichnis(pfad))
 			{
-				documentInBytes = gibDateiInhalt(file);
+				documentInBytes = MedysPfadIO.gibDateiInhalt(pfad);
 			}
 		}
 		catch(IOException ioExcep)
@@ -708,42 +826,90 @@ public class MedysFileIO {
 	
 	/**
      * Liest den Inhalt einer Datei aus 
-     * und liefert diesen in einem ByteArray zur&uuml;ck.
-
+     * und liefert diesen als Zeichenkette im Standard-Zeichensatz des Betriebssystems zur&uuml;ck.
+     * <br><br>
+     * Intern wird die Datei blockweise durch {@link #leseDateiInBloecken(File, int, MedysBlockVerarbeiter)} gelesen.
      * 
      * @param datei die Datei, die ausgelesen werden soll
-     * @return der Inhalt der Datei in Bytes
+     * @return der Inhalt der Datei als Zeichenkette
      * @throws Exception Fehler beim Lesen oder Schreiben auf der Datei
      */
     public static String gibDateiInhaltToString(File datei) throws Exception
     {
-    		String content = null;
-    	
-		try
-		{
-			FileInputStream fis = new FileInputStream(datei);
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			
-			moveStreamData(fis, baos);
-			
-			content = baos.toString();
-		}
-		catch (Exception e)
-		{
-			sb = loeschStringBuilderInhalt(sb);
-			
-			sb.append("Exception aus MedysFileIO.gibDateiInhalt()\n").append("Kein Dokumentinhalt vorhanden!\n")
-			.append(e.toString()).append("\n");
-			
-			throw new Exception(sb.toString());
-		}
-		return content;
+		return gibDateiInhaltToString(datei, Charset.defaultCharset());
+	}
+    
+    /**
+     * Liest den Inhalt einer Datei aus und liefert diesen als Zeichenkette im angegebenen Zeichensatz zur&uuml;ck.
+     * <br><br>
+     * Die Bytes werden ohne Umweg &uuml;ber ein ByteArray direkt aus einem Puffer au&szlig;erhalb des Heaps 
+     * (bei gro&szlig;en Dateien aus einem Speicherabbild) dekodiert. Der {@link CharsetDecoder} wird je Thread 
+     * und Zeichensatz wiederverwendet. Ung&uuml;ltige Bytefolgen werden wie bei {@link String#String(byte[], Charset)} 
+     * ersetzt.
+     * 
+     * @param datei die Datei, die ausgelesen werden soll
+     * @param zeichensatz der Zeichensatz der Datei, z.B. {@link java.nio.charset.StandardCharsets#ISO_8859_1}
+     * @return der Inhalt der Datei als Zeichenkette
+     * @throws IOException wenn die Datei nicht gelesen werden konnte oder zu gro&szlig; f&uuml;r eine Zeichenkette ist
+     * @see #gibZeilen(File, Charset)
+     */
+    public static String gibDateiInhaltToString(File datei, Charset zeichensatz) throws IOException
+    {
+		return MedysPfadIO.gibDateiInhaltToString(datei.toPath(), zeichensatz);
 	}
     
+    /**
+     * Liefert die Zeilen einer Textdatei als sequentiellen, lazy gelesenen {@link Stream}.
+     * <br><br>
+     * Die Datei wird blockweise gelesen und dekodiert, so da&szlig; auch Dateien verarbeitet werden k&ouml;nnen, 
+     * die nicht als eine Zeichenkette in den Speicher passen. Zeilenenden werden wie bei 
+     * {@link java.io.BufferedReader#readLine()} erkannt und sind nicht Teil der Zeilen.
+     * <br><br>
+     * <u>Wichtig</u>
+     * <blockquote>
+     * 	<ul>
+     * 		<li>der Stream h&auml;lt die Datei ge&ouml;ffnet und mu&szlig; geschlossen werden 
+     * 			(<code>try-with-resources</code>)</li>
+     * 		<li>Lesefehler werden als {@link UncheckedIOException} gemeldet</li>
+     * 	</ul>
+     * </blockquote>
+     * 
+     * @param datei die Datei, die gelesen werden soll
+     * @param zeichensatz der Zeichensatz der Datei
+     * @return die Zeilen der Datei in Dateireihenfolge
+     * @throws IOException wenn die Datei nicht ge&ouml;ffnet werden konnte
+     */
+    public static Stream<String> gibZeilen(File datei, Charset zeichensatz) throws IOException
+    {
+    	FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ);
+    	
+    	// eigener Decoder, da der Stream über die Lebensdauer eines einzelnen Aufrufs hinaus liest
+    	//
+    	CharsetDecoder decoder = zeichensatz.newDecoder()
+    			.onMalformedInput(CodingErrorAction.REPLACE)
+    			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+    	
+    	BufferedReader leser = new BufferedReader(Channels.newReader(kanal, decoder, STANDARD_BLOCKGROESSE), 
+    			STANDARD_BLOCKGROESSE);
+    	
+    	return leser.lines().onClose(() -> {
+    		try
+    		{
+    			leser.close();
+    		}
+    		catch (IOException schliessFehler)
+    		{
+    			throw new UncheckedIOException(schliessFehler);
+    		}
+    	});
+    }
+    
 	/**
      * Liest den Inhalt einer Datei aus 
      * und liefert diesen in einem ByteArray zur&uuml;ck.
-
+     * <br><br>
+     * Intern wird die Datei blockweise durch {@link #leseDateiInBloecken(File, int, MedysBlockVerarbeiter)} 
+     * direkt in das Ergebnis-Array gelesen.
      * 
      * @param datei die Datei, die ausgelesen werden soll
      * @return der Inhalt der Datei in Bytes
@@ -755,16 +921,11 @@ public class MedysFileIO {
 		
 		try
 		{
-			FileInputStream fis = new FileInputStream(datei);
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			
-			moveStreamData(fis, baos);
-			
-			content = baos.toByteArray();
+			content = MedysPfadIO.gibDateiInhalt(datei.toPath());
 		}
 		catch (Exception e)
 		{
-			sb = loeschStringBuilderInhalt(sb);
+			StringBuilder sb = new StringBuilder();
 			
 			sb.append("Exception aus MedysFileIO.gibDateiInhalt()\n").append("Kein Dokumentinhalt vorhanden!\n")
 			.append(e.toString()).append("\n");
@@ -777,6 +938,8 @@ public class MedysFileIO {
 	/**
      * Liest den Inhalt einer Datei aus dem Dateistrom (fis) aus 
      * und liefert diesen in einem ByteArray zur&uuml;ck.
+     * <br><br>
+     * Der Dateistrom wird nach dem Lesen geschlossen.
      * 
      * @param fis FileInputStream, das zu einer Datei verbunden ist
      * @return der Inhalt der Datei in Bytes
@@ -788,30 +951,15 @@ public class MedysFileIO {
 		
 		try
 		{
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			
-			int copyBufferLen = 2000;
-			
-			byte[] copyBuffer = new byte[copyBufferLen];
+			FileChannel kanal = fis.getChannel();
 			
-			while (true)
-			{
-				int bytesRead = fis.read(copyBuffer);
-				
-				if (0 > bytesRead)
-				{
-					break;
-				}
-				baos.write(copyBuffer, 0, bytesRead);
-			}
-			content = baos.toByteArray();
+			content = sammleBloecke(kanal, kanal.size() - kanal.position());
 			
 			fis.close();
-			baos.close();
 		}
 		catch (Exception e)
 		{
-			sb = loeschStringBuilderInhalt(sb);
+			StringBuilder sb = new StringBuilder();
 			
 			sb.append("Exception aus MedysFileIO.gibDateiInhalt(FileInutStream):").append("\n")
 			.append("Kein Dokumentinhalt vorhanden!\n").append(e.toString()).append("\n");
@@ -820,51 +968,262 @@ public class MedysFileIO {
 		}
 		return content;
 	}
-
-    /**
-     * Liefert die intern genutzte Instanz einer MedysLogger-Klasse
-     * 
-     * @return eine Instanz von {@link MedysLogger} 
-     */
-    public static MedysLogger gibMedysLogger()
-    {
-    		return medysLogger;
-    }
-    
-    /**
-	 * Liefert einen g&uuml;ltigen Verzeichnispfad einer Datei aus dem Dateisystem mit der Endung &quot;/&quot;
+	
+	/**
+	 * Liest eine Datei blockweise und &uuml;bergibt jeden gelesenen Block an einen {@link MedysBlockVerarbeiter}.
+	 * <br><br>
+	 * F&uuml;r alle Bl&ouml;cke wird derselbe, aus dem {@link MedysPufferPool} geliehene Puffer wiederverwendet, 
+	 * so da&szlig; beliebig gro&szlig;e Dateien mit konstantem Speicherbedarf verarbeitet werden k&ouml;nnen. Jeder Block ist bis auf den letzten 
+	 * vollst&auml;ndig gef&uuml;llt.
 	 * 
-	 * @param folderPath der urspr&uuml;gliche Verzeichnispfad zu einer Datei
-	 * @return die system-valide Verzeichnispfad angabe, falls das Verzeichnis 
-	 * 		   existiert, sonst NULL
-	 * @see java.net.URI
+	 * @param datei die Datei, die gelesen werden soll
+	 * @param blockGroesse die Gr&ouml;&szlig;e eines Blocks in Bytes, z.B. {@link #STANDARD_BLOCKGROESSE}
+	 * @param verarbeiter der Verarbeiter, der jeden Block erh&auml;lt
+	 * @return die Anzahl der insgesamt gelesenen Bytes
+	 * @throws IOException wenn die Datei nicht gelesen werden konnte oder der Verarbeiter abbricht
 	 */
-	public static String gibValidenOrdnerPfad(String folderPath)
+	public static long leseDateiInBloecken(File datei, int blockGroesse, MedysBlockVerarbeiter verarbeiter) throws IOException
 	{
-		String rtValue = "";
-		
-		if(folderPath != null) 
+		try (FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ))
 		{
-			File folder = new File(folderPath);
-		
-			if (folder.isDirectory()) 
-			{
-				if(folderPath.endsWith("/"))
-				{
-					rtValue = folderPath;
-				}
-				else
-				{
-					rtValue = folderPath + "/";
-				}
-			}
+			return leseKanalInBloecken(kanal, blockGroesse, verarbeiter);
 		}
-		return rtValue;
 	}
 	
 	/**
-	 * Liefert dem URI-Schema &quot;prefixUriSchema&quot; vorangestellten
-	 * Verzeichnispfad einer Datei aus dem Dateisystem mit der Endung &quot;/&quot;
+	 * Liest einen Kanal blockweise bis zu seinem Ende und &uuml;bergibt jeden gelesenen Block an 
+	 * einen {@link MedysBlockVerarbeiter}.
+	 * <br><br>
+	 * Der Kanal wird hier <u>nicht</u> geschlossen.
+	 * 
+	 * @param kanal der Kanal, aus dem gelesen werden soll
+	 * @param blockGroesse die Gr&ouml;&szlig;e eines Blocks in Bytes
+	 * @param verarbeiter der Verarbeiter, der jeden Block erh&auml;lt
+	 * @return die Anzahl der insgesamt gelesenen Bytes
+	 * @throws IOException wenn der Kanal nicht gelesen werden konnte oder der Verarbeiter abbricht
+	 * @see #leseDateiInBloecken(File, int, MedysBlockVerarbeiter)
+	 */
+	public static long leseKanalInBloecken(ReadableByteChannel kanal, int blockGroesse, MedysBlockVerarbeiter verarbeiter) 
+			throws IOException
+	{
+		if (blockGroesse < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Blockgröße " + blockGroesse);
+		}
+		
+		ByteBuffer puffer = MedysPufferPool.leiheDirekt(blockGroesse);
+		
+		long gesamt = 0L;
+		
+		try
+		{
+			puffer.limit(blockGroesse);
+			
+			while (fuellePuffer(kanal, puffer) > 0)
+			{
+				puffer.flip();
+				gesamt += puffer.remaining();
+				
+				verarbeiter.verarbeite(puffer);
+				
+				puffer.clear().limit(blockGroesse);
+			}
+		}
+		finally
+		{
+			MedysPufferPool.gibZurueck(puffer);
+		}
+		return gesamt;
+	}
+	
+	/**
+	 * Liefert die Bl&ouml;cke einer Datei als sequentiellen, lazy gelesenen {@link Stream}.
+	 * <br><br>
+	 * <u>Wichtig</u>
+	 * <blockquote>
+	 * 	<ul>
+	 * 		<li>alle Elemente des Streams sind derselbe, wiederverwendete Puffer und nur bis zum 
+	 * 			n&auml;chsten Element g&uuml;ltig</li>
+	 * 		<li>der Stream h&auml;lt die Datei ge&ouml;ffnet und mu&szlig; geschlossen werden 
+	 * 			(<code>try-with-resources</code>)</li>
+	 * 		<li>Lesefehler werden als {@link UncheckedIOException} gemeldet</li>
+	 * 	</ul>
+	 * </blockquote>
+	 * 
+	 * @param datei die Datei, die gelesen werden soll
+	 * @param blockGroesse die Gr&ouml;&szlig;e eines Blocks in Bytes
+	 * @return die Bl&ouml;cke der Datei in Dateireihenfolge
+	 * @throws IOException wenn die Datei nicht ge&ouml;ffnet werden konnte
+	 */
+	public static Stream<ByteBuffer> gibDateiBloecke(File datei, int blockGroesse) throws IOException
+	{
+		if (blockGroesse < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Blockgröße " + blockGroesse);
+		}
+		
+		FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ);
+		
+		ByteBuffer puffer = MedysPufferPool.leiheDirekt(blockGroesse);
+		
+		Iterator<ByteBuffer> bloecke = new Iterator<ByteBuffer>()
+		{
+			private boolean geladen;
+			private boolean ende;
+			
+			@Override
+			public boolean hasNext()
+			{
+				if (!geladen && !ende)
+				{
+					try
+					{
+						puffer.clear().limit(blockGroesse);
+						
+						if (fuellePuffer(kanal, puffer) > 0)
+						{
+							puffer.flip();
+							geladen = true;
+						}
+						else
+						{
+							ende = true;
+						}
+					}
+					catch (IOException leseFehler)
+					{
+						throw new UncheckedIOException(leseFehler);
+					}
+				}
+				return geladen;
+			}
+			
+			@Override
+			public ByteBuffer next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				geladen = false;
+				
+				return puffer;
+			}
+		};
+		
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(bloecke, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try
+					{
+						kanal.close();
+					}
+					catch (IOException schliessFehler)
+					{
+						throw new UncheckedIOException(schliessFehler);
+					}
+					finally
+					{
+						MedysPufferPool.gibZurueck(puffer);
+					}
+				});
+	}
+	
+	/**
+	 * Bildet eine Datei schreibgesch&uuml;tzt in den Speicher ab (Memory-Mapping), anstatt 
+	 * ihren Inhalt wie {@link #gibDateiInhalt(File)} in ein ByteArray zu kopieren.
+	 * <br><br>
+	 * Dateien gr&ouml;&szlig;er als 2 GB werden in mehrere Segmente abgebildet, siehe {@link MedysMappedDatei#gibSegmente()}.
+	 * <br><br>
+	 * <u>Wichtig</u>
+	 * <blockquote>
+	 * 	Das Speicherabbild mu&szlig; durch {@link MedysMappedDatei#close()} wieder freigegeben werden!
+	 * </blockquote>
+	 * 
+	 * @param datei die Datei, die abgebildet werden soll
+	 * @return das Speicherabbild der Datei
+	 * @throws IOException wenn die Datei nicht existiert oder nicht abgebildet werden konnte
+	 */
+	public static MedysMappedDatei mappeDatei(File datei) throws IOException
+	{
+		return new MedysMappedDatei(datei);
+	}
+	
+	/**
+	 * Liest den Inhalt einer Datei in einen direkten {@link ByteBuffer} au&szlig;erhalb des Heaps.
+	 * <br><br>
+	 * Der gelieferte Puffer kann ohne weitere Kopie an NIO-Kan&auml;le (z.B. Sockets) &uuml;bergeben werden und 
+	 * sollte nach der Nutzung durch {@link MedysMappedDatei#gibFrei(ByteBuffer)} freigegeben werden.
+	 * 
+	 * @param datei die Datei, die ausgelesen werden soll
+	 * @return direkter Puffer mit dem Inhalt der Datei (Position 0, Limit = Dateigr&ouml;&szlig;e)
+	 * @throws IOException wenn die Datei nicht gelesen werden konnte oder gr&ouml;&szlig;er als 2 GB ist
+	 */
+	public static ByteBuffer gibDateiInhaltDirekt(File datei) throws IOException
+	{
+		try (FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ))
+		{
+			long groesse = kanal.size();
+			
+			if (groesse > Integer.MAX_VALUE)
+			{
+				throw new IOException("IOException aus MedysFileIO.gibDateiInhaltDirekt(File)\nDie Datei " + datei.getName()
+						+ " ist größer als 2 GB, bitte mappeDatei(File) benutzen!\n");
+			}
+			
+			ByteBuffer puffer = ByteBuffer.allocateDirect((int) groesse);
+			
+			while (puffer.hasRemaining() && (kanal.read(puffer) >= 0))
+			{
+				// weiterlesen bis der Puffer voll ist
+			}
+			puffer.flip();
+			
+			return puffer;
+		}
+	}
+	
+    /**
+     * Liefert die intern genutzte Instanz einer MedysLogger-Klasse
+     * 
+     * @return eine Instanz von {@link MedysLogger} 
+     */
+    public static MedysLogger gibMedysLogger()
+    {
+    		return medysLogger;
+    }
+    
+    /**
+	 * Liefert einen g&uuml;ltigen Verzeichnispfad einer Datei aus dem Dateisystem mit der Endung &quot;/&quot;
+	 * 
+	 * @param folderPath der urspr&uuml;gliche Verzeichnispfad zu einer Datei
+	 * @return die system-valide Verzeichnispfad angabe, falls das Verzeichnis 
+	 * 		   existiert, sonst NULL
+	 * @see java.net.URI
+	 */
+	public static String gibValidenOrdnerPfad(String folderPath)
+	{
+		String rtValue = "";
+		
+		if(folderPath != null) 
+		{
+			if (gibAttribute(folderPath).istVerzeichnis()) 
+			{
+				if(folderPath.endsWith("/"))
+				{
+					rtValue = folderPath;
+				}
+				else
+				{
+					rtValue = folderPath + "/";
+				}
+			}
+		}
+		return rtValue;
+	}
+	
+	/**
+	 * Liefert dem URI-Schema &quot;prefixUriSchema&quot; vorangestellten
+	 * Verzeichnispfad einer Datei aus dem Dateisystem mit der Endung &quot;/&quot;
 	 * 
 	 * @param folderPath der urspr&uuml;gliche Verzeichnispfad zu einer Datei
 	 * @param prefixUriSchema mit einer Pr&auml;fixangabe gemäß {@link java.net.URI} f&uuml;r <b>Dateipfadangaben</b>
@@ -878,9 +1237,7 @@ public class MedysFileIO {
 		
 		if(folderPath != null) 
 		{
-			File folder = new File(folderPath);
-		
-			if (folder.isDirectory()) 
+			if (gibAttribute(folderPath).istVerzeichnis()) 
 			{
 				if(folderPath.endsWith("/"))
 				{
@@ -914,6 +1271,9 @@ public class MedysFileIO {
 	
 	/**
 	 * L&ouml;scht eine Verzeichnis-Objekt (ein Verzeichnis/Ordner im Dateisystem) mit seinem gesamten Inhalt
+	 * <br><br>
+	 * Intern wird {@link MedysVerzeichnisLoescher} eingesetzt, der den Verzeichnisbaum einmal durchl&auml;uft 
+	 * und die Dateien parallel l&ouml;scht.
 	 *  
 	 * @param verzeichnis das Verzeichnis oder der Ordner, das gel&ouml;scht werden soll 
 	 * @return <code>true</code> wenn das angegebene Verzeichnis gel&ouml;scht werden konnte, <code>false</code> wenn nicht
@@ -921,29 +1281,7 @@ public class MedysFileIO {
 	 */
 	public static boolean loescheVerzeichnis(File verzeichnis) throws IOException
 	{
-		if(verzeichnis != null)
-		{
-			if(verzeichnis.exists())
-			{
-		        File[] dateien = verzeichnis.listFiles();
-		        
-		        if(dateien != null)
-		        {
-		            for(File datei : dateien)
-		            {
-		                if(datei.isDirectory())
-		                {
-		                		loescheVerzeichnis(datei);
-		                }
-		                else {
-		                    datei.delete();
-		                }
-		            }
-		        }
-		    }
-		}
-	    
-	    return verzeichnis.delete();
+		return verzeichnis != null ? MedysPfadIO.loescheVerzeichnis(verzeichnis.toPath()) : false;
 	}
 	
 	/**
@@ -968,22 +1306,27 @@ public class MedysFileIO {
 	 * @param dateiname der Name der Datei, ide entfernt werden soll
 	 * @return TRUE, wenn die Datei erfolgreich gelöscht wurde, sonst FALSE
 	 * @throws IOException wenn der Verzeichnispfad nicht existiert oder der Zugriff nicht gew&auml;hrt ist
-	 * @throws URISyntaxException wenn der Verzeichnispfad keine g&uuml;tige Verzeichnispfad-URI-Angabe ist
+	 * @throws URISyntaxException wird nicht mehr ausgel&ouml;st, die Pfadangabe wird ohne URI-Umweg aufgel&ouml;st
 	 */
 	public static boolean loescheDatei(String ordnerPfadangabe, String dateiname) 
 			throws IOException,URISyntaxException
 	{
-		Path path = 
-				Paths.get(
-						new URI(
-								gibValidenOrdnerPfad(ordnerPfadangabe, "file:///") 
-								+ dateiname));
+		Path path = Paths.get(ordnerPfadangabe).resolve(dateiname);
 		
-		return Files.deleteIfExists(path);
+		try
+		{
+			return Files.deleteIfExists(path);
+		}
+		finally
+		{
+			vergiss(path);
+		}
 	}
 	
 	/**
      * Moves stream data from input stream to output stream. Will copy the complete stream.
+     * <br><br>
+     * Der Kopierpuffer wird aus dem {@link MedysPufferPool} geliehen.
      * 
      * @param is input stream
      * @param os output stream
@@ -992,26 +1335,34 @@ public class MedysFileIO {
     public static void moveStreamData(InputStream is, OutputStream os) 
     		throws IOException
     {
-        int copyBufferLen = 2000;
-        byte[] copyBuffer = new byte[copyBufferLen];
+        byte[] copyBuffer = MedysPufferPool.leiheHeap(8 * 1024);
 
-        while (true)
+        try
         {
-            int bytesRead = is.read(copyBuffer);
-            if (0 > bytesRead)
+            while (true)
             {
-                break;
+                int bytesRead = is.read(copyBuffer);
+                if (0 > bytesRead)
+                {
+                    break;
+                }
+                os.write(copyBuffer, 0, bytesRead);
             }
-            os.write(copyBuffer, 0, bytesRead);
+        }
+        finally
+        {
+            MedysPufferPool.gibZurueck(copyBuffer);
         }
     }
 	
     /**
      * Kopiert eine Datei in ein Zielverzeichnis.
      * <br><br>
-     * Der Kopiervorgang wird abgebrochen wenn die Datei bereits existiert.
+     * Existiert die Datei im Zielverzeichnis bereits, so wird sie in einem einzigen Durchgang 
+     * &uuml;berschrieben (kein vorheriges L&ouml;schen und erneutes Kopieren).
      * <br><br>
-     * Daher sollte man vorher mit {@link #existiert(String, String)} die Datei pr&uuml;fen.
+     * Intern wird {@link #kopiereDateiinhalt(File, File)} eingesetzt, so da&szlig; der Inhalt der Datei 
+     * nicht in den Arbeitsspeicher geladen wird.
      * 
      * @param zielVerzeichnis das Verzeichnis in das eine Datei kopiert werden soll
      * @param datei die Datei (java.io.File-Objekt), die kopiert werden soll
@@ -1023,51 +1374,19 @@ public class MedysFileIO {
 		
 		if (existiert(zielVerzeichnis) && existiert(datei))
 		{
-			String dateiName = datei.getName();
-			
-			if (!existiert(zielVerzeichnis, dateiName))
+			try
 			{
-				try
-				{
-					File tmp = legeDateiAn(zielVerzeichnis, dateiName);
-					
-					byte[] inhalt = gibDateiInhalt(datei.getParent(), dateiName);
-					
-					if (inhalt.length > 0)
-					{
-						BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(tmp));
-						
-						int i = 0;
-						
-						while (i < inhalt.length)
-						{
-							bos.write(inhalt[i]);
-							i++;
-						}
-						bos.flush();
-						bos.close();
-					}
-				}
-				catch (Exception ioexec)
-				{
-					sb = loeschStringBuilderInhalt(sb);
-					
-					sb.append("IOException aus MedysFileIO#kopiereDatei(String,String)").append("\n\nKonnte die Datei")
-							.append(datei.getName()).append("nicht in das" + "Verzeichnis ").append(zielVerzeichnis)
-							.append(" kopieren.\n\n").append(ioexec.getMessage());
-					
-					throw new Exception(sb.toString());
-				}
-				
+				kopiereDateiinhalt(datei, new File(zielVerzeichnis, datei.getName()));
 			}
-			else
+			catch (Exception ioexec)
 			{
-				// lösche und versuche kopie erneut
-				//
-				if (entferneDatei(zielVerzeichnis, datei.getName()))
-				{
-					kopiereDatei(zielVerzeichnis, datei);
-				}
+				sb = loeschStringBuilderInhalt(sb);
+				
+				sb.append("IOException aus MedysFileIO#kopiereDatei(String,String)").append("\n\nKonnte die Datei")
+						.append(datei.getName()).append("nicht in das" + "Verzeichnis ").append(zielVerzeichnis)
+						.append(" kopieren.\n\n").append(ioexec.getMessage());
+				
+				throw new Exception(sb.toString());
 			}
 		}
 		else
@@ -1085,10 +1404,11 @@ public class MedysFileIO {
     /**
      * Kopiert eine Datei aus seinem Dateiordner in ein Zielverzeichnis.
      * <br><br>
-     * Der Kopiervorgang wird abgebrochen wenn die Datei im Zielverzeichnis 
-     * bereits existiert.
+     * Existiert die Datei im Zielverzeichnis bereits, so wird sie in einem einzigen Durchgang 
+     * &uuml;berschrieben (kein vorheriges L&ouml;schen und erneutes Kopieren).
      * <br><br>
-     * Daher sollte man vorher mit {@link #existiert(String, String)} die Datei pr&uuml;fen
+     * Intern wird {@link #kopiereDateiinhalt(File, File)} eingesetzt, so da&szlig; der Inhalt der Datei 
+     * nicht in den Arbeitsspeicher geladen wird.
      * 
      * @param zielVerzeichnis das Verzeichnis in das eine Datei kopiert werden soll
      * @param dateiOrdnerpfad die Pfadangabe des Ordners, in der die Datei sich befindet
@@ -1105,51 +1425,20 @@ public class MedysFileIO {
 			{
 				if (istVerzeichnisUndExistiert(zielVerzeichnis))
 				{
-					if (!existiert(zielVerzeichnis, dateiName))
+					try
 					{
-						try
-						{
-							File tmp = legeDateiAn(zielVerzeichnis, dateiName);
-							
-							byte[] inhalt = gibDateiInhalt(dateiOrdnerpfad, dateiName);
-							
-							if (inhalt.length > 0)
-							{
-								
-								BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(tmp));
-								
-								int i = 0;
-								
-								while (i < inhalt.length)
-								{
-									bos.write(inhalt[i]);
-									i++;
-								}
-								bos.flush();
-								bos.close();
-							}
-						}
-						catch (IOException ioexec)
-						{
-							sb = loeschStringBuilderInhalt(sb);
-							
-							sb.append("IOException aus MedysFileIO#kopiereDatei(String,String)")
-									.append("\n\nKonnte die Datei").append(dateiName)
-									.append("nicht in das Verzeichnis ").append(zielVerzeichnis)
-									.append(" kopieren.\n\n").append(ioexec.getMessage());
-							
-							throw new Exception(sb.toString());
-						}
-						
+						kopiereDateiinhalt(new File(dateiOrdnerpfad, dateiName), new File(zielVerzeichnis, dateiName));
 					}
-					else
+					catch (IOException ioexec)
 					{
-						// lösche und versuche kopie erneut
-						//
-						if (entferneDatei(zielVerzeichnis, dateiName))
-						{
-							kopiereDatei(zielVerzeichnis, dateiOrdnerpfad, dateiName);
-						}
+						sb = loeschStringBuilderInhalt(sb);
+						
+						sb.append("IOException aus MedysFileIO#kopiereDatei(String,String)")
+								.append("\n\nKonnte die Datei").append(dateiName)
+								.append("nicht in das Verzeichnis ").append(zielVerzeichnis)
+								.append(" kopieren.\n\n").append(ioexec.getMessage());
+						
+						throw new Exception(sb.toString());
 					}
 				}
 			}
@@ -1165,6 +1454,228 @@ public class MedysFileIO {
 			throw new Exception(sb.toString());
 		}
 	}
+	
+	/**
+     * Kopiert eine Datei in ein Zielverzeichnis und schreibt dabei nur die ge&auml;nderten Bl&ouml;cke.
+     * <br><br>
+     * Existiert die Datei im Zielverzeichnis bereits, so werden Quelle und Ziel blockweise verglichen und 
+     * nur abweichende Bl&ouml;cke an Ort und Stelle &uuml;berschrieben, siehe 
+     * {@link #kopiereDateiinhaltDelta(File, File, int)}. Sonst wird die Datei vollst&auml;ndig kopiert.
+     * 
+     * @param zielVerzeichnis das Verzeichnis in das eine Datei kopiert werden soll
+     * @param datei die Datei (java.io.File-Objekt), die kopiert werden soll
+     * @return die Anzahl der tats&auml;chlich geschriebenen Bytes
+     * @throws Exception wenn ein Fehler beim Kopieren auftritt
+     */
+	public static long kopiereDateiDelta(String zielVerzeichnis, File datei) throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		
+		if (existiert(zielVerzeichnis) && existiert(datei))
+		{
+			try
+			{
+				return kopiereDateiinhaltDelta(datei, new File(zielVerzeichnis, datei.getName()), STANDARD_BLOCKGROESSE);
+			}
+			catch (Exception ioexec)
+			{
+				sb = loeschStringBuilderInhalt(sb);
+				
+				sb.append("IOException aus MedysFileIO#kopiereDateiDelta(String,File)").append("\n\nKonnte die Datei ")
+						.append(datei.getName()).append(" nicht in das Verzeichnis ").append(zielVerzeichnis)
+						.append(" kopieren.\n\n").append(ioexec.getMessage());
+				
+				throw new Exception(sb.toString());
+			}
+		}
+		else
+		{
+			sb = loeschStringBuilderInhalt(sb);
+			
+			sb.append("Exeption aus MedysFileIO#kopiereDateiDelta(String,File)")
+			.append("\n").append("Entweder das Zielverzeichnis oder die Datei, die kopiert werden soll existiert nicht!")
+			.append("\n");
+			
+			throw new Exception(sb.toString());
+		}
+	}
+	
+	/**
+	 * Kopiert ein Verzeichnis mit seinem gesamten Inhalt in ein Zielverzeichnis.
+	 * <br><br>
+	 * Das Verzeichnis wird unter seinem Namen im Zielverzeichnis angelegt. Es werden so viele Threads 
+	 * eingesetzt, wie Prozessoren verf&uuml;gbar sind, siehe {@link MedysVerzeichnisKopierer}.
+	 * 
+	 * @param zielVerzeichnis das Verzeichnis in das das Verzeichnis kopiert werden soll
+	 * @param verzeichnis das Verzeichnis, das kopiert werden soll
+	 * @return das Ergebnis des Kopiervorgangs mit Anzahl, Bytes, Durchsatz und Fehlschl&auml;gen
+	 * @throws IOException wenn eins der Verzeichnisse nicht existiert oder das Ziel innerhalb der Quelle liegt
+	 */
+	public static MedysVerzeichnisKopierer.Ergebnis kopiereVerzeichnis(String zielVerzeichnis, File verzeichnis) 
+			throws IOException
+	{
+		return kopiereVerzeichnis(zielVerzeichnis, verzeichnis, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Kopiert ein Verzeichnis mit seinem gesamten Inhalt in ein Zielverzeichnis.
+	 * <br><br>
+	 * Das Verzeichnis wird unter seinem Namen im Zielverzeichnis angelegt, siehe {@link MedysVerzeichnisKopierer}.
+	 * 
+	 * @param zielVerzeichnis das Verzeichnis in das das Verzeichnis kopiert werden soll
+	 * @param verzeichnis das Verzeichnis, das kopiert werden soll
+	 * @param parallelitaet die Anzahl der Threads, die gleichzeitig kopieren
+	 * @return das Ergebnis des Kopiervorgangs mit Anzahl, Bytes, Durchsatz und Fehlschl&auml;gen
+	 * @throws IOException wenn eins der Verzeichnisse nicht existiert oder das Ziel innerhalb der Quelle liegt
+	 */
+	public static MedysVerzeichnisKopierer.Ergebnis kopiereVerzeichnis(String zielVerzeichnis, File verzeichnis, 
+			int parallelitaet) throws IOException
+	{
+		if (!istVerzeichnisUndExistiert(zielVerzeichnis))
+		{
+			throw new IOException("IOException aus MedysFileIO#kopiereVerzeichnis(String,File)\nDas Zielverzeichnis " 
+					+ zielVerzeichnis + " existiert nicht!\n");
+		}
+		
+		File ziel = new File(zielVerzeichnis, verzeichnis.getName());
+		
+		try
+		{
+			return new MedysVerzeichnisKopierer(parallelitaet).kopiere(verzeichnis, ziel);
+		}
+		finally
+		{
+			vergiss(ziel);
+		}
+	}
+	
+	/**
+	 * Kopiert den Inhalt einer Datei in eine Zieldatei mittels {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+	 * <br><br>
+	 * Die Daten werden dabei vom Betriebssystem direkt zwischen den Dateikan&auml;len &uuml;bertragen 
+	 * (Zero-Copy), d.h. der Inhalt der Datei wird zu keinem Zeitpunkt vollst&auml;ndig im Heap gehalten.
+	 * Kommt die &Uuml;bertragung nicht voran, so wird der Rest blockweise kopiert.
+	 * <br><br>
+	 * <u>Regeln</u>
+	 * <blockquote>
+	 * 		<ul>
+	 * 			<li>existiert die Zieldatei nicht, so wird sie angelegt</li>
+	 * 			<li>existiert die Zieldatei bereits, so wird sie in einem Durchgang &uuml;berschrieben</li>
+	 * 			<li>verweisen Quelle und Ziel auf dieselbe Datei, so wird nichts kopiert</li>
+	 * 		</ul>
+	 * </blockquote>
+	 * 
+	 * @param quelle die Datei, die kopiert werden soll
+	 * @param ziel die Zieldatei (inkl. Dateiname), in die kopiert werden soll
+	 * @return die Anzahl der kopierten Bytes
+	 * @throws IOException wenn die Quelle nicht gelesen oder das Ziel nicht beschrieben werden konnte
+	 */
+	public static long kopiereDateiinhalt(File quelle, File ziel) throws IOException
+	{
+		return MedysPfadIO.kopiereInhalt(quelle.toPath(), ziel.toPath());
+	}
+	
+	/**
+	 * Gleicht den Inhalt einer bestehenden Zieldatei blockweise an eine Quelldatei an.
+	 * <br><br>
+	 * Quelle und Ziel werden in Bl&ouml;cken fester Gr&ouml;&szlig;e an derselben Position gelesen und verglichen. 
+	 * Nur Bl&ouml;cke, die sich unterscheiden, werden an Ort und Stelle in das Ziel geschrieben. Ist das Ziel 
+	 * l&auml;nger als die Quelle, so wird es gek&uuml;rzt, ist es k&uuml;rzer, so wird es verl&auml;ngert.
+	 * <br><br>
+	 * Existiert das Ziel noch nicht, so wird die Datei durch {@link #kopiereDateiinhalt(File, File)} 
+	 * vollst&auml;ndig kopiert.
+	 * <br><br>
+	 * <u>Wichtig</u>
+	 * <blockquote>
+	 * 	Lohnend ist das Verfahren, wenn sich gro&szlig;e Dateien nur in wenigen Bereichen ge&auml;ndert haben. 
+	 * 	Bytes, die eingef&uuml;gt oder entfernt wurden, verschieben alle folgenden Bl&ouml;cke, so da&szlig; 
+	 * 	diese ebenfalls neu geschrieben werden.
+	 * </blockquote>
+	 * 
+	 * @param quelle die Datei, die kopiert werden soll
+	 * @param ziel die Zieldatei, die angeglichen werden soll
+	 * @param blockGroesse die Gr&ouml;&szlig;e eines Vergleichsblocks in Bytes, z.B. {@link #STANDARD_BLOCKGROESSE}
+	 * @return die Anzahl der tats&auml;chlich geschriebenen Bytes
+	 * @throws IOException wenn eine der Dateien nicht gelesen oder das Ziel nicht geschrieben werden kann
+	 */
+	public static long kopiereDateiinhaltDelta(File quelle, File ziel, int blockGroesse) throws IOException
+	{
+		if (blockGroesse < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Blockgröße " + blockGroesse);
+		}
+		
+		Path quellPfad = quelle.toPath();
+		Path zielPfad = ziel.toPath();
+		
+		if (!Files.exists(zielPfad))
+		{
+			return kopiereDateiinhalt(quelle, ziel);
+		}
+		
+		if (Files.isSameFile(quellPfad, zielPfad))
+		{
+			return 0L;
+		}
+		
+		long geschrieben = 0L;
+		
+		try (FileChannel quellKanal = FileChannel.open(quellPfad, StandardOpenOption.READ);
+			 FileChannel zielKanal = FileChannel.open(zielPfad, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			ByteBuffer quellBlock = MedysPufferPool.leiheDirekt(blockGroesse);
+			ByteBuffer zielBlock = MedysPufferPool.leiheDirekt(blockGroesse);
+			
+			long position = 0L;
+			
+			try
+			{
+				while (true)
+				{
+					quellBlock.clear().limit(blockGroesse);
+					
+					if (fuellePuffer(quellKanal, quellBlock, position) == 0)
+					{
+						break;
+					}
+					quellBlock.flip();
+					
+					zielBlock.clear().limit(quellBlock.remaining());
+					
+					fuellePuffer(zielKanal, zielBlock, position);
+					
+					zielBlock.flip();
+					
+					if (!quellBlock.equals(zielBlock))
+					{
+						int laenge = quellBlock.remaining();
+						
+						while (quellBlock.hasRemaining())
+						{
+							zielKanal.write(quellBlock, position + laenge - quellBlock.remaining());
+						}
+						geschrieben += laenge;
+					}
+					position += quellBlock.limit();
+				}
+			}
+			finally
+			{
+				MedysPufferPool.gibZurueck(quellBlock);
+				MedysPufferPool.gibZurueck(zielBlock);
+			}
+			
+			if (zielKanal.size() > position)
+			{
+				zielKanal.truncate(position);
+			}
+		}
+		finally
+		{
+			vergiss(ziel);
+		}
+		return geschrieben;
+	}
     
 	/**
 	 * Legt das aktuelle Arbeitsverzeichnis fest, falls es existiert
@@ -1316,7 +1827,7 @@ public class MedysFileIO {
 	/**
 	 * Schreibt einen Inhalt in eine <b>existierende</b> Datei mit einem vorgegebenen Zeichensatz.<br><br>
 	 * 
-	 * Diese Klasse nutzt {@link FileWriterWithEncoding} um einen FileWriter mit Encoding (Zeichensatz-Angabe) einzusetzen!<br><br>
+	 * Der Inhalt wird durch {@link MedysPfadIO#schreibInDatei(Path, String, Charset, boolean)} in einem Zugriff geschrieben!<br><br>
 	 * 
 	 * n&auml;here Infos zu den Java-supported Zeichens&auml;tzen unter
 	 * <blockquote>
@@ -1352,15 +1863,18 @@ public class MedysFileIO {
 		{
 			if(existiert(pfadZurDatei))
 			{
-				File file = gibDatei(pfadZurDatei);
-
-				FileWriterWithEncoding fw = new FileWriterWithEncoding(file, zeichensatz, alsAnhang); // häng Inhalt ans Dateiende an
-					
-				fw.write(inhalt);
-					
-				fw.flush();
-					
-				fw.close();
+				Charset charset;
+				
+				try
+				{
+					charset = Charset.forName(zeichensatz);
+				}
+				catch (IllegalArgumentException unbekannt)
+				{
+					throw new IOException("IOException aus MedysFileIO.schreibInDatei\nDer Zeichensatz " 
+							+ zeichensatz + " wird nicht unterstützt!", unbekannt);
+				}
+				MedysPfadIO.schreibInDatei(Paths.get(pfadZurDatei), inhalt, charset, alsAnhang);
 			}
 			else
 			{
@@ -1419,15 +1933,7 @@ public class MedysFileIO {
 		{
 			if(existiert(pfadZurDatei))
 			{
-				File file = gibDatei(pfadZurDatei);
-
-				FileWriter fw = new FileWriter(file, alsAnhang); // häng Inhalt ans Dateiende an
-					
-				fw.write(inhalt);
-					
-				fw.flush();
-					
-				fw.close();
+				MedysPfadIO.schreibInDatei(Paths.get(pfadZurDatei), inhalt, Charset.defaultCharset(), alsAnhang);
 			}
 			else
 			{
@@ -1455,6 +1961,54 @@ public class MedysFileIO {
 		}
 	}
 	
+	/**
+	 * Schreibt den vollst&auml;ndigen Inhalt einer Datei und ersetzt eine bestehende Datei atomar.
+	 * <br><br>
+	 * Im Gegensatz zu {@link #legeDateiAn(String)} gefolgt von {@link #schreibInDatei(String, String, String, boolean)} 
+	 * wird die Datei nur einmal ge&ouml;ffnet und Leser sehen nie eine leere oder halb geschriebene Datei. 
+	 * Die Datei mu&szlig; im Vorfeld nicht existieren, ihr Verzeichnis dagegen schon.
+	 * <br><br>
+	 * Nach dem Ersetzen wird das Verzeichnis synchronisiert. F&uuml;r viele Dateien sollte 
+	 * {@link MedysAtomarSchreiber} benutzt werden, der jedes Verzeichnis nur einmal synchronisiert.
+	 * 
+	 * @param pfadZurDatei die absolute Pfadangabe zu einer Datei (inkl. Dateiname und Endung)
+	 * @param inhalt der Inhalt, der geschrieben werden soll
+	 * @param zeichensatz der Zeichensatz, der hier angewendet werden soll
+	 * @return die geschriebene Datei
+	 * @throws IOException wenn die Datei nicht geschrieben oder ersetzt werden kann
+	 */
+	public static File schreibeDateiAtomar(String pfadZurDatei, String inhalt, Charset zeichensatz) throws IOException
+	{
+		if (inhalt == null)
+		{
+			throw new IOException("IOException aus MedysFileIO.schreibeDateiAtomar\nDer Inhalt ist NULL.\nBitte geben Sie einen Inhalt an!");
+		}
+		return schreibeDateiAtomar(pfadZurDatei, inhalt.getBytes(zeichensatz));
+	}
+	
+	/**
+	 * Schreibt den vollst&auml;ndigen Inhalt einer Datei und ersetzt eine bestehende Datei atomar, 
+	 * siehe {@link #schreibeDateiAtomar(String, String, Charset)}.
+	 * 
+	 * @param pfadZurDatei die absolute Pfadangabe zu einer Datei (inkl. Dateiname und Endung)
+	 * @param inhalt der Inhalt in Bytes, der geschrieben werden soll
+	 * @return die geschriebene Datei
+	 * @throws IOException wenn die Datei nicht geschrieben oder ersetzt werden kann
+	 */
+	public static File schreibeDateiAtomar(String pfadZurDatei, byte[] inhalt) throws IOException
+	{
+		if (inhalt == null)
+		{
+			throw new IOException("IOException aus MedysFileIO.schreibeDateiAtomar\nDer Inhalt ist NULL.\nBitte geben Sie einen Inhalt an!");
+		}
+		
+		File file = new File(pfadZurDatei);
+		
+		MedysAtomarSchreiber.schreibeEinzeln(file, inhalt);
+		
+		return file;
+	}
+	
 	/**
 	 * Liefert den Ordnernamen eines Ordners zur&uuml;ck, wenn dieser vorher durch 
 	 * {@link #setzeOrdnerNameDerDatei(String)} fetgelegt wurde. 
@@ -1589,6 +2143,154 @@ public class MedysFileIO {
 	    return absolutePath;
 	}
 	
+	/*
+	 * verwirft die Einträge einer geänderten Datei (und alles darunter) im Attribut- und Bild-Cache und übernimmt
+	 * die Änderung in den Verzeichnisindex, falls diese festgelegt sind
+	 */
+	static void vergiss(File datei)
+	{
+		if (datei != null)
+		{
+			vergiss(datei.toPath());
+		}
+	}
+	
+	/*
+	 * siehe vergiss(File)
+	 */
+	static void vergiss(Path pfad)
+	{
+		MedysAttributCache cache = attributCache;
+		MedysVerzeichnisIndex index = verzeichnisIndex;
+		MedysBildCache bilder = bildCache;
+		
+		if ((cache != null) && (pfad != null))
+		{
+			cache.invalidiere(pfad);
+		}
+		if ((bilder != null) && (pfad != null))
+		{
+			bilder.invalidiere(pfad);
+		}
+		if ((index != null) && (pfad != null))
+		{
+			index.aktualisiere(pfad);
+		}
+	}
+	
+	/*
+	 * Liest aus einem Kanal, bis der Puffer voll ist oder das Ende des Kanals erreicht ist.
+	 * 
+	 * @return die Anzahl der gelesenen Bytes, 0 wenn das Ende des Kanals erreicht ist
+	 */
+	static int fuellePuffer(ReadableByteChannel kanal, ByteBuffer puffer) throws IOException
+	{
+		int gelesen = 0;
+		
+		while (puffer.hasRemaining())
+		{
+			int anzahl = kanal.read(puffer);
+			
+			if (anzahl < 0)
+			{
+				break;
+			}
+			gelesen += anzahl;
+		}
+		return gelesen;
+	}
+	
+	/*
+	 * liest ab einer Position, bis der Puffer voll ist oder der Kanal endet, ohne die Kanalposition zu ändern
+	 */
+	private static int fuellePuffer(FileChannel kanal, ByteBuffer puffer, long position) throws IOException
+	{
+		int gelesen = 0;
+		
+		while (puffer.hasRemaining())
+		{
+			int anzahl = kanal.read(puffer, position + gelesen);
+			
+			if (anzahl < 0)
+			{
+				break;
+			}
+			gelesen += anzahl;
+		}
+		return gelesen;
+	}
+	
+	/*
+	 * Liest einen Kanal blockweise in ein ByteArray, das anhand der erwarteten Gr&ouml;&szlig;e vorbelegt wird, 
+	 * so da&szlig; im Normalfall keine weitere Kopie entsteht.
+	 */
+	static byte[] sammleBloecke(ReadableByteChannel kanal, long erwarteteGroesse) throws IOException
+	{
+		if (erwarteteGroesse > Integer.MAX_VALUE - 8)
+		{
+			throw new IOException("Die Datei ist mit " + erwarteteGroesse + " Bytes zu groß für ein ByteArray");
+		}
+		
+		byte[][] inhalt = { new byte[(int) Math.max(0L, erwarteteGroesse)] };
+		int[] laenge = { 0 };
+		
+		leseKanalInBloecken(kanal, STANDARD_BLOCKGROESSE, block -> {
+			
+			int anzahl = block.remaining();
+			
+			if (laenge[0] + anzahl > inhalt[0].length)
+			{
+				// die Datei ist seit der Größenabfrage gewachsen
+				//
+				inhalt[0] = Arrays.copyOf(inhalt[0], Math.max(laenge[0] + anzahl, inhalt[0].length * 2));
+			}
+			block.get(inhalt[0], laenge[0], anzahl);
+			laenge[0] += anzahl;
+		});
+		
+		return laenge[0] == inhalt[0].length ? inhalt[0] : Arrays.copyOf(inhalt[0], laenge[0]);
+	}
+	
+	/*
+	 * liefert den Decoder dieses Threads für einen Zeichensatz, zurückgesetzt und bereit zur Nutzung
+	 */
+	static CharsetDecoder gibDecoder(Charset zeichensatz)
+	{
+		Map<Charset, CharsetDecoder> decoderDesThreads = DECODER.get();
+		
+		CharsetDecoder decoder = decoderDesThreads.get(zeichensatz);
+		
+		if (decoder == null)
+		{
+			decoder = zeichensatz.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			
+			decoderDesThreads.put(zeichensatz, decoder);
+		}
+		return decoder.reset();
+	}
+	
+	/*
+	 * dekodiert die gesamte Eingabe in einem Durchgang, der Zielpuffer ist groß genug für maxCharsPerByte
+	 */
+	static void dekodiere(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer zeichen) throws IOException
+	{
+		CoderResult ergebnis = decoder.decode(bytes, zeichen, true);
+		
+		if (!ergebnis.isUnderflow())
+		{
+			ergebnis.throwException();
+		}
+		
+		ergebnis = decoder.flush(zeichen);
+		
+		if (!ergebnis.isUnderflow())
+		{
+			ergebnis.throwException();
+		}
+	}
+	
 	/*
 	 * L&ouml;scht den bisherigen aufgenommenen Inhalt in einer StringBuilder-Instanz.<br><br>
 	 * 
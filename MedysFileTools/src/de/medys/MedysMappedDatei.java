@@ -0,0 +1,394 @@
+package de.medys;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Schreibgesch&uuml;tztes Speicherabbild (Memory-Mapping) einer Datei.
+ * <br><br>
+ * Die Datei wird in ein oder mehrere {@link MappedByteBuffer}-Segmente abgebildet, so da&szlig;
+ * auch Dateien gr&ouml;&szlig;er als 2 GB ohne Kopie in den Heap gelesen werden k&ouml;nnen.
+ * <br><br>
+ * <u>Lebensdauer</u>
+ * <blockquote>
+ * 	Ein Speicherabbild belegt Adressraum, bis es durch {@link #close()} explizit freigegeben wird.
+ * 	In lang laufenden Anwendungen sollte eine Instanz daher immer in einem <code>try-with-resources</code>-Block
+ * 	genutzt werden.<br><br>
+ * 	Nach {@link #close()} d&uuml;rfen zuvor gelieferte Puffer <u>nicht mehr</u> benutzt werden!
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysMappedDatei implements Closeable
+{
+	/**
+	 * maximale Gr&ouml;&szlig;e eines einzelnen Segments (Grenze von {@link ByteBuffer})
+	 */
+	public static final long MAX_SEGMENT_GROESSE = Integer.MAX_VALUE;
+
+	/*
+	 * ab Java 9: sun.misc.Unsafe#invokeCleaner(ByteBuffer), um Speicherabbilder sofort freizugeben
+	 */
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	/*
+	 * Java 8: ((sun.nio.ch.DirectBuffer) puffer).cleaner().clean()
+	 */
+	private static final Class<?> DIRECT_BUFFER;
+	private static final Method CLEANER;
+	private static final Method CLEAN;
+
+	static
+	{
+		Object unsafe = null;
+		Method invokeCleaner = null;
+
+		try
+		{
+			Class<?> unsafeKlasse = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeKlasse.getMethod("invokeCleaner", ByteBuffer.class);
+			Field feld = unsafeKlasse.getDeclaredField("theUnsafe");
+			feld.setAccessible(true);
+			unsafe = feld.get(null);
+		}
+		catch (Exception nichtVerfuegbar)
+		{
+			// Java 8 oder eingeschränkte Laufzeitumgebung, siehe unten
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+
+		Class<?> directBuffer = null;
+		Method cleaner = null;
+		Method clean = null;
+
+		if (invokeCleaner == null)
+		{
+			try
+			{
+				directBuffer = Class.forName("sun.nio.ch.DirectBuffer");
+				cleaner = directBuffer.getMethod("cleaner");
+				clean = cleaner.getReturnType().getMethod("clean");
+			}
+			catch (Exception nichtVerfuegbar)
+			{
+				// Freigabe erfolgt dann erst durch den Garbage Collector
+				directBuffer = null;
+				cleaner = null;
+				clean = null;
+			}
+		}
+		DIRECT_BUFFER = directBuffer;
+		CLEANER = cleaner;
+		CLEAN = clean;
+	}
+
+	private final File datei;
+
+	private final long groesse;
+
+	private final long segmentGroesse;
+
+	private MappedByteBuffer[] segmente;
+
+	/**
+	 * Erstellt ein schreibgesch&uuml;tztes Speicherabbild einer Datei mit Segmenten der
+	 * Gr&ouml;&szlig;e {@link #MAX_SEGMENT_GROESSE}.
+	 *
+	 * @param datei die Datei, die abgebildet werden soll
+	 * @throws IOException wenn die Datei nicht existiert oder nicht abgebildet werden konnte
+	 */
+	public MedysMappedDatei(File datei) throws IOException
+	{
+		this(datei, MAX_SEGMENT_GROESSE);
+	}
+
+	/**
+	 * Erstellt ein schreibgesch&uuml;tztes Speicherabbild einer Datei.
+	 *
+	 * @param datei die Datei, die abgebildet werden soll
+	 * @param segmentGroesse die Gr&ouml;&szlig;e eines Segments in Bytes (1 bis {@link #MAX_SEGMENT_GROESSE})
+	 * @throws IOException wenn die Datei nicht existiert oder nicht abgebildet werden konnte
+	 */
+	public MedysMappedDatei(File datei, long segmentGroesse) throws IOException
+	{
+		if (!MedysFileIO.istDateiKeinVerzeichnis(datei))
+		{
+			throw new IOException("IOException aus MedysMappedDatei\nDie Datei " + datei + " existiert nicht oder ist ein Verzeichnis!");
+		}
+		if ((segmentGroesse < 1) || (segmentGroesse > MAX_SEGMENT_GROESSE))
+		{
+			throw new IllegalArgumentException("Ungültige Segmentgröße " + segmentGroesse);
+		}
+
+		this.datei = datei;
+		this.segmentGroesse = segmentGroesse;
+
+		try (FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ))
+		{
+			groesse = kanal.size();
+
+			int anzahl = (int) ((groesse + segmentGroesse - 1) / segmentGroesse);
+
+			segmente = new MappedByteBuffer[anzahl];
+
+			try
+			{
+				for (int i = 0; i < anzahl; i++)
+				{
+					long start = i * segmentGroesse;
+
+					segmente[i] = kanal.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentGroesse, groesse - start));
+				}
+			}
+			catch (IOException mapFehler)
+			{
+				close();
+				throw mapFehler;
+			}
+		}
+	}
+
+	/**
+	 * Liefert die abgebildete Datei
+	 *
+	 * @return die Datei dieses Speicherabbilds
+	 */
+	public File gibDatei()
+	{
+		return datei;
+	}
+
+	/**
+	 * Liefert die Gr&ouml;&szlig;e der abgebildeten Datei
+	 *
+	 * @return die Dateigr&ouml;&szlig;e in Bytes
+	 */
+	public long gibGroesse()
+	{
+		return groesse;
+	}
+
+	/**
+	 * Liefert die Anzahl der Segmente, in die die Datei abgebildet wurde
+	 *
+	 * @return die Anzahl der Segmente (0 bei einer leeren Datei)
+	 */
+	public int gibAnzahlSegmente()
+	{
+		return pruefeOffen().length;
+	}
+
+	/**
+	 * Liefert das Speicherabbild einer Datei, die in ein einziges Segment passt.
+	 * <br><br>
+	 * F&uuml;r gr&ouml;&szlig;ere Dateien sollte {@link #gibSegmente()} benutzt werden.
+	 *
+	 * @return schreibgesch&uuml;tzter {@link MappedByteBuffer} &uuml;ber den gesamten Dateiinhalt
+	 * @throws IllegalStateException wenn die Datei aus mehreren Segmenten besteht oder bereits geschlossen wurde
+	 */
+	public MappedByteBuffer gibPuffer()
+	{
+		MappedByteBuffer[] abbild = pruefeOffen();
+
+		if (abbild.length > 1)
+		{
+			throw new IllegalStateException("Die Datei " + datei.getName() + " besteht aus " + abbild.length
+					+ " Segmenten, bitte gibSegmente() benutzen!");
+		}
+		return abbild.length == 0 ? null : abbild[0];
+	}
+
+	/**
+	 * Liefert ein Segment des Speicherabbilds als eigenst&auml;ndige, schreibgesch&uuml;tzte Sicht,
+	 * deren Position und Limit unabh&auml;ngig von anderen Aufrufern sind.
+	 *
+	 * @param index der Index des Segments (beginnend bei 0)
+	 * @return schreibgesch&uuml;tzte Sicht auf das Segment
+	 */
+	public ByteBuffer gibSegment(int index)
+	{
+		return pruefeOffen()[index].duplicate();
+	}
+
+	/**
+	 * Liefert alle Segmente als schreibgesch&uuml;tzte Sichten in Dateireihenfolge
+	 *
+	 * @return die Segmente des Speicherabbilds
+	 */
+	public ByteBuffer[] gibSegmente()
+	{
+		MappedByteBuffer[] abbild = pruefeOffen();
+
+		ByteBuffer[] sichten = new ByteBuffer[abbild.length];
+
+		for (int i = 0; i < abbild.length; i++)
+		{
+			sichten[i] = abbild[i].duplicate();
+		}
+		return sichten;
+	}
+
+	/**
+	 * Liefert das Byte an einer absoluten Position der Datei
+	 *
+	 * @param position die absolute Position in der Datei
+	 * @return das Byte an der Position
+	 */
+	public byte gibByte(long position)
+	{
+		pruefeBereich(position, 1);
+
+		return pruefeOffen()[(int) (position / segmentGroesse)].get((int) (position % segmentGroesse));
+	}
+
+	/**
+	 * Liefert einen Bereich der Datei.
+	 * <br><br>
+	 * Liegt der Bereich vollst&auml;ndig in einem Segment, so wird eine schreibgesch&uuml;tzte Sicht
+	 * ohne Kopie geliefert. Nur wenn der Bereich eine Segmentgrenze &uuml;berschreitet, wird er in
+	 * einen neuen Puffer kopiert.
+	 *
+	 * @param position die absolute Startposition in der Datei
+	 * @param laenge die Anzahl der Bytes
+	 * @return der Bereich als {@link ByteBuffer}
+	 */
+	public ByteBuffer gibBereich(long position, int laenge)
+	{
+		pruefeBereich(position, laenge);
+
+		MappedByteBuffer[] abbild = pruefeOffen();
+
+		// am Dateiende (oder bei leerer Datei) gibt es kein Segment mehr zu der Position
+		//
+		if (laenge == 0)
+		{
+			return ByteBuffer.allocate(0).asReadOnlyBuffer();
+		}
+
+		int index = (int) (position / segmentGroesse);
+		int offset = (int) (position % segmentGroesse);
+
+		if (offset + (long) laenge <= abbild[index].capacity())
+		{
+			ByteBuffer sicht = abbild[index].duplicate();
+			sicht.position(offset).limit(offset + laenge);
+			return sicht.slice().asReadOnlyBuffer();
+		}
+
+		ByteBuffer kopie = ByteBuffer.allocate(laenge);
+
+		while (kopie.hasRemaining())
+		{
+			ByteBuffer sicht = abbild[index].duplicate();
+			sicht.position(offset);
+			sicht.limit(Math.min(sicht.capacity(), offset + kopie.remaining()));
+			kopie.put(sicht);
+			index++;
+			offset = 0;
+		}
+		kopie.flip();
+
+		return kopie.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Pr&uuml;ft, ob das Speicherabbild bereits durch {@link #close()} freigegeben wurde
+	 *
+	 * @return <code>true</code> wenn freigegeben, sonst <code>false</code>
+	 */
+	public boolean istGeschlossen()
+	{
+		return segmente == null;
+	}
+
+	/**
+	 * Gibt alle Segmente des Speicherabbilds sofort frei.
+	 * <br><br>
+	 * Zuvor gelieferte Puffer und Sichten d&uuml;rfen danach nicht mehr benutzt werden.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		MappedByteBuffer[] abbild = segmente;
+
+		segmente = null;
+
+		if (abbild != null)
+		{
+			for (MappedByteBuffer segment : abbild)
+			{
+				gibFrei(segment);
+			}
+		}
+	}
+
+	/**
+	 * Gibt einen direkten oder abgebildeten Puffer sofort frei, anstatt auf den
+	 * Garbage Collector zu warten.
+	 * <br><br>
+	 * Nicht-direkte Puffer, Sichten (slice/duplicate) und <code>NULL</code> werden ignoriert. Steht die
+	 * Freigabe in der Laufzeitumgebung nicht zur Verf&uuml;gung, so erfolgt sie sp&auml;ter durch den Garbage Collector.
+	 *
+	 * @param puffer der Puffer, der freigegeben werden soll
+	 */
+	public static void gibFrei(ByteBuffer puffer)
+	{
+		if ((puffer == null) || !puffer.isDirect())
+		{
+			return;
+		}
+
+		try
+		{
+			if (INVOKE_CLEANER != null)
+			{
+				INVOKE_CLEANER.invoke(UNSAFE, puffer);
+			}
+			else if ((CLEANER != null) && DIRECT_BUFFER.isInstance(puffer))
+			{
+				// Sichten (slice/duplicate) haben unter Java 8 keinen eigenen Cleaner
+				//
+				Object cleaner = CLEANER.invoke(puffer);
+
+				if (cleaner != null)
+				{
+					CLEAN.invoke(cleaner);
+				}
+			}
+		}
+		catch (Exception keineFreigabe)
+		{
+			// Sicht auf einen anderen Puffer, Freigabe durch den Garbage Collector
+		}
+	}
+
+	private MappedByteBuffer[] pruefeOffen()
+	{
+		MappedByteBuffer[] abbild = segmente;
+
+		if (abbild == null)
+		{
+			throw new IllegalStateException("Das Speicherabbild von " + datei.getName() + " wurde bereits geschlossen!");
+		}
+		return abbild;
+	}
+
+	private void pruefeBereich(long position, int laenge)
+	{
+		if ((position < 0) || (laenge < 0) || (position + laenge > groesse))
+		{
+			throw new IndexOutOfBoundsException("Bereich " + position + " + " + laenge + " liegt außerhalb von " + groesse + " Bytes");
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package de.medys;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ordnet zwischengespeicherte Pfadangaben ihren Elternverzeichnissen zu, so da&szlig; alle Pfadangaben unterhalb
+ * eines Verzeichnisses gefunden werden, ohne s&auml;mtliche Eintr&auml;ge eines Zwischenspeichers zu durchsuchen.
+ * <br><br>
+ * Jede Pfadangabe ist in der Kindermenge ihres Elternverzeichnisses eingetragen, Zwischenverzeichnisse ohne eigenen
+ * Eintrag nur so lange, wie sie Kinder haben. Der Aufwand ist damit proportional zur Tiefe bzw. zur Anzahl der
+ * betroffenen Eintr&auml;ge und unabh&auml;ngig von der Gr&ouml;&szlig;e des Zwischenspeichers.
+ * <br><br>
+ * <u>Wichtig</u>
+ * <blockquote>
+ * 	Die Klasse ist nicht threadsicher, sie wird unter der Sperre des jeweiligen Zwischenspeichers genutzt.
+ * 	Die Pfadangaben m&uuml;ssen absolut und normalisiert sein.
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ * @see MedysAttributCache
+ * @see MedysBildCache
+ */
+final class MedysPfadBaum
+{
+	private final Set<Path> mitglieder = new HashSet<>();
+
+	private final HashMap<Path, Set<Path>> kinder = new HashMap<>();
+
+	/**
+	 * Tr&auml;gt eine Pfadangabe ein, ein erneutes Eintragen hat keine Wirkung
+	 *
+	 * @param pfad die absolute, normalisierte Pfadangabe
+	 */
+	void fuegeHinzu(Path pfad)
+	{
+		if (!mitglieder.add(pfad))
+		{
+			return;
+		}
+
+		// hat das Elternverzeichnis bereits Kinder, so ist es selbst schon eingehängt
+		//
+		Path kind = pfad;
+		Path eltern = kind.getParent();
+
+		while (eltern != null)
+		{
+			Set<Path> geschwister = kinder.get(eltern);
+
+			if (geschwister != null)
+			{
+				geschwister.add(kind);
+				return;
+			}
+
+			geschwister = new HashSet<>();
+			geschwister.add(kind);
+
+			kinder.put(eltern, geschwister);
+
+			if (mitglieder.contains(eltern))
+			{
+				return;
+			}
+			kind = eltern;
+			eltern = kind.getParent();
+		}
+	}
+
+	/**
+	 * Tr&auml;gt genau eine Pfadangabe aus, ihre Kinder bleiben eingetragen
+	 *
+	 * @param pfad die absolute, normalisierte Pfadangabe
+	 */
+	void entferne(Path pfad)
+	{
+		if (mitglieder.remove(pfad))
+		{
+			loese(pfad);
+		}
+	}
+
+	/**
+	 * Tr&auml;gt eine Pfadangabe und alle Pfadangaben unterhalb aus
+	 *
+	 * @param pfad die absolute, normalisierte Pfadangabe
+	 * @return die ausgetragenen Pfadangaben
+	 */
+	List<Path> entferneUnterhalb(Path pfad)
+	{
+		List<Path> entfernt = new ArrayList<>();
+
+		ArrayDeque<Path> offen = new ArrayDeque<>();
+		offen.add(pfad);
+
+		while (!offen.isEmpty())
+		{
+			Path naechster = offen.poll();
+
+			if (mitglieder.remove(naechster))
+			{
+				entfernt.add(naechster);
+			}
+
+			Set<Path> unterhalb = kinder.remove(naechster);
+
+			if (unterhalb != null)
+			{
+				offen.addAll(unterhalb);
+			}
+		}
+		loese(pfad);
+
+		return entfernt;
+	}
+
+	/**
+	 * Tr&auml;gt alle Pfadangaben aus
+	 */
+	void leere()
+	{
+		mitglieder.clear();
+		kinder.clear();
+	}
+
+	/*
+	 * hängt eine Pfadangabe ohne Eintrag und ohne Kinder aus, leere Elternverzeichnisse ebenso
+	 */
+	private void loese(Path pfad)
+	{
+		Path kind = pfad;
+
+		while (!mitglieder.contains(kind) && !kinder.containsKey(kind))
+		{
+			Path eltern = kind.getParent();
+
+			Set<Path> geschwister = eltern != null ? kinder.get(eltern) : null;
+
+			if (geschwister == null)
+			{
+				return;
+			}
+
+			geschwister.remove(kind);
+
+			if (!geschwister.isEmpty())
+			{
+				return;
+			}
+			kinder.remove(eltern);
+
+			kind = eltern;
+		}
+	}
+}
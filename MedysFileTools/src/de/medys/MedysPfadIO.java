@@ -0,0 +1,449 @@
+package de.medys;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Dateioperationen von {@link MedysFileIO} auf Basis von {@link Path}.
+ * <br><br>
+ * Die Methoden arbeiten direkt mit der &uuml;bergebenen Pfadangabe, ohne Zeichenketten zusammenzusetzen,
+ * {@link java.io.File}-Objekte zu erzeugen oder das &uuml;bergeordnete Verzeichnis erneut zu pr&uuml;fen.
+ * Die gleichnamigen Methoden von {@link MedysFileIO}, die Pfadangaben als Zeichenkette erwarten, rufen
+ * intern diese Methoden auf.
+ * <br><br>
+ * Existenz- und Typpr&uuml;fungen ber&uuml;cksichtigen einen festgelegten {@link MedysVerzeichnisIndex}
+ * bzw. {@link MedysAttributCache}, Änderungen werden dorthin weitergegeben.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public final class MedysPfadIO
+{
+	private MedysPfadIO()
+	{
+	}
+
+	/**
+	 * Liefert Existenz, Typ, Gr&ouml;&szlig;e und &Auml;nderungszeitpunkt einer Pfadangabe durch einen einzigen
+	 * Dateisystemzugriff oder aus dem {@link MedysVerzeichnisIndex} bzw. {@link MedysAttributCache}, falls
+	 * einer festgelegt wurde.
+	 *
+	 * @param pfad die Pfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute, {@link MedysDateiAttribute#NICHT_VORHANDEN} wenn die Pfadangabe NULL ist
+	 * 			oder nicht existiert
+	 */
+	public static MedysDateiAttribute gibAttribute(Path pfad)
+	{
+		if (pfad == null)
+		{
+			return MedysDateiAttribute.NICHT_VORHANDEN;
+		}
+
+		MedysVerzeichnisIndex index = MedysFileIO.gibVerzeichnisIndex();
+		MedysAttributCache cache = MedysFileIO.gibAttributCache();
+
+		if ((index == null) && (cache == null))
+		{
+			return MedysDateiAttribute.lese(pfad);
+		}
+
+		// nur einmal normalisieren, Index und Zwischenspeicher benutzen denselben Schlüssel
+		//
+		Path schluessel = pfad.toAbsolutePath().normalize();
+
+		if ((index != null) && index.umfasstNormalisiert(schluessel))
+		{
+			return index.gibNormalisiert(schluessel);
+		}
+		return cache != null ? cache.gibNormalisiert(schluessel) : MedysDateiAttribute.lese(schluessel);
+	}
+
+	/**
+	 * @param pfad die Pfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return <code>true</code> wenn unter der Pfadangabe eine Datei oder ein Verzeichnis existiert
+	 */
+	public static boolean existiert(Path pfad)
+	{
+		return gibAttribute(pfad).existiert();
+	}
+
+	/**
+	 * @param pfad die Pfadangabe zu einer Datei
+	 * @return <code>true</code> wenn die Datei existiert und kein Verzeichnis ist
+	 */
+	public static boolean istDateiKeinVerzeichnis(Path pfad)
+	{
+		return gibAttribute(pfad).istDateiKeinVerzeichnis();
+	}
+
+	/**
+	 * @param pfad die Pfadangabe zu einem Verzeichnis
+	 * @return <code>true</code> wenn das Verzeichnis existiert
+	 */
+	public static boolean istVerzeichnisUndExistiert(Path pfad)
+	{
+		return gibAttribute(pfad).istVerzeichnis();
+	}
+
+	/**
+	 * Benennt eine Datei oder ein Verzeichnis innerhalb seines Ordners um, eine bestehende Datei mit dem
+	 * neuen Namen wird dabei wie bei {@link java.io.File#renameTo(java.io.File)} ersetzt
+	 *
+	 * @param pfad die Pfadangabe der Datei
+	 * @param neuerName der neue Name
+	 * @return die neue Pfadangabe
+	 * @throws IOException wenn nicht umbenannt werden kann, z.B. weil die Datei nicht existiert oder der neue Name
+	 * 			ein nicht leeres Verzeichnis ist
+	 */
+	public static Path benenneUm(Path pfad, String neuerName) throws IOException
+	{
+		Path neuerPfad = pfad.resolveSibling(neuerName);
+
+		try
+		{
+			return Files.move(pfad, neuerPfad, StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			MedysFileIO.vergiss(pfad);
+			MedysFileIO.vergiss(neuerPfad);
+		}
+	}
+
+	/**
+	 * Entfernt eine Datei, <u>kein Verzeichnis</u>, siehe {@link #loescheVerzeichnis(Path)}
+	 *
+	 * @param pfad die Pfadangabe der Datei
+	 * @return <code>true</code> wenn die Datei existierte und entfernt wurde, sonst <code>false</code>
+	 * @throws IOException wenn die Datei existiert, aber nicht entfernt werden kann
+	 */
+	public static boolean entferneDatei(Path pfad) throws IOException
+	{
+		if (!istDateiKeinVerzeichnis(pfad))
+		{
+			return false;
+		}
+
+		try
+		{
+			return Files.deleteIfExists(pfad);
+		}
+		finally
+		{
+			MedysFileIO.vergiss(pfad);
+		}
+	}
+
+	/**
+	 * L&ouml;scht ein Verzeichnis mit seinem gesamten Inhalt, siehe {@link MedysVerzeichnisLoescher}
+	 *
+	 * @param pfad die Pfadangabe des Verzeichnisses
+	 * @return <code>true</code> wenn das Verzeichnis existierte und vollst&auml;ndig gel&ouml;scht wurde
+	 */
+	public static boolean loescheVerzeichnis(Path pfad)
+	{
+		if (!existiert(pfad))
+		{
+			return false;
+		}
+
+		MedysVerzeichnisLoescher.Ergebnis ergebnis = new MedysVerzeichnisLoescher().loesche(pfad);
+
+		MedysFileIO.vergiss(pfad);
+
+		return ergebnis.istVollstaendig() && !Files.exists(pfad);
+	}
+
+	/**
+	 * Erstellt ein Verzeichnis inklusive aller fehlenden &uuml;bergeordneten Verzeichnisse
+	 *
+	 * @param pfad die Pfadangabe des Verzeichnisses
+	 * @return <code>true</code> wenn das Verzeichnis erstellt wurde, <code>false</code> wenn es bereits existiert
+	 * @throws IOException wenn das Verzeichnis nicht erstellt werden kann
+	 */
+	public static boolean erstelleVerzeichnis(Path pfad) throws IOException
+	{
+		if (istVerzeichnisUndExistiert(pfad))
+		{
+			return false;
+		}
+
+		try
+		{
+			Files.createDirectories(pfad);
+		}
+		finally
+		{
+			MedysFileIO.vergiss(pfad);
+		}
+		return true;
+	}
+
+	/**
+	 * Legt eine neue, leere Datei an, eine bestehende Datei wird in einem Zug geleert, <u>kein Verzeichnis</u>
+	 *
+	 * @param pfad die Pfadangabe der Datei
+	 * @return die Pfadangabe der angelegten Datei
+	 * @throws IOException wenn die Pfadangabe auf ein Verzeichnis verweist oder die Datei nicht angelegt werden kann
+	 */
+	public static Path legeDateiAn(Path pfad) throws IOException
+	{
+		if (istVerzeichnisUndExistiert(pfad))
+		{
+			throw new IOException("IOException aus MedysPfadIO.legeDateiAn(Path)\nDie Pfadangabe " + pfad
+					+ " referenziert auf ein Verzeichnis und nicht auf eine Datei!");
+		}
+
+		try
+		{
+			FileChannel.open(pfad, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING).close();
+		}
+		finally
+		{
+			MedysFileIO.vergiss(pfad);
+		}
+		return pfad;
+	}
+
+	/**
+	 * Kopiert eine Datei unter ihrem Namen in ein Zielverzeichnis, siehe {@link #kopiereInhalt(Path, Path)}
+	 *
+	 * @param quelle die Datei, die kopiert werden soll
+	 * @param zielVerzeichnis das Verzeichnis, in das kopiert werden soll
+	 * @return die Pfadangabe der Kopie
+	 * @throws IOException wenn die Datei nicht kopiert werden kann
+	 */
+	public static Path kopiereDatei(Path quelle, Path zielVerzeichnis) throws IOException
+	{
+		Path ziel = zielVerzeichnis.resolve(quelle.getFileName());
+
+		kopiereInhalt(quelle, ziel);
+
+		return ziel;
+	}
+
+	/**
+	 * Kopiert den Inhalt einer Datei in eine Zieldatei, ohne den Inhalt in den Heap zu laden.
+	 * <br><br>
+	 * Die Bytes werden durch {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+	 * &uuml;bertragen, kommt die &Uuml;bertragung nicht voran, so wird der Rest blockweise kopiert. Eine existierende
+	 * Zieldatei wird in einem einzigen Durchgang &uuml;berschrieben,
+	 * Quelle und Ziel d&uuml;rfen dieselbe Datei sein (dann erfolgt keine Operation).
+	 *
+	 * @param quelle die Datei, die kopiert werden soll
+	 * @param ziel die Zieldatei
+	 * @return die Anzahl der kopierten Bytes
+	 * @throws IOException wenn die Datei nicht kopiert werden kann
+	 */
+	public static long kopiereInhalt(Path quelle, Path ziel) throws IOException
+	{
+		if (Files.exists(ziel) && Files.isSameFile(quelle, ziel))
+		{
+			return 0L;
+		}
+
+		long position = 0L;
+
+		try (FileChannel quellKanal = FileChannel.open(quelle, StandardOpenOption.READ);
+			 FileChannel zielKanal = FileChannel.open(ziel, StandardOpenOption.CREATE,
+					 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			long groesse = quellKanal.size();
+
+			while (position < groesse)
+			{
+				long uebertragen = quellKanal.transferTo(position, groesse - position, zielKanal);
+
+				if (uebertragen <= 0)
+				{
+					// die Quelle ist während des Kopierens geschrumpft
+					//
+					groesse = Math.min(groesse, quellKanal.size());
+
+					if (position >= groesse)
+					{
+						break;
+					}
+
+					// transferTo kommt nicht voran, der Rest wird daher blockweise gelesen und geschrieben
+					//
+					position = kopiereBlockweise(quellKanal, zielKanal, position, groesse);
+
+					break;
+				}
+				position += uebertragen;
+			}
+		}
+		finally
+		{
+			MedysFileIO.vergiss(ziel);
+		}
+		return position;
+	}
+
+	/*
+	 * kopiert ab einer Position bis zur Größe oder zum Ende der Quelle, liefert die erreichte Position
+	 */
+	private static long kopiereBlockweise(FileChannel quellKanal, FileChannel zielKanal, long position, long groesse)
+			throws IOException
+	{
+		ByteBuffer puffer = MedysPufferPool.leiheDirekt(MedysFileIO.STANDARD_BLOCKGROESSE);
+
+		try
+		{
+			while (position < groesse)
+			{
+				puffer.clear();
+				puffer.limit((int) Math.min(puffer.capacity(), groesse - position));
+
+				int gelesen = quellKanal.read(puffer, position);
+
+				if (gelesen < 0)
+				{
+					break;
+				}
+				puffer.flip();
+
+				while (puffer.hasRemaining())
+				{
+					zielKanal.write(puffer);
+				}
+				position += gelesen;
+			}
+			return position;
+		}
+		finally
+		{
+			MedysPufferPool.gibZurueck(puffer);
+		}
+	}
+
+	/**
+	 * Liest den Inhalt einer Datei blockweise direkt in ein ByteArray, das anhand der Dateigr&ouml;&szlig;e
+	 * vorbelegt wird
+	 *
+	 * @param pfad die Pfadangabe der Datei
+	 * @return der Inhalt der Datei in Bytes
+	 * @throws IOException wenn die Datei nicht gelesen werden kann oder zu gro&szlig; f&uuml;r ein ByteArray ist
+	 */
+	public static byte[] gibDateiInhalt(Path pfad) throws IOException
+	{
+		try (FileChannel kanal = FileChannel.open(pfad, StandardOpenOption.READ))
+		{
+			return MedysFileIO.sammleBloecke(kanal, kanal.size());
+		}
+	}
+
+	/**
+	 * Liest den Inhalt einer Datei aus und liefert diesen als Zeichenkette im angegebenen Zeichensatz zur&uuml;ck,
+	 * siehe {@link MedysFileIO#gibDateiInhaltToString(java.io.File, Charset)}
+	 *
+	 * @param pfad die Pfadangabe der Datei
+	 * @param zeichensatz der Zeichensatz der Datei, z.B. {@link java.nio.charset.StandardCharsets#ISO_8859_1}
+	 * @return der Inhalt der Datei als Zeichenkette
+	 * @throws IOException wenn die Datei nicht gelesen werden konnte oder zu gro&szlig; f&uuml;r eine Zeichenkette ist
+	 */
+	public static String gibDateiInhaltToString(Path pfad, Charset zeichensatz) throws IOException
+	{
+		try (FileChannel kanal = FileChannel.open(pfad, StandardOpenOption.READ))
+		{
+			long groesse = kanal.size();
+
+			CharsetDecoder decoder = MedysFileIO.gibDecoder(zeichensatz);
+
+			long maxZeichen = (long) Math.ceil(groesse * (double) decoder.maxCharsPerByte());
+
+			if (maxZeichen > Integer.MAX_VALUE - 8)
+			{
+				throw new IOException("IOException aus MedysPfadIO.gibDateiInhaltToString\nDie Datei " + pfad.getFileName()
+						+ " ist mit " + groesse + " Bytes zu groß für eine Zeichenkette, bitte MedysFileIO.gibZeilen(File, Charset) benutzen!");
+			}
+
+			CharBuffer zeichen = CharBuffer.allocate((int) maxZeichen);
+
+			if (groesse <= MedysFileIO.STANDARD_BLOCKGROESSE)
+			{
+				ByteBuffer puffer = MedysPufferPool.leiheDirekt(MedysFileIO.STANDARD_BLOCKGROESSE);
+
+				try
+				{
+					puffer.limit((int) groesse);
+
+					MedysFileIO.fuellePuffer(kanal, puffer);
+
+					puffer.flip();
+
+					MedysFileIO.dekodiere(decoder, puffer, zeichen);
+				}
+				finally
+				{
+					MedysPufferPool.gibZurueck(puffer);
+				}
+			}
+			else
+			{
+				ByteBuffer abbild = kanal.map(FileChannel.MapMode.READ_ONLY, 0L, groesse);
+
+				try
+				{
+					MedysFileIO.dekodiere(decoder, abbild, zeichen);
+				}
+				finally
+				{
+					MedysMappedDatei.gibFrei(abbild);
+				}
+			}
+			zeichen.flip();
+
+			return zeichen.toString();
+		}
+	}
+
+	/**
+	 * Schreibt einen Inhalt in eine <b>existierende</b> Datei
+	 *
+	 * @param pfad die Pfadangabe der Datei
+	 * @param inhalt der Inhalt, der geschrieben werden soll
+	 * @param zeichensatz der Zeichensatz, der hier angewendet werden soll
+	 * @param alsAnhang ob der Inhalt ans Dateiende angeh&auml;ngt werden soll oder nicht
+	 * @throws IOException wenn die Datei nicht existiert oder nicht beschrieben werden kann
+	 */
+	public static void schreibInDatei(Path pfad, String inhalt, Charset zeichensatz, boolean alsAnhang) throws IOException
+	{
+		try
+		{
+			Files.write(pfad, inhalt.getBytes(zeichensatz), StandardOpenOption.WRITE,
+					alsAnhang ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		finally
+		{
+			MedysFileIO.vergiss(pfad);
+		}
+	}
+
+	/**
+	 * L&auml;dt eine Bilddatei, aus dem {@link MedysBildCache}, falls einer festgelegt wurde, siehe
+	 * {@link MedysFileIO#ladeBild(String, String)}
+	 *
+	 * @param pfad die Pfadangabe der Bilddatei
+	 * @return das Bild, NULL wenn das Bildformat nicht unterst&uuml;tzt wird
+	 * @throws IOException wenn die Bilddatei nicht existiert oder nicht geladen werden kann
+	 */
+	public static BufferedImage ladeBild(Path pfad) throws IOException
+	{
+		MedysBildCache cache = MedysFileIO.gibBildCache();
+
+		return cache != null ? cache.gib(pfad) : ImageIO.read(pfad.toFile());
+	}
+}
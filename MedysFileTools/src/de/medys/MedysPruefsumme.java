@@ -0,0 +1,596 @@
+package de.medys;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Checksum;
+
+/**
+ * Berechnet Pr&uuml;fsummen (CRC32C oder SHA-256) von Dateien und Verzeichnissen.
+ * <br><br>
+ * <u>Verfahren</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>{@link #berechne(File)} liest eine Datei in einem einzigen, blockweisen Durchgang</li>
+ * 		<li>{@link #berechneBaum(File, long)} teilt gro&szlig;e Dateien in Segmente, die parallel gelesen
+ * 			werden, und bildet die Pr&uuml;fsumme &uuml;ber die Pr&uuml;fsummen der Segmente (Baum-Pr&uuml;fsumme)</li>
+ * 		<li>{@link #erstelleManifest(File)} berechnet die Pr&uuml;fsummen aller Dateien eines Verzeichnisses
+ * 			parallel</li>
+ * 		<li>{@link #kopiere(File, File)} berechnet die Pr&uuml;fsumme w&auml;hrend des Kopierens, so da&szlig;
+ * 			kein zweiter Lesedurchgang zur Kontrolle n&ouml;tig ist</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Pr&uuml;fsummen werden als hexadezimale Zeichenkette in Kleinbuchstaben geliefert.
+ * <br><br>
+ * CRC32C wird ab Java 9 &uuml;ber <code>java.util.zip.CRC32C</code> (mit Hardware-Unterst&uuml;tzung) berechnet,
+ * unter Java 8 &uuml;ber eine Tabelle in Software. Beide liefern dieselbe Pr&uuml;fsumme.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysPruefsumme
+{
+	/**
+	 * Standard-Segmentgr&ouml;&szlig;e f&uuml;r {@link #berechneBaum(File, long)} (64 MB)
+	 */
+	public static final long STANDARD_SEGMENTGROESSE = 64L * 1024 * 1024;
+
+	/*
+	 * java.util.zip.CRC32C und CRC32C#update(ByteBuffer), beides erst ab Java 9 vorhanden
+	 */
+	private static final Constructor<?> CRC32C_KONSTRUKTOR;
+	private static final Method CRC32C_UPDATE;
+
+	static
+	{
+		Constructor<?> konstruktor = null;
+		Method update = null;
+
+		try
+		{
+			Class<?> crcKlasse = Class.forName("java.util.zip.CRC32C");
+			konstruktor = crcKlasse.getConstructor();
+			update = crcKlasse.getMethod("update", ByteBuffer.class);
+		}
+		catch (ReflectiveOperationException | RuntimeException nichtVerfuegbar)
+		{
+			// Java 8, die Berechnung erfolgt dann über SoftwareCrc32c
+			//
+			konstruktor = null;
+			update = null;
+		}
+		CRC32C_KONSTRUKTOR = konstruktor;
+		CRC32C_UPDATE = update;
+	}
+
+	/**
+	 * Die unterst&uuml;tzten Pr&uuml;fsummenverfahren
+	 */
+	public enum Verfahren
+	{
+		/**
+		 * CRC32C (Castagnoli), schnell, aber nur zur Erkennung zuf&auml;lliger Fehler geeignet
+		 */
+		CRC32C,
+
+		/**
+		 * SHA-256, kryptographisch sicher
+		 */
+		SHA256
+	}
+
+	private final Verfahren verfahren;
+
+	private final int parallelitaet;
+
+	/**
+	 * Erstellt eine Pr&uuml;fsummenberechnung, die so viele Threads nutzt, wie Prozessoren verf&uuml;gbar sind
+	 *
+	 * @param verfahren das Pr&uuml;fsummenverfahren
+	 */
+	public MedysPruefsumme(Verfahren verfahren)
+	{
+		this(verfahren, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Erstellt eine Pr&uuml;fsummenberechnung mit einer festen Anzahl paralleler Threads
+	 *
+	 * @param verfahren das Pr&uuml;fsummenverfahren
+	 * @param parallelitaet die Anzahl der Threads, die gleichzeitig lesen (mindestens 1)
+	 */
+	public MedysPruefsumme(Verfahren verfahren, int parallelitaet)
+	{
+		if (parallelitaet < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Parallelität " + parallelitaet);
+		}
+		this.verfahren = verfahren;
+		this.parallelitaet = parallelitaet;
+	}
+
+	/**
+	 * @return das Pr&uuml;fsummenverfahren
+	 */
+	public Verfahren gibVerfahren()
+	{
+		return verfahren;
+	}
+
+	/**
+	 * Berechnet die Pr&uuml;fsumme einer Datei in einem einzigen, blockweisen Durchgang
+	 *
+	 * @param datei die Datei
+	 * @return die Pr&uuml;fsumme als hexadezimale Zeichenkette
+	 * @throws IOException wenn die Datei nicht gelesen werden kann
+	 */
+	public String berechne(File datei) throws IOException
+	{
+		Rechner rechner = erzeugeRechner();
+
+		MedysFileIO.leseDateiInBloecken(datei, MedysFileIO.STANDARD_BLOCKGROESSE, rechner::aktualisiere);
+
+		return zuHex(rechner.ergebnis());
+	}
+
+	/**
+	 * Berechnet die Baum-Pr&uuml;fsumme einer Datei.
+	 * <br><br>
+	 * Die Datei wird in Segmente der angegebenen Gr&ouml;&szlig;e geteilt, deren Pr&uuml;fsummen parallel
+	 * berechnet werden. Das Ergebnis ist die Pr&uuml;fsumme &uuml;ber die aneinandergereihten
+	 * Segment-Pr&uuml;fsummen.
+	 * <br><br>
+	 * <u>Wichtig</u>
+	 * <blockquote>
+	 * 	Die Baum-Pr&uuml;fsumme ist nur mit Baum-Pr&uuml;fsummen derselben Segmentgr&ouml;&szlig;e vergleichbar,
+	 * 	nicht mit {@link #berechne(File)}.
+	 * </blockquote>
+	 *
+	 * @param datei die Datei
+	 * @param segmentGroesse die Gr&ouml;&szlig;e eines Segments in Bytes, z.B. {@link #STANDARD_SEGMENTGROESSE}
+	 * @return die Baum-Pr&uuml;fsumme als hexadezimale Zeichenkette
+	 * @throws IOException wenn die Datei nicht gelesen werden kann
+	 */
+	public String berechneBaum(File datei, long segmentGroesse) throws IOException
+	{
+		if (segmentGroesse < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Segmentgröße " + segmentGroesse);
+		}
+
+		try (FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ))
+		{
+			long groesse = kanal.size();
+
+			long anzahlSegmente = Math.max(1L, (groesse + segmentGroesse - 1) / segmentGroesse);
+
+			List<Callable<byte[]>> aufgaben = new ArrayList<>();
+
+			for (long i = 0; i < anzahlSegmente; i++)
+			{
+				long von = i * segmentGroesse;
+				long laenge = Math.min(segmentGroesse, groesse - von);
+
+				aufgaben.add(() -> berechneBereich(kanal, von, laenge));
+			}
+
+			Rechner wurzel = erzeugeRechner();
+
+			for (byte[] segment : fuehreAus(aufgaben))
+			{
+				wurzel.aktualisiere(ByteBuffer.wrap(segment));
+			}
+			return zuHex(wurzel.ergebnis());
+		}
+	}
+
+	/**
+	 * Berechnet die Pr&uuml;fsummen aller Dateien eines Verzeichnisses und seiner Unterverzeichnisse parallel.
+	 * <br><br>
+	 * Die Schl&uuml;ssel sind die Pfade relativ zum Verzeichnis mit &quot;/&quot; als Trennzeichen,
+	 * aufsteigend sortiert. Symbolische Links werden nicht verfolgt.
+	 *
+	 * @param verzeichnis das Verzeichnis
+	 * @return relativer Pfad &rarr; Pr&uuml;fsumme
+	 * @throws IOException wenn das Verzeichnis oder eine Datei nicht gelesen werden kann
+	 */
+	public SortedMap<String, String> erstelleManifest(File verzeichnis) throws IOException
+	{
+		Path wurzel = verzeichnis.toPath();
+
+		List<Path> dateien;
+
+		try (Stream<Path> eintraege = Files.walk(wurzel))
+		{
+			dateien = eintraege.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		catch (UncheckedIOException durchlaufFehler)
+		{
+			throw durchlaufFehler.getCause();
+		}
+
+		List<Callable<byte[]>> aufgaben = new ArrayList<>(dateien.size());
+
+		for (Path datei : dateien)
+		{
+			aufgaben.add(() -> {
+				Rechner rechner = erzeugeRechner();
+
+				MedysFileIO.leseDateiInBloecken(datei.toFile(), MedysFileIO.STANDARD_BLOCKGROESSE, rechner::aktualisiere);
+
+				return rechner.ergebnis();
+			});
+		}
+
+		List<byte[]> summen = fuehreAus(aufgaben);
+
+		SortedMap<String, String> manifest = new TreeMap<>();
+
+		for (int i = 0; i < dateien.size(); i++)
+		{
+			String relativ = wurzel.relativize(dateien.get(i)).toString().replace(File.separatorChar, '/');
+
+			manifest.put(relativ, zuHex(summen.get(i)));
+		}
+		return manifest;
+	}
+
+	/**
+	 * Speichert ein Manifest im Format von <code>sha256sum</code> bzw. <code>cksum</code>
+	 * (&quot;&lt;Pr&uuml;fsumme&gt;&nbsp;&nbsp;&lt;Pfad&gt;&quot; je Zeile, UTF-8)
+	 *
+	 * @param manifest das Manifest, siehe {@link #erstelleManifest(File)}
+	 * @param ziel die Datei, in die das Manifest geschrieben wird
+	 * @throws IOException wenn die Datei nicht geschrieben werden kann
+	 */
+	public static void speichereManifest(Map<String, String> manifest, File ziel) throws IOException
+	{
+		StringBuilder inhalt = new StringBuilder();
+
+		for (Map.Entry<String, String> eintrag : manifest.entrySet())
+		{
+			inhalt.append(eintrag.getValue()).append("  ").append(eintrag.getKey()).append('\n');
+		}
+		Files.write(ziel.toPath(), inhalt.toString().getBytes(StandardCharsets.UTF_8));
+
+		MedysFileIO.vergiss(ziel);
+	}
+
+	/**
+	 * Kopiert eine Datei und berechnet dabei die Pr&uuml;fsumme der kopierten Bytes.
+	 * <br><br>
+	 * Ein bereits existierendes Ziel wird &uuml;berschrieben.
+	 *
+	 * @param quelle die Datei, die kopiert werden soll
+	 * @param ziel die Zieldatei
+	 * @return die Pr&uuml;fsumme der kopierten Bytes als hexadezimale Zeichenkette
+	 * @throws IOException wenn die Datei nicht kopiert werden kann
+	 */
+	public String kopiere(File quelle, File ziel) throws IOException
+	{
+		Rechner rechner = erzeugeRechner();
+
+		try (FileChannel quellKanal = FileChannel.open(quelle.toPath(), StandardOpenOption.READ);
+			 FileChannel zielKanal = FileChannel.open(ziel.toPath(), StandardOpenOption.CREATE,
+					 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			MedysFileIO.leseKanalInBloecken(quellKanal, MedysFileIO.STANDARD_BLOCKGROESSE, block -> {
+				rechner.aktualisiere(block.duplicate());
+
+				while (block.hasRemaining())
+				{
+					zielKanal.write(block);
+				}
+			});
+		}
+		finally
+		{
+			MedysFileIO.vergiss(ziel);
+		}
+		return zuHex(rechner.ergebnis());
+	}
+
+	/**
+	 * Kopiert eine Datei wie {@link #kopiere(File, File)} und vergleicht die dabei berechnete
+	 * Pr&uuml;fsumme mit einer erwarteten Pr&uuml;fsumme.
+	 * <br><br>
+	 * Stimmen die Pr&uuml;fsummen nicht &uuml;berein, so wird die Zieldatei entfernt.
+	 *
+	 * @param quelle die Datei, die kopiert werden soll
+	 * @param ziel die Zieldatei
+	 * @param erwartet die erwartete Pr&uuml;fsumme als hexadezimale Zeichenkette
+	 * @throws IOException wenn die Datei nicht kopiert werden kann oder die Pr&uuml;fsummen abweichen
+	 */
+	public void kopiere(File quelle, File ziel, String erwartet) throws IOException
+	{
+		String berechnet = kopiere(quelle, ziel);
+
+		if (!berechnet.equalsIgnoreCase(erwartet))
+		{
+			Files.deleteIfExists(ziel.toPath());
+
+			MedysFileIO.vergiss(ziel);
+
+			throw new IOException("IOException aus MedysPruefsumme.kopiere\nDie Prüfsumme von " + quelle.getName()
+					+ " weicht ab: erwartet " + erwartet + ", berechnet " + berechnet);
+		}
+	}
+
+	/**
+	 * Wandelt Bytes in eine hexadezimale Zeichenkette in Kleinbuchstaben
+	 *
+	 * @param bytes die Bytes
+	 * @return die hexadezimale Darstellung
+	 */
+	public static String zuHex(byte[] bytes)
+	{
+		char[] zeichen = new char[bytes.length * 2];
+
+		for (int i = 0; i < bytes.length; i++)
+		{
+			zeichen[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+			zeichen[2 * i + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+		}
+		return new String(zeichen);
+	}
+
+	/*
+	 * liest einen Bereich der Datei mit positionellen Lesezugriffen, der Kanal wird von allen Segmenten geteilt
+	 */
+	private byte[] berechneBereich(FileChannel kanal, long von, long laenge) throws IOException
+	{
+		Rechner rechner = erzeugeRechner();
+
+		ByteBuffer puffer = MedysPufferPool.leiheDirekt(MedysFileIO.STANDARD_BLOCKGROESSE);
+
+		try
+		{
+			long position = von;
+			long ende = von + laenge;
+
+			while (position < ende)
+			{
+				puffer.clear().limit((int) Math.min(MedysFileIO.STANDARD_BLOCKGROESSE, ende - position));
+
+				int gelesen = kanal.read(puffer, position);
+
+				if (gelesen < 0)
+				{
+					break;
+				}
+				puffer.flip();
+
+				rechner.aktualisiere(puffer);
+
+				position += gelesen;
+			}
+		}
+		finally
+		{
+			MedysPufferPool.gibZurueck(puffer);
+		}
+		return rechner.ergebnis();
+	}
+
+	/*
+	 * führt die Aufgaben auf einem eigenen Pool aus und liefert die Ergebnisse in Reihenfolge der Aufgaben
+	 */
+	private List<byte[]> fuehreAus(List<Callable<byte[]>> aufgaben) throws IOException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelitaet, aufgaben.size())));
+
+		try
+		{
+			List<byte[]> ergebnisse = new ArrayList<>(aufgaben.size());
+
+			for (Future<byte[]> ergebnis : pool.invokeAll(aufgaben))
+			{
+				ergebnisse.add(ergebnis.get());
+			}
+			return ergebnisse;
+		}
+		catch (InterruptedException unterbrochen)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new InterruptedIOException("Prüfsummenberechnung wurde unterbrochen");
+		}
+		catch (ExecutionException fehler)
+		{
+			Throwable ursache = fehler.getCause();
+
+			throw ursache instanceof IOException ? (IOException) ursache : new IOException(ursache);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private Rechner erzeugeRechner()
+	{
+		if (verfahren == Verfahren.CRC32C)
+		{
+			Checksum crc = erzeugeCrc32c();
+
+			return new Rechner()
+			{
+				@Override
+				public void aktualisiere(ByteBuffer block)
+				{
+					aktualisiereCrc32c(crc, block);
+				}
+
+				@Override
+				public byte[] ergebnis()
+				{
+					return ByteBuffer.allocate(4).putInt((int) crc.getValue()).array();
+				}
+			};
+		}
+
+		try
+		{
+			MessageDigest sha = MessageDigest.getInstance("SHA-256");
+
+			return new Rechner()
+			{
+				@Override
+				public void aktualisiere(ByteBuffer block)
+				{
+					sha.update(block);
+				}
+
+				@Override
+				public byte[] ergebnis()
+				{
+					return sha.digest();
+				}
+			};
+		}
+		catch (NoSuchAlgorithmException nichtVorhanden)
+		{
+			// jede Java-Plattform muß SHA-256 anbieten
+			//
+			throw new IllegalStateException(nichtVorhanden);
+		}
+	}
+
+	private static Checksum erzeugeCrc32c()
+	{
+		if (CRC32C_KONSTRUKTOR != null)
+		{
+			try
+			{
+				return (Checksum) CRC32C_KONSTRUKTOR.newInstance();
+			}
+			catch (ReflectiveOperationException nichtVerfuegbar)
+			{
+				// dann eben in Software
+				//
+			}
+		}
+		return new SoftwareCrc32c();
+	}
+
+	/*
+	 * übergibt einen Block ohne Kopie an CRC32C#update(ByteBuffer), unter Java 8 blockweise über ein byte[]
+	 */
+	private static void aktualisiereCrc32c(Checksum crc, ByteBuffer block)
+	{
+		if ((CRC32C_UPDATE != null) && !(crc instanceof SoftwareCrc32c))
+		{
+			try
+			{
+				CRC32C_UPDATE.invoke(crc, block);
+				return;
+			}
+			catch (IllegalAccessException | InvocationTargetException fehler)
+			{
+				throw new IllegalStateException(fehler);
+			}
+		}
+
+		if (block.hasArray())
+		{
+			crc.update(block.array(), block.arrayOffset() + block.position(), block.remaining());
+			block.position(block.limit());
+			return;
+		}
+
+		byte[] zwischen = new byte[Math.min(block.remaining(), 8192)];
+
+		while (block.hasRemaining())
+		{
+			int n = Math.min(zwischen.length, block.remaining());
+
+			block.get(zwischen, 0, n);
+			crc.update(zwischen, 0, n);
+		}
+	}
+
+	private interface Rechner
+	{
+		void aktualisiere(ByteBuffer block);
+
+		byte[] ergebnis();
+	}
+
+	/*
+	 * CRC32C (Castagnoli, Polynom 0x1EDC6F41) über eine Tabelle, für Laufzeitumgebungen ohne java.util.zip.CRC32C
+	 */
+	private static final class SoftwareCrc32c implements Checksum
+	{
+		private static final int[] TABELLE = new int[256];
+
+		static
+		{
+			for (int i = 0; i < TABELLE.length; i++)
+			{
+				int wert = i;
+
+				for (int bit = 0; bit < 8; bit++)
+				{
+					wert = (wert & 1) != 0 ? (wert >>> 1) ^ 0x82F63B78 : wert >>> 1;
+				}
+				TABELLE[i] = wert;
+			}
+		}
+
+		private int crc = 0xFFFFFFFF;
+
+		@Override
+		public void update(int b)
+		{
+			crc = (crc >>> 8) ^ TABELLE[(crc ^ b) & 0xFF];
+		}
+
+		@Override
+		public void update(byte[] b, int off, int len)
+		{
+			int wert = crc;
+
+			for (int i = off; i < off + len; i++)
+			{
+				wert = (wert >>> 8) ^ TABELLE[(wert ^ b[i]) & 0xFF];
+			}
+			crc = wert;
+		}
+
+		@Override
+		public long getValue()
+		{
+			return ~crc & 0xFFFFFFFFL;
+		}
+
+		@Override
+		public void reset()
+		{
+			crc = 0xFFFFFFFF;
+		}
+	}
+}
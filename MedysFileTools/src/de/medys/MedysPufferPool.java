@@ -0,0 +1,355 @@
+package de.medys;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gemeinsamer Puffer-Pool f&uuml;r alle Ein-/Ausgabe- und Kompressionsroutinen.
+ * <br><br>
+ * Puffer werden in Gr&ouml;&szlig;enklassen (Zweierpotenzen von {@link #KLEINSTE_KLASSE} bis {@link #GROESSTE_KLASSE})
+ * verwaltet und k&ouml;nnen als Heap-Puffer (<code>byte[]</code>) oder als direkte {@link ByteBuffer} geliehen werden.
+ * <br><br>
+ * <u>Aufbau</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>jeder Thread besitzt einen kleinen, eigenen Zwischenspeicher je Gr&ouml;&szlig;enklasse, so da&szlig;
+ * 			wiederholtes Leihen und Zur&uuml;ckgeben ohne Synchronisation erfolgt</li>
+ * 		<li>ist dieser voll oder leer, so wird auf einen gemeinsamen, begrenzten Pool zugegriffen</li>
+ * 		<li>Anfragen gr&ouml;&szlig;er als {@link #GROESSTE_KLASSE} werden nicht gepoolt</li>
+ * 		<li>zur&uuml;ckgenommen werden nur Puffer, die der Pool verliehen hat, und jeder nur einmal. Fremde
+ * 			oder doppelt zur&uuml;ckgegebene Puffer werden ignoriert, so da&szlig; sich nie zwei Entleiher
+ * 			denselben Speicher teilen</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * <u>Nutzung</u>
+ * <blockquote>
+ * 	<pre>
+ * byte[] puffer = MedysPufferPool.leiheHeap(8192);
+ * try
+ * {
+ *     ...
+ * }
+ * finally
+ * {
+ *     MedysPufferPool.gibZurueck(puffer);
+ * }
+ * 	</pre>
+ * 	Ein zur&uuml;ckgegebener Puffer darf danach nicht mehr benutzt werden.
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public final class MedysPufferPool
+{
+	/**
+	 * kleinste Gr&ouml;&szlig;enklasse (4 KB)
+	 */
+	public static final int KLEINSTE_KLASSE = 4 * 1024;
+
+	/**
+	 * gr&ouml;&szlig;te Gr&ouml;&szlig;enklasse (1 MB)
+	 */
+	public static final int GROESSTE_KLASSE = 1024 * 1024;
+
+	private static final int ANZAHL_KLASSEN = Integer.numberOfTrailingZeros(GROESSTE_KLASSE)
+			- Integer.numberOfTrailingZeros(KLEINSTE_KLASSE) + 1;
+
+	/*
+	 * maximale Anzahl Puffer je Klasse im Thread-Zwischenspeicher bzw. im gemeinsamen Pool
+	 */
+	private static final int MAX_JE_THREAD = 4;
+	private static final int MAX_GEMEINSAM = 32;
+
+	private static final Klasse<byte[]>[] HEAP = erzeugeKlassen();
+	private static final Klasse<ByteBuffer>[] DIREKT = erzeugeKlassen();
+
+	private static final ThreadLocal<Object[][]> HEAP_JE_THREAD =
+			ThreadLocal.withInitial(() -> new Object[ANZAHL_KLASSEN][MAX_JE_THREAD]);
+	private static final ThreadLocal<Object[][]> DIREKT_JE_THREAD =
+			ThreadLocal.withInitial(() -> new Object[ANZAHL_KLASSEN][MAX_JE_THREAD]);
+
+	/*
+	 * die zurzeit verliehenen Puffer, schwach referenziert, damit nie zurückgegebene Puffer nicht festgehalten werden
+	 */
+	private static final Set<Verliehen> VERLIEHEN = ConcurrentHashMap.newKeySet();
+	private static final ReferenceQueue<Object> VERLOREN = new ReferenceQueue<>();
+
+	private MedysPufferPool()
+	{
+	}
+
+	/**
+	 * Leiht einen Heap-Puffer mit mindestens der angegebenen Gr&ouml;&szlig;e.
+	 *
+	 * @param mindestGroesse die ben&ouml;tigte Gr&ouml;&szlig;e in Bytes
+	 * @return ein Puffer, dessen L&auml;nge mindestens <code>mindestGroesse</code> ist (Inhalt undefiniert)
+	 */
+	public static byte[] leiheHeap(int mindestGroesse)
+	{
+		int klasse = gibKlasse(mindestGroesse);
+
+		if (klasse < 0)
+		{
+			return new byte[mindestGroesse];
+		}
+
+		byte[] puffer = (byte[]) entnehme(HEAP_JE_THREAD.get()[klasse]);
+
+		if (puffer == null)
+		{
+			puffer = HEAP[klasse].entnehme();
+		}
+		return merke(puffer != null ? puffer : new byte[KLEINSTE_KLASSE << klasse]);
+	}
+
+	/**
+	 * Gibt einen durch {@link #leiheHeap(int)} geliehenen Puffer zur&uuml;ck.
+	 * <br><br>
+	 * Puffer, die nicht vom Pool verliehen wurden (z.B. solche, die keiner Gr&ouml;&szlig;enklasse entsprechen),
+	 * bereits zur&uuml;ckgegebene Puffer sowie <code>NULL</code> werden ignoriert.
+	 *
+	 * @param puffer der zur&uuml;ckzugebende Puffer
+	 */
+	public static void gibZurueck(byte[] puffer)
+	{
+		if ((puffer != null) && nimmZurueck(puffer))
+		{
+			int klasse = gibExakteKlasse(puffer.length);
+
+			if ((klasse >= 0) && !ablegen(HEAP_JE_THREAD.get()[klasse], puffer))
+			{
+				HEAP[klasse].ablegen(puffer);
+			}
+		}
+	}
+
+	/**
+	 * Leiht einen direkten {@link ByteBuffer} mit mindestens der angegebenen Kapazit&auml;t.
+	 *
+	 * @param mindestGroesse die ben&ouml;tigte Kapazit&auml;t in Bytes
+	 * @return ein geleerter ({@link ByteBuffer#clear()}) direkter Puffer
+	 */
+	public static ByteBuffer leiheDirekt(int mindestGroesse)
+	{
+		int klasse = gibKlasse(mindestGroesse);
+
+		if (klasse < 0)
+		{
+			return merke(ByteBuffer.allocateDirect(mindestGroesse));
+		}
+
+		ByteBuffer puffer = (ByteBuffer) entnehme(DIREKT_JE_THREAD.get()[klasse]);
+
+		if (puffer == null)
+		{
+			puffer = DIREKT[klasse].entnehme();
+		}
+		if (puffer == null)
+		{
+			puffer = ByteBuffer.allocateDirect(KLEINSTE_KLASSE << klasse);
+		}
+		puffer.clear();
+
+		return merke(puffer);
+	}
+
+	/**
+	 * Gibt einen durch {@link #leiheDirekt(int)} geliehenen Puffer zur&uuml;ck.
+	 * <br><br>
+	 * Nicht gepoolte direkte Puffer (gr&ouml;&szlig;er als {@link #GROESSTE_KLASSE}) werden sofort
+	 * freigegeben. Puffer, die nicht vom Pool verliehen wurden (z.B. das Ergebnis von
+	 * {@link MedysFileIO#gibDateiInhaltDirekt(java.io.File)}), bereits zur&uuml;ckgegebene Puffer sowie
+	 * <code>NULL</code> werden ignoriert.
+	 *
+	 * @param puffer der zur&uuml;ckzugebende Puffer
+	 */
+	public static void gibZurueck(ByteBuffer puffer)
+	{
+		if ((puffer != null) && nimmZurueck(puffer))
+		{
+			int klasse = gibExakteKlasse(puffer.capacity());
+
+			if (klasse < 0)
+			{
+				MedysMappedDatei.gibFrei(puffer);
+			}
+			else if (!ablegen(DIREKT_JE_THREAD.get()[klasse], puffer))
+			{
+				DIREKT[klasse].ablegen(puffer);
+			}
+		}
+	}
+
+	/*
+	 * Index der kleinsten Klasse, die mindestGroesse aufnehmen kann, -1 wenn zu groß
+	 */
+	private static int gibKlasse(int mindestGroesse)
+	{
+		if (mindestGroesse < 0)
+		{
+			throw new IllegalArgumentException("Ungültige Puffergröße " + mindestGroesse);
+		}
+		if (mindestGroesse > GROESSTE_KLASSE)
+		{
+			return -1;
+		}
+		if (mindestGroesse <= KLEINSTE_KLASSE)
+		{
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(mindestGroesse - 1) - Integer.numberOfTrailingZeros(KLEINSTE_KLASSE);
+	}
+
+	/*
+	 * Index der Klasse, die genau der Größe entspricht, sonst -1
+	 */
+	private static int gibExakteKlasse(int groesse)
+	{
+		return (groesse >= KLEINSTE_KLASSE) && (groesse <= GROESSTE_KLASSE) && (Integer.bitCount(groesse) == 1)
+				? Integer.numberOfTrailingZeros(groesse) - Integer.numberOfTrailingZeros(KLEINSTE_KLASSE)
+				: -1;
+	}
+
+	/*
+	 * vermerkt einen Puffer als verliehen und räumt dabei Einträge nie zurückgegebener Puffer ab
+	 */
+	private static <T> T merke(T puffer)
+	{
+		Reference<?> verloren;
+
+		while ((verloren = VERLOREN.poll()) != null)
+		{
+			VERLIEHEN.remove(verloren);
+		}
+
+		VERLIEHEN.add(new Verliehen(puffer, VERLOREN));
+
+		return puffer;
+	}
+
+	/*
+	 * false wenn der Puffer nicht (mehr) verliehen ist, also fremd ist oder bereits zurückgegeben wurde
+	 */
+	private static boolean nimmZurueck(Object puffer)
+	{
+		return VERLIEHEN.remove(new Verliehen(puffer, null));
+	}
+
+	private static Object entnehme(Object[] stapel)
+	{
+		for (int i = stapel.length - 1; i >= 0; i--)
+		{
+			Object puffer = stapel[i];
+
+			if (puffer != null)
+			{
+				stapel[i] = null;
+				return puffer;
+			}
+		}
+		return null;
+	}
+
+	private static boolean ablegen(Object[] stapel, Object puffer)
+	{
+		for (int i = 0; i < stapel.length; i++)
+		{
+			if (stapel[i] == null)
+			{
+				stapel[i] = puffer;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <T> Klasse<T>[] erzeugeKlassen()
+	{
+		Klasse<T>[] klassen = new Klasse[ANZAHL_KLASSEN];
+
+		for (int i = 0; i < klassen.length; i++)
+		{
+			klassen[i] = new Klasse<>();
+		}
+		return klassen;
+	}
+
+	/*
+	 * schwache Referenz auf einen verliehenen Puffer mit Vergleich über die Identität, da ByteBuffer#equals
+	 * den Inhalt vergleicht
+	 */
+	private static final class Verliehen extends WeakReference<Object>
+	{
+		private final int hash;
+
+		Verliehen(Object puffer, ReferenceQueue<Object> warteschlange)
+		{
+			super(puffer, warteschlange);
+
+			hash = System.identityHashCode(puffer);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object anderes)
+		{
+			if (this == anderes)
+			{
+				return true;
+			}
+			if (!(anderes instanceof Verliehen))
+			{
+				return false;
+			}
+			Object puffer = get();
+
+			return (puffer != null) && (puffer == ((Verliehen) anderes).get());
+		}
+	}
+
+	/*
+	 * gemeinsamer, begrenzter Pool einer Größenklasse
+	 */
+	private static final class Klasse<T>
+	{
+		private final ConcurrentLinkedQueue<T> frei = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger anzahl = new AtomicInteger();
+
+		T entnehme()
+		{
+			T puffer = frei.poll();
+
+			if (puffer != null)
+			{
+				anzahl.decrementAndGet();
+			}
+			return puffer;
+		}
+
+		void ablegen(T puffer)
+		{
+			if (anzahl.incrementAndGet() <= MAX_GEMEINSAM)
+			{
+				frei.offer(puffer);
+			}
+			else
+			{
+				anzahl.decrementAndGet();
+			}
+		}
+	}
+}
@@ -0,0 +1,465 @@
+package de.medys;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * F&uuml;hrt viele voneinander unabh&auml;ngige Dateioperationen (Kopieren, Entfernen, Umbenennen,
+ * Schreiben) gleichzeitig aus.
+ * <br><br>
+ * Jede Operation ruft die entsprechende statische Methode von {@link MedysFileIO} auf, so da&szlig; sich das
+ * Verhalten einer einzelnen Operation nicht vom direkten Aufruf unterscheidet.
+ * <br><br>
+ * <u>Ausf&uuml;hrung</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>ab Java 21 l&auml;uft jede Operation auf einem eigenen virtuellen Thread</li>
+ * 		<li>auf &auml;lteren Laufzeitumgebungen wird ein Thread-Pool mit so vielen Threads genutzt, wie
+ * 			Operationen gleichzeitig laufen d&uuml;rfen</li>
+ * 		<li>die Anzahl gleichzeitig laufender Operationen ist in beiden F&auml;llen durch einen
+ * 			{@link Semaphore} begrenzt</li>
+ * 		<li>Fehler einzelner Operationen brechen den Stapel nicht ab, sondern werden im {@link Ergebnis}
+ * 			der jeweiligen Operation gemeldet</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Beispiel:
+ * <blockquote>
+ * 	<code>
+ * 		List&lt;MedysStapelVerarbeitung.Operation&gt; operationen = new ArrayList&lt;&gt;();<br>
+ * 		operationen.add(MedysStapelVerarbeitung.Operation.kopiere("C:\\ziel", scan));<br>
+ * 		operationen.add(MedysStapelVerarbeitung.Operation.entferne("C:\\temp\\alt.tmp"));<br>
+ * 		MedysStapelVerarbeitung.Ergebnis ergebnis = new MedysStapelVerarbeitung(64).fuehreAus(operationen);
+ * 	</code>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysStapelVerarbeitung
+{
+	private static final Method VIRTUELLE_THREADS = sucheVirtuelleThreads();
+
+	private final int maxGleichzeitig;
+
+	/**
+	 * Erstellt eine Stapelverarbeitung mit einer Obergrenze gleichzeitig laufender Operationen
+	 *
+	 * @param maxGleichzeitig die maximale Anzahl gleichzeitig laufender Operationen (mindestens 1)
+	 */
+	public MedysStapelVerarbeitung(int maxGleichzeitig)
+	{
+		if (maxGleichzeitig < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Anzahl gleichzeitiger Operationen " + maxGleichzeitig);
+		}
+		this.maxGleichzeitig = maxGleichzeitig;
+	}
+
+	/**
+	 * @return die maximale Anzahl gleichzeitig laufender Operationen
+	 */
+	public int gibMaxGleichzeitig()
+	{
+		return maxGleichzeitig;
+	}
+
+	/**
+	 * @return <code>true</code> wenn die Laufzeitumgebung virtuelle Threads anbietet und diese genutzt werden,
+	 * 			sonst <code>false</code>
+	 */
+	public static boolean nutztVirtuelleThreads()
+	{
+		return VIRTUELLE_THREADS != null;
+	}
+
+	/**
+	 * F&uuml;hrt alle Operationen aus und kehrt zur&uuml;ck, wenn jede Operation beendet ist.
+	 * <br><br>
+	 * Die Reihenfolge der Einzelergebnisse entspricht der Reihenfolge der &uuml;bergebenen Operationen.
+	 * Wird der aufrufende Thread unterbrochen, so werden noch nicht gestartete Operationen nicht mehr
+	 * ausgef&uuml;hrt und als fehlgeschlagen gemeldet.
+	 *
+	 * @param operationen die Operationen, die ausgef&uuml;hrt werden sollen
+	 * @return das Ergebnis mit den Einzelergebnissen und der Gesamtdauer
+	 */
+	public Ergebnis fuehreAus(List<Operation> operationen)
+	{
+		long start = System.nanoTime();
+
+		Einzelergebnis[] einzelergebnisse = new Einzelergebnis[operationen.size()];
+
+		Semaphore freiePlaetze = new Semaphore(maxGleichzeitig);
+
+		CountDownLatch offen = new CountDownLatch(operationen.size());
+
+		ExecutorService executor = erzeugeExecutor();
+
+		try
+		{
+			for (int i = 0; i < operationen.size(); i++)
+			{
+				Operation operation = operationen.get(i);
+
+				int index = i;
+
+				try
+				{
+					// blockiert den einreichenden Thread, statt tausende wartende Aufgaben anzulegen
+					//
+					freiePlaetze.acquire();
+				}
+				catch (InterruptedException unterbrochen)
+				{
+					Thread.currentThread().interrupt();
+
+					for (int j = i; j < operationen.size(); j++)
+					{
+						einzelergebnisse[j] = new Einzelergebnis(operationen.get(j),
+								new InterruptedIOException("Stapelverarbeitung wurde unterbrochen"), 0L);
+						offen.countDown();
+					}
+					break;
+				}
+
+				executor.execute(() -> {
+					try
+					{
+						einzelergebnisse[index] = fuehreAus(operation);
+					}
+					finally
+					{
+						freiePlaetze.release();
+						offen.countDown();
+					}
+				});
+			}
+
+			warteAufEnde(offen);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		List<Einzelergebnis> liste = new ArrayList<>(einzelergebnisse.length);
+
+		for (Einzelergebnis einzelergebnis : einzelergebnisse)
+		{
+			liste.add(einzelergebnis);
+		}
+		return new Ergebnis(liste, System.nanoTime() - start);
+	}
+
+	private static Einzelergebnis fuehreAus(Operation operation)
+	{
+		long start = System.nanoTime();
+
+		try
+		{
+			operation.aufgabe.fuehreAus();
+
+			return new Einzelergebnis(operation, null, System.nanoTime() - start);
+		}
+		catch (Exception fehler)
+		{
+			return new Einzelergebnis(operation, fehler, System.nanoTime() - start);
+		}
+	}
+
+	/*
+	 * wartet auf alle bereits gestarteten Operationen, auch wenn der Thread unterbrochen wird
+	 */
+	private static void warteAufEnde(CountDownLatch offen)
+	{
+		boolean unterbrochen = false;
+
+		while (offen.getCount() > 0)
+		{
+			try
+			{
+				offen.await();
+			}
+			catch (InterruptedException e)
+			{
+				unterbrochen = true;
+			}
+		}
+
+		if (unterbrochen)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ExecutorService erzeugeExecutor()
+	{
+		if (VIRTUELLE_THREADS != null)
+		{
+			try
+			{
+				return (ExecutorService) VIRTUELLE_THREADS.invoke(null);
+			}
+			catch (ReflectiveOperationException | RuntimeException nichtVerfuegbar)
+			{
+				// auf den Thread-Pool zurückfallen
+			}
+		}
+
+		AtomicInteger nummer = new AtomicInteger();
+
+		return Executors.newFixedThreadPool(maxGleichzeitig, aufgabe -> {
+			Thread thread = new Thread(aufgabe, "MedysStapelVerarbeitung-" + nummer.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/*
+	 * Executors.newVirtualThreadPerTaskExecutor() existiert erst ab Java 21
+	 */
+	private static Method sucheVirtuelleThreads()
+	{
+		try
+		{
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		}
+		catch (NoSuchMethodException | SecurityException nichtVorhanden)
+		{
+			return null;
+		}
+	}
+
+	@FunctionalInterface
+	private interface Aufgabe
+	{
+		void fuehreAus() throws Exception;
+	}
+
+	/**
+	 * Eine einzelne Dateioperation innerhalb eines Stapels
+	 */
+	public static final class Operation
+	{
+		private final String beschreibung;
+
+		private final Aufgabe aufgabe;
+
+		private Operation(String beschreibung, Aufgabe aufgabe)
+		{
+			this.beschreibung = beschreibung;
+			this.aufgabe = aufgabe;
+		}
+
+		/**
+		 * Kopiert eine Datei in ein Zielverzeichnis, siehe {@link MedysFileIO#kopiereDatei(String, File)}
+		 *
+		 * @param zielVerzeichnis das Verzeichnis in das die Datei kopiert werden soll
+		 * @param datei die Datei, die kopiert werden soll
+		 * @return die Operation
+		 */
+		public static Operation kopiere(String zielVerzeichnis, File datei)
+		{
+			return new Operation("kopiere " + datei + " nach " + zielVerzeichnis,
+					() -> MedysFileIO.kopiereDatei(zielVerzeichnis, datei));
+		}
+
+		/**
+		 * Entfernt eine Datei, siehe {@link MedysFileIO#entferneDatei(String)}.
+		 * <br><br>
+		 * Existiert die Datei nicht, so schl&auml;gt die Operation fehl.
+		 *
+		 * @param absPathToFile absolute Verzeichnispfadangabe zur Datei
+		 * @return die Operation
+		 */
+		public static Operation entferne(String absPathToFile)
+		{
+			return new Operation("entferne " + absPathToFile, () -> {
+				if (!MedysFileIO.entferneDatei(absPathToFile))
+				{
+					throw new FileNotFoundException("Die Datei " + absPathToFile + " existiert nicht");
+				}
+			});
+		}
+
+		/**
+		 * Benennt eine Datei um, siehe {@link MedysPfadIO#benenneUm(java.nio.file.Path, String)}.
+		 * <br><br>
+		 * Existiert die Datei nicht oder kann sie nicht umbenannt werden, so schl&auml;gt die Operation fehl.
+		 *
+		 * @param dateiOrdner der Ordner, in dem sich die Datei befindet
+		 * @param dateiName der aktuelle Name der Datei
+		 * @param neuerName der neue Name der Datei
+		 * @return die Operation
+		 */
+		public static Operation benenneUm(String dateiOrdner, String dateiName, String neuerName)
+		{
+			return new Operation("benenne " + dateiName + " in " + neuerName + " um",
+					() -> MedysPfadIO.benenneUm(Paths.get(dateiOrdner, dateiName), neuerName));
+		}
+
+		/**
+		 * Schreibt einen Inhalt in eine existierende Datei, siehe
+		 * {@link MedysPfadIO#schreibInDatei(java.nio.file.Path, String, Charset, boolean)}.
+		 * <br><br>
+		 * Existiert die Datei nicht, ist der Inhalt <code>NULL</code> oder der Zeichensatz unbekannt, so schl&auml;gt
+		 * die Operation fehl.
+		 *
+		 * @param pfadZurDatei die absolute Pfadangabe zu einer Datei (inkl. Dateiname und Endung)
+		 * @param inhalt der Inhalt, der geschrieben werden soll
+		 * @param zeichensatz der Zeichensatz, der hier angewendet werden soll
+		 * @param alsAnhang ob der Inhalt ans Dateiende angeh&auml;ngt werden soll oder nicht
+		 * @return die Operation
+		 */
+		public static Operation schreibe(String pfadZurDatei, String inhalt, String zeichensatz, boolean alsAnhang)
+		{
+			return new Operation("schreibe in " + pfadZurDatei,
+					() -> {
+						if (inhalt == null)
+						{
+							throw new IOException("Der Inhalt für " + pfadZurDatei + " ist NULL");
+						}
+						MedysPfadIO.schreibInDatei(Paths.get(pfadZurDatei), inhalt, Charset.forName(zeichensatz), alsAnhang);
+					});
+		}
+
+		@Override
+		public String toString()
+		{
+			return beschreibung;
+		}
+	}
+
+	/**
+	 * Ergebnis einer einzelnen {@link Operation}
+	 */
+	public static final class Einzelergebnis
+	{
+		private final Operation operation;
+
+		private final Exception fehler;
+
+		private final long dauerNanos;
+
+		private Einzelergebnis(Operation operation, Exception fehler, long dauerNanos)
+		{
+			this.operation = operation;
+			this.fehler = fehler;
+			this.dauerNanos = dauerNanos;
+		}
+
+		/**
+		 * @return die ausgef&uuml;hrte Operation
+		 */
+		public Operation gibOperation()
+		{
+			return operation;
+		}
+
+		/**
+		 * @return <code>true</code> wenn die Operation ohne Fehler ausgef&uuml;hrt wurde, sonst <code>false</code>
+		 */
+		public boolean istErfolgreich()
+		{
+			return fehler == null;
+		}
+
+		/**
+		 * @return der Fehler der Operation, <code>NULL</code> wenn sie erfolgreich war
+		 */
+		public Exception gibFehler()
+		{
+			return fehler;
+		}
+
+		/**
+		 * @return die Dauer der Operation in Nanosekunden
+		 */
+		public long gibDauerNanos()
+		{
+			return dauerNanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return operation + (fehler == null ? ": ok" : ": " + fehler.getMessage());
+		}
+	}
+
+	/**
+	 * Ergebnis eines Stapels durch {@link MedysStapelVerarbeitung#fuehreAus(List)}
+	 */
+	public static final class Ergebnis
+	{
+		private final List<Einzelergebnis> einzelergebnisse;
+
+		private final long dauerNanos;
+
+		private Ergebnis(List<Einzelergebnis> einzelergebnisse, long dauerNanos)
+		{
+			this.einzelergebnisse = Collections.unmodifiableList(einzelergebnisse);
+			this.dauerNanos = dauerNanos;
+		}
+
+		/**
+		 * @return die Einzelergebnisse in der Reihenfolge der &uuml;bergebenen Operationen
+		 */
+		public List<Einzelergebnis> gibEinzelergebnisse()
+		{
+			return einzelergebnisse;
+		}
+
+		/**
+		 * @return die Anzahl der fehlgeschlagenen Operationen
+		 */
+		public int gibAnzahlFehlschlaege()
+		{
+			int anzahl = 0;
+
+			for (Einzelergebnis einzelergebnis : einzelergebnisse)
+			{
+				if (!einzelergebnis.istErfolgreich())
+				{
+					anzahl++;
+				}
+			}
+			return anzahl;
+		}
+
+		/**
+		 * @return <code>true</code> wenn alle Operationen erfolgreich waren, sonst <code>false</code>
+		 */
+		public boolean istVollstaendig()
+		{
+			return gibAnzahlFehlschlaege() == 0;
+		}
+
+		/**
+		 * @return die Dauer des gesamten Stapels in Nanosekunden
+		 */
+		public long gibDauerNanos()
+		{
+			return dauerNanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return einzelergebnisse.size() + " Operationen in " + (dauerNanos / 1_000_000) + " ms, "
+					+ gibAnzahlFehlschlaege() + " Fehler";
+		}
+	}
+}
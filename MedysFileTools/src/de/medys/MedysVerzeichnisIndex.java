@@ -0,0 +1,539 @@
+package de.medys;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stets aktueller Index eines Verzeichnisbaums im Arbeitsspeicher.
+ * <br><br>
+ * Der Baum wird einmal durchlaufen und Gr&ouml;&szlig;e, &Auml;nderungszeitpunkt und Typ jedes Eintrags
+ * in einer {@link ConcurrentHashMap} abgelegt. Ein {@link WatchService} h&auml;lt den Index danach aktuell,
+ * so da&szlig; Existenzpr&uuml;fungen und Verzeichnisinhalte ohne Zugriff auf das Dateisystem beantwortet
+ * werden.
+ * <br><br>
+ * <u>Regeln</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>die Anzahl der Eintr&auml;ge ist begrenzt. Ist die Grenze erreicht, so gilt der Index als
+ * 			unvollst&auml;ndig und unbekannte Pfadangaben werden am Dateisystem gepr&uuml;ft</li>
+ * 		<li>gehen Ereignisse verloren (OVERFLOW), so wird das betroffene Verzeichnis neu eingelesen</li>
+ * 		<li>&Auml;nderungen durch {@link MedysFileIO} werden sofort &uuml;bernommen, &Auml;nderungen von
+ * 			au&szlig;en sobald das Betriebssystem sie meldet</li>
+ * 		<li>symbolische Links werden wie bei {@link File} verfolgt, beim Einlesen ebenso wie beim Aktualisieren.
+ * 			Ein Link auf ein Verzeichnis erscheint als Verzeichnis mit dessen Inhalt, ein Link ohne Ziel als nicht
+ * 			vorhanden</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Durch {@link MedysFileIO#setzeVerzeichnisIndex(MedysVerzeichnisIndex)} beantworten die Pr&uuml;fmethoden
+ * von {@link MedysFileIO} ihre Anfragen f&uuml;r Pfadangaben unterhalb der Wurzel &uuml;ber diesen Index.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysVerzeichnisIndex implements Closeable
+{
+	private final Path wurzel;
+
+	private final int maxEintraege;
+
+	private final ConcurrentHashMap<Path, MedysDateiAttribute> eintraege = new ConcurrentHashMap<>();
+
+	private final ConcurrentHashMap<Path, Set<Path>> kinder = new ConcurrentHashMap<>();
+
+	private final WatchService watchService;
+
+	private final AtomicLong treffer = new AtomicLong();
+
+	private final AtomicLong dateisystemZugriffe = new AtomicLong();
+
+	private final AtomicLong neuscans = new AtomicLong();
+
+	private volatile boolean vollstaendig = true;
+
+	private volatile boolean neuscanLaeuft;
+
+	private volatile boolean geschlossen;
+
+	/**
+	 * Liest ein Verzeichnis mit allen Unterverzeichnissen ein und beginnt mit der Beobachtung
+	 *
+	 * @param verzeichnis die Wurzel des Index, z.B. das Arbeitsverzeichnis
+	 * @param maxEintraege die maximale Anzahl an Eintr&auml;gen im Index (mindestens 1)
+	 * @throws IOException wenn das Verzeichnis nicht existiert oder nicht beobachtet werden kann
+	 */
+	public MedysVerzeichnisIndex(File verzeichnis, int maxEintraege) throws IOException
+	{
+		if (maxEintraege < 1)
+		{
+			throw new IllegalArgumentException("Ungültige maximale Anzahl an Einträgen " + maxEintraege);
+		}
+
+		this.wurzel = verzeichnis.toPath().toAbsolutePath().normalize();
+		this.maxEintraege = maxEintraege;
+
+		if (!Files.isDirectory(wurzel))
+		{
+			throw new IOException("IOException aus MedysVerzeichnisIndex\nDas Verzeichnis " + wurzel + " existiert nicht!");
+		}
+
+		watchService = wurzel.getFileSystem().newWatchService();
+
+		scanne(wurzel);
+
+		Thread beobachter = new Thread(this::verarbeiteEreignisse, "MedysVerzeichnisIndex-Beobachter");
+		beobachter.setDaemon(true);
+		beobachter.start();
+	}
+
+	/**
+	 * @return die Wurzel des Index
+	 */
+	public Path gibWurzel()
+	{
+		return wurzel;
+	}
+
+	/**
+	 * @param pfad eine Pfadangabe
+	 * @return <code>true</code> wenn die Pfadangabe unterhalb der Wurzel liegt (oder die Wurzel ist)
+	 */
+	public boolean umfasst(Path pfad)
+	{
+		return (pfad != null) && umfasstNormalisiert(pfad.toAbsolutePath().normalize());
+	}
+
+	/*
+	 * wie umfasst(Path), die Pfadangabe ist bereits absolut und normalisiert
+	 */
+	boolean umfasstNormalisiert(Path schluessel)
+	{
+		return schluessel.startsWith(wurzel);
+	}
+
+	/**
+	 * Liefert die Attribute einer Pfadangabe aus dem Index.
+	 * <br><br>
+	 * Liegt die Pfadangabe au&szlig;erhalb der Wurzel oder ist der Index unvollst&auml;ndig und die
+	 * Pfadangabe unbekannt, so wird das Dateisystem befragt.
+	 *
+	 * @param pfad die Pfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute der Pfadangabe
+	 */
+	public MedysDateiAttribute gib(Path pfad)
+	{
+		if (pfad == null)
+		{
+			return MedysDateiAttribute.NICHT_VORHANDEN;
+		}
+
+		return gibNormalisiert(pfad.toAbsolutePath().normalize());
+	}
+
+	/*
+	 * wie gib(Path), die Pfadangabe ist bereits absolut und normalisiert (siehe MedysPfadIO.gibAttribute)
+	 */
+	MedysDateiAttribute gibNormalisiert(Path schluessel)
+	{
+		if (schluessel.startsWith(wurzel))
+		{
+			MedysDateiAttribute attribute = eintraege.get(schluessel);
+
+			if ((attribute != null) || istVerlaesslich())
+			{
+				treffer.incrementAndGet();
+
+				return attribute != null ? attribute : MedysDateiAttribute.NICHT_VORHANDEN;
+			}
+		}
+		dateisystemZugriffe.incrementAndGet();
+
+		return MedysDateiAttribute.lese(schluessel);
+	}
+
+	/**
+	 * Liefert die Attribute einer Verzeichnispfadangabe aus dem Index, siehe {@link #gib(Path)}
+	 *
+	 * @param pfad die Verzeichnispfadangabe zu einer Datei oder einem Verzeichnis
+	 * @return die Attribute der Pfadangabe
+	 */
+	public MedysDateiAttribute gib(String pfad)
+	{
+		return gib(MedysDateiAttribute.gibPfad(pfad));
+	}
+
+	/**
+	 * Liefert den Inhalt eines Verzeichnisses, aufsteigend sortiert
+	 *
+	 * @param verzeichnis das Verzeichnis
+	 * @return die Pfade der Eintr&auml;ge, eine leere Liste wenn das Verzeichnis nicht existiert
+	 * @throws IOException wenn das Verzeichnis au&szlig;erhalb des Index liegt und nicht gelesen werden kann
+	 */
+	public List<Path> gibInhalt(Path verzeichnis) throws IOException
+	{
+		Path schluessel = verzeichnis.toAbsolutePath().normalize();
+
+		Set<Path> inhalt = kinder.get(schluessel);
+
+		if ((inhalt != null) || (istVerlaesslich() && schluessel.startsWith(wurzel)))
+		{
+			treffer.incrementAndGet();
+
+			List<Path> liste = inhalt != null ? new ArrayList<>(inhalt) : new ArrayList<>();
+			Collections.sort(liste);
+
+			return liste;
+		}
+
+		dateisystemZugriffe.incrementAndGet();
+
+		if (!Files.isDirectory(schluessel))
+		{
+			return new ArrayList<>();
+		}
+
+		try (Stream<Path> eintraegeImVerzeichnis = Files.list(schluessel))
+		{
+			return eintraegeImVerzeichnis.sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * &Uuml;bernimmt den aktuellen Zustand einer Pfadangabe sofort in den Index, ohne auf die Meldung
+	 * des Betriebssystems zu warten. Neue Verzeichnisse werden mit ihrem Inhalt eingelesen.
+	 *
+	 * @param pfad die ge&auml;nderte Pfadangabe
+	 */
+	public void aktualisiere(Path pfad)
+	{
+		if (!umfasst(pfad))
+		{
+			return;
+		}
+
+		Path schluessel = pfad.toAbsolutePath().normalize();
+
+		MedysDateiAttribute attribute = MedysDateiAttribute.lese(schluessel);
+
+		if (!attribute.existiert())
+		{
+			entferne(schluessel);
+		}
+		else if (attribute.istVerzeichnis() && !kinder.containsKey(schluessel))
+		{
+			scanne(schluessel);
+		}
+		else
+		{
+			fuegeHinzu(schluessel, attribute);
+		}
+	}
+
+	/**
+	 * @return die aktuelle Anzahl der Eintr&auml;ge im Index
+	 */
+	public int gibAnzahlEintraege()
+	{
+		return eintraege.size();
+	}
+
+	/**
+	 * @return <code>false</code> wenn die maximale Anzahl an Eintr&auml;gen erreicht wurde und nicht alle
+	 * 			Eintr&auml;ge im Index enthalten sind bzw. der Index geschlossen wurde, sonst
+	 * 			<code>true</code>
+	 */
+	public boolean istVollstaendig()
+	{
+		return vollstaendig;
+	}
+
+	/**
+	 * @return die Anzahl der Anfragen, die aus dem Index beantwortet wurden
+	 */
+	public long gibTreffer()
+	{
+		return treffer.get();
+	}
+
+	/**
+	 * @return die Anzahl der Anfragen, die das Dateisystem befragen mu&szlig;ten
+	 */
+	public long gibDateisystemZugriffe()
+	{
+		return dateisystemZugriffe.get();
+	}
+
+	/**
+	 * @return die Anzahl der Verzeichnisse, die wegen verlorener Ereignisse neu eingelesen wurden
+	 */
+	public long gibAnzahlNeuscans()
+	{
+		return neuscans.get();
+	}
+
+	/**
+	 * Beendet die Beobachtung und verwirft den Index
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		geschlossen = true;
+
+		watchService.close();
+
+		synchronized (eintraege)
+		{
+			// ohne Einträge darf ein fehlender Eintrag nicht mehr als "existiert nicht" gelten
+			//
+			vollstaendig = false;
+
+			eintraege.clear();
+			kinder.clear();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return wurzel + ": " + eintraege.size() + " Einträge" + (vollstaendig ? "" : " (unvollständig)");
+	}
+
+	/*
+	 * liest ein Verzeichnis rekursiv ein und registriert jedes Verzeichnis vor dem Lesen seines Inhalts,
+	 * damit keine Änderung zwischen Registrierung und Lesen verloren geht. Links werden verfolgt, damit die
+	 * Attribute mit MedysDateiAttribute.lese(Path) in aktualisiere(Path) übereinstimmen
+	 */
+	private void scanne(Path verzeichnis)
+	{
+		try
+		{
+			Files.walkFileTree(verzeichnis, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+					new SimpleFileVisitor<Path>()
+			{
+				@Override
+				public FileVisitResult preVisitDirectory(Path unterverzeichnis, BasicFileAttributes attribute)
+				{
+					if (!fuegeHinzu(unterverzeichnis, MedysDateiAttribute.aus(attribute)))
+					{
+						return FileVisitResult.TERMINATE;
+					}
+
+					try
+					{
+						unterverzeichnis.register(watchService,
+								StandardWatchEventKinds.ENTRY_CREATE,
+								StandardWatchEventKinds.ENTRY_DELETE,
+								StandardWatchEventKinds.ENTRY_MODIFY);
+					}
+					catch (IOException | ClosedWatchServiceException nichtBeobachtbar)
+					{
+						// ohne Beobachtung kann der Index für dieses Verzeichnis nicht aktuell bleiben
+						//
+						vollstaendig = false;
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path datei, BasicFileAttributes attribute)
+				{
+					// nur ein Link ohne Ziel liefert trotz FOLLOW_LINKS seine eigenen Attribute
+					//
+					if (attribute.isSymbolicLink())
+					{
+						return FileVisitResult.CONTINUE;
+					}
+
+					return fuegeHinzu(datei, MedysDateiAttribute.aus(attribute))
+							? FileVisitResult.CONTINUE
+							: FileVisitResult.TERMINATE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path datei, IOException fehler)
+				{
+					if (fehler instanceof FileSystemLoopException)
+					{
+						// der Inhalt eines Links im Kreis fehlt im Index, Anfragen gehen dann an das Dateisystem
+						//
+						vollstaendig = false;
+					}
+
+					// sonst zwischenzeitlich gelöscht oder nicht lesbar
+					//
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException durchlaufFehler)
+		{
+			vollstaendig = false;
+		}
+	}
+
+	/*
+	 * liest ein Verzeichnis nach verlorenen Ereignissen vollständig neu ein
+	 */
+	private void scanneNeu(Path verzeichnis)
+	{
+		neuscans.incrementAndGet();
+
+		// bis der Teilbaum wieder eingelesen ist, werden unbekannte Pfadangaben im Dateisystem nachgeschlagen
+		//
+		neuscanLaeuft = true;
+
+		try
+		{
+			entferne(verzeichnis);
+
+			if (verzeichnis.equals(wurzel))
+			{
+				vollstaendig = true;
+			}
+
+			if (Files.isDirectory(verzeichnis))
+			{
+				scanne(verzeichnis);
+			}
+		}
+		finally
+		{
+			neuscanLaeuft = false;
+		}
+	}
+
+	/*
+	 * true wenn ein fehlender Eintrag bedeutet, daß die Pfadangabe nicht existiert
+	 */
+	private boolean istVerlaesslich()
+	{
+		return vollstaendig && !neuscanLaeuft && !geschlossen;
+	}
+
+	/*
+	 * false wenn die maximale Anzahl an Einträgen erreicht ist
+	 */
+	private boolean fuegeHinzu(Path pfad, MedysDateiAttribute attribute)
+	{
+		synchronized (eintraege)
+		{
+			if (!eintraege.containsKey(pfad) && (eintraege.size() >= maxEintraege))
+			{
+				vollstaendig = false;
+
+				return false;
+			}
+
+			eintraege.put(pfad, attribute);
+
+			if (attribute.istVerzeichnis())
+			{
+				kinder.computeIfAbsent(pfad, p -> ConcurrentHashMap.newKeySet());
+			}
+
+			if (!pfad.equals(wurzel))
+			{
+				kinder.computeIfAbsent(pfad.getParent(), p -> ConcurrentHashMap.newKeySet()).add(pfad);
+			}
+			return true;
+		}
+	}
+
+	private void entferne(Path pfad)
+	{
+		synchronized (eintraege)
+		{
+			entferneRekursiv(pfad);
+
+			Set<Path> geschwister = kinder.get(pfad.getParent());
+
+			if (geschwister != null)
+			{
+				geschwister.remove(pfad);
+			}
+		}
+	}
+
+	private void entferneRekursiv(Path pfad)
+	{
+		eintraege.remove(pfad);
+
+		Set<Path> inhalt = kinder.remove(pfad);
+
+		if (inhalt != null)
+		{
+			for (Path kind : inhalt)
+			{
+				entferneRekursiv(kind);
+			}
+		}
+	}
+
+	private void verarbeiteEreignisse()
+	{
+		try
+		{
+			while (true)
+			{
+				WatchKey schluessel = watchService.take();
+
+				Path verzeichnis = (Path) schluessel.watchable();
+
+				for (WatchEvent<?> ereignis : schluessel.pollEvents())
+				{
+					if (ereignis.kind() == StandardWatchEventKinds.OVERFLOW)
+					{
+						scanneNeu(verzeichnis);
+					}
+					else
+					{
+						Path eintrag = verzeichnis.resolve((Path) ereignis.context());
+
+						if (ereignis.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+						{
+							entferne(eintrag);
+						}
+						else
+						{
+							aktualisiere(eintrag);
+						}
+					}
+				}
+
+				// Änderungszeitpunkt des Verzeichnisses selbst
+				//
+				aktualisiere(verzeichnis);
+
+				if (!schluessel.reset())
+				{
+					entferne(verzeichnis);
+				}
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException beendet)
+		{
+			// Beobachtung beendet
+		}
+	}
+}
@@ -0,0 +1,355 @@
+package de.medys;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kopiert ein Verzeichnis rekursiv mit seinem gesamten Inhalt.
+ * <br><br>
+ * Der Verzeichnisbaum wird durch einen {@link ForkJoinPool} parallel durchlaufen (Work-Stealing), jede
+ * einzelne Datei wird durch {@link MedysFileIO#kopiereDateiinhalt(File, File)} ohne Umweg &uuml;ber den
+ * Heap kopiert.
+ * <br><br>
+ * <u>Regeln</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>Zeitstempel, DOS-Attribute und POSIX-Rechte werden &uuml;bernommen, soweit das Dateisystem
+ * 			sie unterst&uuml;tzt</li>
+ * 		<li>symbolische Links werden als Links kopiert und nicht verfolgt</li>
+ * 		<li>bereits existierende Dateien im Ziel werden &uuml;berschrieben</li>
+ * 		<li>Fehler einzelner Dateien brechen den Kopiervorgang nicht ab, sondern werden im
+ * 			{@link Ergebnis} gesammelt</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysVerzeichnisKopierer
+{
+	private final int parallelitaet;
+
+	/**
+	 * Erstellt einen Verzeichniskopierer, der so viele Threads nutzt, wie Prozessoren verf&uuml;gbar sind
+	 */
+	public MedysVerzeichnisKopierer()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Erstellt einen Verzeichniskopierer mit einer festen Anzahl paralleler Threads
+	 *
+	 * @param parallelitaet die Anzahl der Threads, die gleichzeitig kopieren (mindestens 1)
+	 */
+	public MedysVerzeichnisKopierer(int parallelitaet)
+	{
+		if (parallelitaet < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Parallelität " + parallelitaet);
+		}
+		this.parallelitaet = parallelitaet;
+	}
+
+	/**
+	 * Liefert die Anzahl der Threads, die gleichzeitig kopieren
+	 *
+	 * @return die Parallelit&auml;t dieses Kopierers
+	 */
+	public int gibParallelitaet()
+	{
+		return parallelitaet;
+	}
+
+	/**
+	 * Kopiert den Inhalt eines Verzeichnisses rekursiv in ein Zielverzeichnis.
+	 * <br><br>
+	 * Existiert das Zielverzeichnis nicht, so wird es angelegt.
+	 *
+	 * @param quelle das Verzeichnis, dessen Inhalt kopiert werden soll
+	 * @param ziel das Verzeichnis, in das der Inhalt kopiert werden soll
+	 * @return das {@link Ergebnis} des Kopiervorgangs
+	 * @throws IOException wenn die Quelle kein Verzeichnis ist oder das Ziel innerhalb der Quelle liegt
+	 */
+	public Ergebnis kopiere(File quelle, File ziel) throws IOException
+	{
+		if (!MedysFileIO.istVerzeichnisUndExistiert(quelle))
+		{
+			throw new IOException("IOException aus MedysVerzeichnisKopierer.kopiere(File, File)\nDas Verzeichnis "
+					+ quelle + " existiert nicht!");
+		}
+
+		Path quellPfad = quelle.toPath().toAbsolutePath().normalize();
+		Path zielPfad = ziel.toPath().toAbsolutePath().normalize();
+
+		if (zielPfad.startsWith(quellPfad))
+		{
+			throw new IOException("IOException aus MedysVerzeichnisKopierer.kopiere(File, File)\nDas Ziel "
+					+ zielPfad + " liegt innerhalb der Quelle " + quellPfad + "!");
+		}
+
+		Ergebnis ergebnis = new Ergebnis();
+
+		long start = System.nanoTime();
+
+		ForkJoinPool pool = new ForkJoinPool(parallelitaet);
+
+		try
+		{
+			pool.invoke(new VerzeichnisAufgabe(quellPfad, zielPfad, ergebnis));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		ergebnis.dauerNanos = System.nanoTime() - start;
+
+		return ergebnis;
+	}
+
+	/**
+	 * &Uuml;bernimmt Zeitstempel, DOS-Attribute und POSIX-Rechte einer Quelle auf ein Ziel, soweit
+	 * beide Dateisysteme diese unterst&uuml;tzen.
+	 *
+	 * @param quelle die Datei oder das Verzeichnis, dessen Attribute &uuml;bernommen werden
+	 * @param ziel die Datei oder das Verzeichnis, das die Attribute erh&auml;lt
+	 * @throws IOException wenn die Attribute nicht gelesen oder gesetzt werden konnten
+	 */
+	public static void kopiereAttribute(Path quelle, Path ziel) throws IOException
+	{
+		PosixFileAttributeView posixZiel = Files.getFileAttributeView(ziel, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+		DosFileAttributeView dosZiel = Files.getFileAttributeView(ziel, DosFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+
+		BasicFileAttributes attribute;
+
+		if (posixZiel != null)
+		{
+			PosixFileAttributes posix = Files.readAttributes(quelle, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			posixZiel.setPermissions(posix.permissions());
+			attribute = posix;
+		}
+		else if (dosZiel != null)
+		{
+			DosFileAttributes dos = Files.readAttributes(quelle, DosFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			dosZiel.setArchive(dos.isArchive());
+			dosZiel.setHidden(dos.isHidden());
+			dosZiel.setSystem(dos.isSystem());
+			attribute = dos;
+		}
+		else
+		{
+			attribute = Files.readAttributes(quelle, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		}
+
+		Files.getFileAttributeView(ziel, BasicFileAttributeView.class, LinkOption.NOFOLLOW_LINKS)
+				.setTimes(attribute.lastModifiedTime(), attribute.lastAccessTime(), attribute.creationTime());
+
+		if ((dosZiel != null) && (attribute instanceof DosFileAttributes))
+		{
+			// schreibgeschützt erst nach den Zeitstempeln setzen
+			dosZiel.setReadOnly(((DosFileAttributes) attribute).isReadOnly());
+		}
+	}
+
+	/*
+	 * kopiert ein Verzeichnis: legt das Ziel an, verteilt Dateien und Unterverzeichnisse als Teilaufgaben
+	 * und übernimmt die Attribute des Verzeichnisses erst, wenn sein Inhalt vollständig kopiert ist
+	 */
+	private static final class VerzeichnisAufgabe extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Path quelle;
+		private final Path ziel;
+		private final Ergebnis ergebnis;
+
+		VerzeichnisAufgabe(Path quelle, Path ziel, Ergebnis ergebnis)
+		{
+			this.quelle = quelle;
+			this.ziel = ziel;
+			this.ergebnis = ergebnis;
+		}
+
+		@Override
+		protected void compute()
+		{
+			List<RecursiveAction> teilaufgaben = new ArrayList<>();
+
+			try
+			{
+				Files.createDirectories(ziel);
+
+				try (DirectoryStream<Path> eintraege = Files.newDirectoryStream(quelle))
+				{
+					for (Path eintrag : eintraege)
+					{
+						Path zielEintrag = ziel.resolve(eintrag.getFileName().toString());
+
+						if (Files.isDirectory(eintrag, LinkOption.NOFOLLOW_LINKS))
+						{
+							teilaufgaben.add(new VerzeichnisAufgabe(eintrag, zielEintrag, ergebnis));
+						}
+						else
+						{
+							teilaufgaben.add(new DateiAufgabe(eintrag, zielEintrag, ergebnis));
+						}
+					}
+				}
+			}
+			catch (IOException verzeichnisFehler)
+			{
+				ergebnis.fehlschlaege.put(quelle, verzeichnisFehler);
+				return;
+			}
+
+			invokeAll(teilaufgaben);
+
+			try
+			{
+				kopiereAttribute(quelle, ziel);
+				ergebnis.verzeichnisse.incrementAndGet();
+			}
+			catch (IOException attributFehler)
+			{
+				ergebnis.fehlschlaege.put(quelle, attributFehler);
+			}
+		}
+	}
+
+	/*
+	 * kopiert eine einzelne Datei oder einen symbolischen Link
+	 */
+	private static final class DateiAufgabe extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Path quelle;
+		private final Path ziel;
+		private final Ergebnis ergebnis;
+
+		DateiAufgabe(Path quelle, Path ziel, Ergebnis ergebnis)
+		{
+			this.quelle = quelle;
+			this.ziel = ziel;
+			this.ergebnis = ergebnis;
+		}
+
+		@Override
+		protected void compute()
+		{
+			try
+			{
+				if (Files.isSymbolicLink(quelle))
+				{
+					Files.deleteIfExists(ziel);
+					Files.createSymbolicLink(ziel, Files.readSymbolicLink(quelle));
+				}
+				else
+				{
+					ergebnis.bytes.addAndGet(MedysFileIO.kopiereDateiinhalt(quelle.toFile(), ziel.toFile()));
+					kopiereAttribute(quelle, ziel);
+				}
+				ergebnis.dateien.incrementAndGet();
+			}
+			catch (IOException | UnsupportedOperationException dateiFehler)
+			{
+				ergebnis.fehlschlaege.put(quelle, dateiFehler instanceof IOException
+						? (IOException) dateiFehler
+						: new IOException(dateiFehler));
+			}
+		}
+	}
+
+	/**
+	 * Ergebnis eines Kopiervorgangs durch {@link MedysVerzeichnisKopierer#kopiere(File, File)}
+	 */
+	public static final class Ergebnis
+	{
+		private final AtomicLong dateien = new AtomicLong();
+		private final AtomicLong verzeichnisse = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+		private final Map<Path, IOException> fehlschlaege = new ConcurrentHashMap<>();
+		private long dauerNanos;
+
+		/**
+		 * @return die Anzahl der kopierten Dateien und Links
+		 */
+		public long gibAnzahlDateien()
+		{
+			return dateien.get();
+		}
+
+		/**
+		 * @return die Anzahl der kopierten Verzeichnisse (inkl. des Wurzelverzeichnisses)
+		 */
+		public long gibAnzahlVerzeichnisse()
+		{
+			return verzeichnisse.get();
+		}
+
+		/**
+		 * @return die Summe der kopierten Bytes
+		 */
+		public long gibBytes()
+		{
+			return bytes.get();
+		}
+
+		/**
+		 * @return die Dauer des gesamten Kopiervorgangs in Nanosekunden
+		 */
+		public long gibDauerNanos()
+		{
+			return dauerNanos;
+		}
+
+		/**
+		 * @return der Durchsatz &uuml;ber alle Threads in Bytes pro Sekunde
+		 */
+		public double gibBytesProSekunde()
+		{
+			return dauerNanos > 0 ? bytes.get() * 1_000_000_000d / dauerNanos : 0d;
+		}
+
+		/**
+		 * @return die Quellpfade, die nicht kopiert werden konnten, mit ihrem Fehler
+		 */
+		public Map<Path, IOException> gibFehlschlaege()
+		{
+			return Collections.unmodifiableMap(fehlschlaege);
+		}
+
+		/**
+		 * @return <code>true</code> wenn alle Eintr&auml;ge kopiert werden konnten, sonst <code>false</code>
+		 */
+		public boolean istVollstaendig()
+		{
+			return fehlschlaege.isEmpty();
+		}
+
+		@Override
+		public String toString()
+		{
+			return dateien + " Dateien, " + verzeichnisse + " Verzeichnisse, " + bytes + " Bytes in "
+					+ (dauerNanos / 1_000_000) + " ms (" + (long) gibBytesProSekunde() + " Bytes/s), "
+					+ fehlschlaege.size() + " Fehler";
+		}
+	}
+}
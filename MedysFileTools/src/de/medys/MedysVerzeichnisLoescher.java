@@ -0,0 +1,265 @@
+package de.medys;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * L&ouml;scht ein Verzeichnis mit seinem gesamten Inhalt.
+ * <br><br>
+ * Der Verzeichnisbaum wird durch {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)} genau einmal
+ * durchlaufen. Jede gefundene Datei wird sofort an einen Thread-Pool zum L&ouml;schen &uuml;bergeben, die
+ * Verzeichnisse werden anschlie&szlig;end von innen nach au&szlig;en entfernt.
+ * <br><br>
+ * <u>Regeln</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>symbolische Links werden als Links gel&ouml;scht und nicht verfolgt</li>
+ * 		<li>Fehler einzelner Eintr&auml;ge brechen den Vorgang nicht ab, sondern werden im
+ * 			{@link Ergebnis} gesammelt</li>
+ * 		<li>es erfolgt keine Ausgabe auf der Konsole</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysVerzeichnisLoescher
+{
+	private final int parallelitaet;
+
+	/**
+	 * Erstellt einen Verzeichnisl&ouml;scher, der so viele Threads nutzt, wie Prozessoren verf&uuml;gbar sind
+	 */
+	public MedysVerzeichnisLoescher()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Erstellt einen Verzeichnisl&ouml;scher mit einer festen Anzahl paralleler Threads
+	 *
+	 * @param parallelitaet die Anzahl der Threads, die gleichzeitig Dateien l&ouml;schen (mindestens 1)
+	 */
+	public MedysVerzeichnisLoescher(int parallelitaet)
+	{
+		if (parallelitaet < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Parallelität " + parallelitaet);
+		}
+		this.parallelitaet = parallelitaet;
+	}
+
+	/**
+	 * L&ouml;scht ein Verzeichnis mit seinem gesamten Inhalt oder eine einzelne Datei.
+	 * <br><br>
+	 * Existiert die Pfadangabe nicht, so wird ein leeres {@link Ergebnis} geliefert.
+	 *
+	 * @param pfad das Verzeichnis oder die Datei, die gel&ouml;scht werden soll
+	 * @return das Ergebnis mit Anzahl, Bytes und Fehlschl&auml;gen, eine Unterbrechung des Threads wird 
+	 * 			als Fehlschlag der Pfadangabe gemeldet
+	 */
+	public Ergebnis loesche(Path pfad)
+	{
+		Ergebnis ergebnis = new Ergebnis();
+
+		long start = System.nanoTime();
+
+		if (Files.exists(pfad, LinkOption.NOFOLLOW_LINKS))
+		{
+			List<Path> verzeichnisse = new ArrayList<>();
+
+			ExecutorService pool = Executors.newFixedThreadPool(parallelitaet);
+
+			try
+			{
+				Files.walkFileTree(pfad, new SimpleFileVisitor<Path>()
+				{
+					@Override
+					public FileVisitResult visitFile(Path datei, BasicFileAttributes attribute)
+					{
+						long groesse = attribute.isRegularFile() ? attribute.size() : 0L;
+
+						pool.execute(() -> loescheEintrag(datei, groesse, ergebnis));
+
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult visitFileFailed(Path datei, IOException fehler)
+					{
+						if (!(fehler instanceof NoSuchFileException))
+						{
+							ergebnis.fehlschlaege.put(datei, fehler);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+
+					@Override
+					public FileVisitResult postVisitDirectory(Path verzeichnis, IOException fehler)
+					{
+						if (fehler != null)
+						{
+							ergebnis.fehlschlaege.put(verzeichnis, fehler);
+						}
+						verzeichnisse.add(verzeichnis);
+
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			}
+			catch (IOException durchlaufFehler)
+			{
+				ergebnis.fehlschlaege.put(pfad, durchlaufFehler);
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+
+			if (!warteAufEnde(pool))
+			{
+				ergebnis.fehlschlaege.put(pfad, new InterruptedIOException("Löschen wurde unterbrochen"));
+				ergebnis.dauerNanos = System.nanoTime() - start;
+
+				return ergebnis;
+			}
+
+			// Post-Order: Unterverzeichnisse stehen immer vor ihren übergeordneten Verzeichnissen
+			//
+			for (Path verzeichnis : verzeichnisse)
+			{
+				loescheEintrag(verzeichnis, -1L, ergebnis);
+			}
+		}
+		ergebnis.dauerNanos = System.nanoTime() - start;
+
+		return ergebnis;
+	}
+
+	private static void loescheEintrag(Path eintrag, long groesse, Ergebnis ergebnis)
+	{
+		try
+		{
+			if (Files.deleteIfExists(eintrag))
+			{
+				if (groesse < 0)
+				{
+					ergebnis.verzeichnisse.incrementAndGet();
+				}
+				else
+				{
+					ergebnis.dateien.incrementAndGet();
+					ergebnis.bytes.addAndGet(groesse);
+				}
+			}
+		}
+		catch (IOException loeschFehler)
+		{
+			ergebnis.fehlschlaege.put(eintrag, loeschFehler);
+		}
+	}
+
+	/*
+	 * wartet, bis alle Dateien gelöscht sind, false wenn der Thread unterbrochen wurde
+	 */
+	private static boolean warteAufEnde(ExecutorService pool)
+	{
+		try
+		{
+			while (!pool.awaitTermination(1, TimeUnit.MINUTES))
+			{
+				// weiter warten
+			}
+			return true;
+		}
+		catch (InterruptedException unterbrochen)
+		{
+			pool.shutdownNow();
+			Thread.currentThread().interrupt();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Ergebnis eines L&ouml;schvorgangs durch {@link MedysVerzeichnisLoescher#loesche(Path)}
+	 */
+	public static final class Ergebnis
+	{
+		private final AtomicLong dateien = new AtomicLong();
+		private final AtomicLong verzeichnisse = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+		private final Map<Path, IOException> fehlschlaege = new ConcurrentHashMap<>();
+		private long dauerNanos;
+
+		/**
+		 * @return die Anzahl der gel&ouml;schten Dateien und Links
+		 */
+		public long gibAnzahlDateien()
+		{
+			return dateien.get();
+		}
+
+		/**
+		 * @return die Anzahl der gel&ouml;schten Verzeichnisse (inkl. des Wurzelverzeichnisses)
+		 */
+		public long gibAnzahlVerzeichnisse()
+		{
+			return verzeichnisse.get();
+		}
+
+		/**
+		 * @return die Summe der Gr&ouml;&szlig;en aller gel&ouml;schten Dateien in Bytes
+		 */
+		public long gibBytes()
+		{
+			return bytes.get();
+		}
+
+		/**
+		 * @return die Dauer des gesamten L&ouml;schvorgangs in Nanosekunden
+		 */
+		public long gibDauerNanos()
+		{
+			return dauerNanos;
+		}
+
+		/**
+		 * @return die Pfade, die nicht gel&ouml;scht werden konnten, mit ihrem Fehler
+		 */
+		public Map<Path, IOException> gibFehlschlaege()
+		{
+			return Collections.unmodifiableMap(fehlschlaege);
+		}
+
+		/**
+		 * @return <code>true</code> wenn alle Eintr&auml;ge gel&ouml;scht werden konnten, sonst <code>false</code>
+		 */
+		public boolean istVollstaendig()
+		{
+			return fehlschlaege.isEmpty();
+		}
+
+		@Override
+		public String toString()
+		{
+			return dateien + " Dateien, " + verzeichnisse + " Verzeichnisse, " + bytes + " Bytes in "
+					+ (dauerNanos / 1_000_000) + " ms gelöscht, " + fehlschlaege.size() + " Fehler";
+		}
+	}
+}
@@ -0,0 +1,432 @@
+package de.medys;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Index der Zeilenanf&auml;nge einer Textdatei f&uuml;r den wahlfreien Zugriff auf einzelne Zeilen.
+ * <br><br>
+ * Die Datei wird einmal blockweise durchlaufen und der Byte-Offset jedes Zeilenanfangs in einem
+ * <code>long[]</code> festgehalten. Danach ist jede Zeile bzw. jeder Zeilenbereich mit einem einzigen
+ * positionellen Lesezugriff erreichbar, ohne die Datei vollst&auml;ndig zu lesen.
+ * <br><br>
+ * <u>Regeln</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>Zeilen enden mit <code>\n</code> oder <code>\r\n</code>, das Zeilenende ist nicht Teil der Zeile</li>
+ * 		<li>der Index wird neben der Datei als &quot;&lt;Dateiname&gt;.zidx&quot; gespeichert und beim
+ * 			n&auml;chsten {@link #lade(File)} wiederverwendet</li>
+ * 		<li>ist die Datei gewachsen, so wird nur der neue Teil durchlaufen (z.B. bei Protokollen, die durch
+ * 			{@link MedysFileIO#schreibInDatei(String, String, String, boolean)} erweitert werden)</li>
+ * 		<li>ist die Datei geschrumpft oder wurde der bereits indizierte Teil ver&auml;ndert, so wird der Index neu
+ * 			aufgebaut. Bei ge&auml;ndertem &Auml;nderungszeitpunkt gilt das, wenn die Datei nicht gewachsen ist
+ * 			(ein Anh&auml;ngen vergr&ouml;&szlig;ert sie immer) oder die Pr&uuml;fsumme der ersten bzw. der zuletzt
+ * 			indizierten Bytes abweicht</li>
+ * 		<li>der Index wird &uuml;ber eine tempor&auml;re Datei geschrieben und atomar ersetzt, siehe
+ * 			{@link MedysAtomarSchreiber}</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH W&uuml;lfrath 2018
+ */
+public class MedysZeilenIndex
+{
+	/**
+	 * Endung der Indexdatei, die neben der indizierten Datei abgelegt wird
+	 */
+	public static final String INDEX_ENDUNG = ".zidx";
+
+	private static final int KENNUNG = 0x4D5A4958; // "MZIX"
+
+	private static final int VERSION = 3;
+
+	private static final int KOPF_GROESSE = 4 + 4 + 8 + 8 + 8 + 8 + 4;
+
+	private static final int PRUEF_GROESSE = 4096;
+
+	private final File datei;
+
+	private long[] anfaenge = new long[1024];
+
+	private int anzahl;
+
+	private long indexiertBis;
+
+	private long zuletztGeaendert;
+
+	private long pruefsumme;
+
+	private long kopfPruefsumme;
+
+	/**
+	 * Erstellt einen leeren Index f&uuml;r eine Datei, siehe {@link #lade(File)}
+	 *
+	 * @param datei die Textdatei, die indiziert werden soll
+	 */
+	private MedysZeilenIndex(File datei)
+	{
+		this.datei = datei;
+
+		setzeZurueck();
+	}
+
+	/**
+	 * L&auml;dt den gespeicherten Index einer Datei, erg&auml;nzt ihn um neu hinzugekommene Zeilen und
+	 * speichert ihn, falls er sich ge&auml;ndert hat.
+	 * <br><br>
+	 * Existiert noch kein (g&uuml;ltiger) Index, so wird er durch einen Durchlauf der Datei aufgebaut.
+	 *
+	 * @param datei die Textdatei, die indiziert werden soll
+	 * @return der aktuelle Index der Datei
+	 * @throws IOException wenn die Datei nicht gelesen oder der Index nicht gespeichert werden kann
+	 */
+	public static MedysZeilenIndex lade(File datei) throws IOException
+	{
+		MedysZeilenIndex index = new MedysZeilenIndex(datei);
+
+		index.leseIndexDatei();
+
+		long vorher = index.indexiertBis;
+		long vorherGeaendert = index.zuletztGeaendert;
+
+		index.aktualisiere();
+
+		if ((index.indexiertBis != vorher) || (index.zuletztGeaendert != vorherGeaendert)
+				|| !index.gibIndexDatei().exists())
+		{
+			index.speichere();
+		}
+		return index;
+	}
+
+	/**
+	 * Erg&auml;nzt den Index um die Zeilen, die seit dem letzten Durchlauf an die Datei angeh&auml;ngt
+	 * wurden. Ist die Datei kleiner als der bereits indizierte Bereich, ist sie nach einer &Auml;nderung nicht
+	 * gewachsen oder stimmen die ersten bzw. zuletzt indizierten Bytes nicht mehr mit den gespeicherten
+	 * Pr&uuml;fsummen &uuml;berein, so wird der Index neu aufgebaut.
+	 * <br><br>
+	 * Der Index wird hier <u>nicht</u> gespeichert, siehe {@link #speichere()}.
+	 *
+	 * @return die Anzahl der Zeilen nach der Aktualisierung
+	 * @throws IOException wenn die Datei nicht gelesen werden kann
+	 */
+	public synchronized int aktualisiere() throws IOException
+	{
+		// der Zeitpunkt wird vor dem Durchlauf gelesen, damit eine gleichzeitige Änderung beim nächsten Mal auffällt
+		//
+		long geaendert = Files.getLastModifiedTime(datei.toPath()).toMillis();
+
+		try (FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ))
+		{
+			long groesse = kanal.size();
+
+			if (groesse < indexiertBis)
+			{
+				setzeZurueck();
+			}
+			else if ((geaendert != zuletztGeaendert) && ((groesse == indexiertBis)
+					|| (gibPruefsumme(kanal, gibKopfEnde()) != kopfPruefsumme)
+					|| (gibPruefsumme(kanal, indexiertBis) != pruefsumme)))
+			{
+				// die Datei wurde überschrieben und nicht nur erweitert, ein Anhängen läßt sie immer wachsen
+				//
+				setzeZurueck();
+			}
+
+			kanal.position(indexiertBis);
+
+			MedysFileIO.leseKanalInBloecken(kanal, MedysFileIO.STANDARD_BLOCKGROESSE, block -> {
+				int start = block.position();
+				int ende = block.limit();
+
+				for (int i = start; i < ende; i++)
+				{
+					if (block.get(i) == '\n')
+					{
+						fuegeAnfangHinzu(indexiertBis + (i - start) + 1);
+					}
+				}
+				indexiertBis += ende - start;
+			});
+
+			pruefsumme = gibPruefsumme(kanal, indexiertBis);
+			kopfPruefsumme = gibPruefsumme(kanal, gibKopfEnde());
+			zuletztGeaendert = geaendert;
+		}
+		return gibAnzahlZeilen();
+	}
+
+	/**
+	 * Speichert den Index als &quot;&lt;Dateiname&gt;.zidx&quot; neben der Datei.
+	 * <br><br>
+	 * Die Indexdatei wird atomar ersetzt, bei einem Abbruch bleibt der bisherige Index erhalten.
+	 *
+	 * @throws IOException wenn die Indexdatei nicht geschrieben werden kann
+	 */
+	public synchronized void speichere() throws IOException
+	{
+		ByteBuffer inhalt = ByteBuffer.allocate(KOPF_GROESSE + anzahl * Long.BYTES);
+
+		inhalt.putInt(KENNUNG).putInt(VERSION).putLong(indexiertBis).putLong(zuletztGeaendert).putLong(pruefsumme)
+				.putLong(kopfPruefsumme).putInt(anzahl);
+
+		inhalt.asLongBuffer().put(anfaenge, 0, anzahl);
+
+		MedysAtomarSchreiber.schreibeEinzeln(gibIndexDatei(), inhalt.array());
+	}
+
+	/**
+	 * @return die indizierte Datei
+	 */
+	public File gibDatei()
+	{
+		return datei;
+	}
+
+	/**
+	 * @return die Datei, in der der Index gespeichert wird
+	 */
+	public File gibIndexDatei()
+	{
+		return new File(datei.getPath() + INDEX_ENDUNG);
+	}
+
+	/**
+	 * Liefert die Anzahl der Zeilen. Eine letzte Zeile ohne Zeilenende wird mitgez&auml;hlt,
+	 * ein Zeilenende am Dateiende er&ouml;ffnet dagegen keine weitere (leere) Zeile.
+	 *
+	 * @return die Anzahl der indizierten Zeilen
+	 */
+	public synchronized int gibAnzahlZeilen()
+	{
+		return anfaenge[anzahl - 1] < indexiertBis ? anzahl : anzahl - 1;
+	}
+
+	/**
+	 * @return die Anzahl der indizierten Bytes der Datei
+	 */
+	public synchronized long gibIndexiertBis()
+	{
+		return indexiertBis;
+	}
+
+	/**
+	 * Liefert den Byte-Offset des Anfangs einer Zeile
+	 *
+	 * @param zeile die Nummer der Zeile (beginnend bei 0)
+	 * @return der Offset des ersten Bytes der Zeile in der Datei
+	 */
+	public synchronized long gibZeilenAnfang(int zeile)
+	{
+		pruefeBereich(zeile, 1);
+
+		return anfaenge[zeile];
+	}
+
+	/**
+	 * Liest eine einzelne Zeile mit einem positionellen Lesezugriff
+	 *
+	 * @param zeile die Nummer der Zeile (beginnend bei 0)
+	 * @param zeichensatz der Zeichensatz der Datei
+	 * @return die Zeile ohne Zeilenende
+	 * @throws IOException wenn die Datei nicht gelesen werden kann
+	 */
+	public String gibZeile(int zeile, Charset zeichensatz) throws IOException
+	{
+		return gibZeilen(zeile, 1, zeichensatz).get(0);
+	}
+
+	/**
+	 * Liest einen zusammenh&auml;ngenden Bereich von Zeilen mit einem einzigen positionellen Lesezugriff
+	 *
+	 * @param von die Nummer der ersten Zeile (beginnend bei 0)
+	 * @param anzahlZeilen die Anzahl der Zeilen, die gelesen werden sollen
+	 * @param zeichensatz der Zeichensatz der Datei
+	 * @return die Zeilen ohne Zeilenende
+	 * @throws IOException wenn die Datei nicht gelesen werden kann oder der Bereich gr&ouml;&szlig;er als 2 GB ist
+	 */
+	public List<String> gibZeilen(int von, int anzahlZeilen, Charset zeichensatz) throws IOException
+	{
+		long[] grenzen;
+
+		synchronized (this)
+		{
+			pruefeBereich(von, anzahlZeilen);
+
+			grenzen = new long[anzahlZeilen + 1];
+
+			System.arraycopy(anfaenge, von, grenzen, 0, anzahlZeilen);
+
+			grenzen[anzahlZeilen] = von + anzahlZeilen < anzahl ? anfaenge[von + anzahlZeilen] : indexiertBis;
+		}
+
+		long laenge = grenzen[anzahlZeilen] - grenzen[0];
+
+		if (laenge > Integer.MAX_VALUE - 8)
+		{
+			throw new IOException("IOException aus MedysZeilenIndex.gibZeilen\nDer Bereich von " + anzahlZeilen
+					+ " Zeilen ist mit " + laenge + " Bytes zu groß");
+		}
+
+		byte[] inhalt = new byte[(int) laenge];
+
+		try (FileChannel kanal = FileChannel.open(datei.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer puffer = ByteBuffer.wrap(inhalt);
+
+			while (puffer.hasRemaining())
+			{
+				if (kanal.read(puffer, grenzen[0] + puffer.position()) < 0)
+				{
+					throw new IOException("IOException aus MedysZeilenIndex.gibZeilen\nDie Datei " + datei.getName()
+							+ " wurde seit dem letzten Aktualisieren verkürzt");
+				}
+			}
+		}
+
+		List<String> zeilen = new ArrayList<>(anzahlZeilen);
+
+		for (int i = 0; i < anzahlZeilen; i++)
+		{
+			int start = (int) (grenzen[i] - grenzen[0]);
+			int ende = (int) (grenzen[i + 1] - grenzen[0]);
+
+			if ((ende > start) && (inhalt[ende - 1] == '\n'))
+			{
+				ende--;
+
+				if ((ende > start) && (inhalt[ende - 1] == '\r'))
+				{
+					ende--;
+				}
+			}
+			zeilen.add(new String(inhalt, start, ende - start, zeichensatz));
+		}
+		return zeilen;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return datei.getName() + ": " + gibAnzahlZeilen() + " Zeilen, " + indexiertBis + " Bytes indiziert";
+	}
+
+	/*
+	 * liest die Indexdatei, bei fehlender oder ungültiger Datei bleibt der Index leer
+	 */
+	private void leseIndexDatei() throws IOException
+	{
+		byte[] inhalt;
+
+		try
+		{
+			inhalt = Files.readAllBytes(gibIndexDatei().toPath());
+		}
+		catch (NoSuchFileException keinIndex)
+		{
+			return;
+		}
+
+		ByteBuffer puffer = ByteBuffer.wrap(inhalt);
+
+		if ((inhalt.length < KOPF_GROESSE) || (puffer.getInt() != KENNUNG) || (puffer.getInt() != VERSION))
+		{
+			return;
+		}
+
+		long bis = puffer.getLong();
+		long geaendert = puffer.getLong();
+		long summe = puffer.getLong();
+		long kopfSumme = puffer.getLong();
+		int n = puffer.getInt();
+
+		if ((n < 1) || (bis < 0) || ((long) n * Long.BYTES != puffer.remaining()))
+		{
+			return;
+		}
+
+		LongBuffer offsets = puffer.asLongBuffer();
+
+		anfaenge = new long[n];
+		offsets.get(anfaenge);
+
+		anzahl = n;
+		indexiertBis = bis;
+		zuletztGeaendert = geaendert;
+		pruefsumme = summe;
+		kopfPruefsumme = kopfSumme;
+	}
+
+	private void setzeZurueck()
+	{
+		anzahl = 0;
+		indexiertBis = 0L;
+		zuletztGeaendert = 0L;
+		pruefsumme = 0L;
+		kopfPruefsumme = 0L;
+
+		fuegeAnfangHinzu(0L);
+	}
+
+	private void fuegeAnfangHinzu(long offset)
+	{
+		if (anzahl == anfaenge.length)
+		{
+			anfaenge = Arrays.copyOf(anfaenge, Math.max(16, anfaenge.length + (anfaenge.length >> 1)));
+		}
+		anfaenge[anzahl++] = offset;
+	}
+
+	private void pruefeBereich(int von, int anzahlZeilen)
+	{
+		int zeilen = gibAnzahlZeilen();
+
+		if ((von < 0) || (anzahlZeilen < 1) || (von > zeilen - anzahlZeilen))
+		{
+			throw new IndexOutOfBoundsException("Zeilen " + von + " bis " + (von + anzahlZeilen - 1)
+					+ " außerhalb von 0 bis " + (zeilen - 1));
+		}
+	}
+
+	/*
+	 * CRC32 über die letzten (bis zu PRUEF_GROESSE) Bytes vor einer Position, -1 wenn die Datei dort bereits endet
+	 */
+	private static long gibPruefsumme(FileChannel kanal, long bis) throws IOException
+	{
+		ByteBuffer puffer = ByteBuffer.allocate((int) Math.min(PRUEF_GROESSE, bis));
+
+		long von = bis - puffer.capacity();
+
+		while (puffer.hasRemaining())
+		{
+			if (kanal.read(puffer, von + puffer.position()) < 0)
+			{
+				return -1L;
+			}
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(puffer.array(), 0, puffer.capacity());
+
+		return crc.getValue();
+	}
+
+	/*
+	 * Ende der ersten (bis zu PRUEF_GROESSE) indizierten Bytes
+	 */
+	private long gibKopfEnde()
+	{
+		return Math.min(PRUEF_GROESSE, indexiertBis);
+	}
+}
@@ -1,15 +1,19 @@
 package de.medys.datacompress;
 
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
 
+import de.medys.MedysFileIO;
+import de.medys.MedysPufferPool;
 import de.medys.datadecompress.Unzip;
 
 /**
@@ -44,10 +48,9 @@ public class GZip
 		
 		if((data != null) && (charset != null))
 		{
-			ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length());
-			GZIPOutputStream gzip = new GZIPOutputStream(bos);
-			gzip.write(data.getBytes(charset.name()));
-			gzip.close();
+			byte[] bytes = data.getBytes(charset);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+			compress(new ByteArrayInputStream(bytes), bos);
 			compressed = bos.toByteArray();
 			bos.close();
 		}
@@ -55,9 +58,53 @@ public class GZip
 		return compressed;
 	}
 	
+	/**
+	 * Komprimiert einen Datenstrom in einen GZip-komprimierten Ausgabestrom.
+	 * <br><br>
+	 * Die Daten werden blockweise &uuml;ber einen Puffer aus dem {@link MedysPufferPool} komprimiert, 
+	 * so da&szlig; auch gro&szlig;e Datenmengen mit konstantem Speicherbedarf verarbeitet werden.
+	 * Der Ausgabestrom wird abgeschlossen, aber nicht geschlossen.
+	 * 
+	 * @param eingabe die unkomprimierten Eingangsdaten
+	 * @param ausgabe der Strom, in den die komprimierten Daten geschrieben werden
+	 * @throws IOException wenn die Daten nicht gelesen oder geschrieben werden konnten
+	 */
+	public static void compress(InputStream eingabe, OutputStream ausgabe) throws IOException
+	{
+		// close() gibt den nativen Speicher des Deflaters sofort frei, der Ausgabestrom bleibt offen
+		//
+		try (GZIPOutputStream gzip = new GZIPOutputStream(new NichtSchliessendeAusgabe(ausgabe), 
+				MedysPufferPool.KLEINSTE_KLASSE))
+		{
+			MedysFileIO.moveStreamData(eingabe, gzip);
+		}
+	}
+	
+	/**
+	 * Dekomprimiert einen GZip-komprimierten Datenstrom in einen Ausgabestrom.
+	 * <br><br>
+	 * Die Daten werden blockweise &uuml;ber einen Puffer aus dem {@link MedysPufferPool} dekomprimiert, 
+	 * so da&szlig; auch gro&szlig;e Datenmengen mit konstantem Speicherbedarf verarbeitet werden.
+	 * Der Ausgabestrom wird nicht geschlossen.
+	 * 
+	 * @param eingabe die GZip-komprimierten Eingangsdaten
+	 * @param ausgabe der Strom, in den die dekomprimierten Daten geschrieben werden
+	 * @throws IOException wenn die Daten nicht gelesen, dekomprimiert oder geschrieben werden konnten
+	 */
+	public static void decompress(InputStream eingabe, OutputStream ausgabe) throws IOException
+	{
+		// close() gibt den nativen Speicher des Inflaters sofort frei, der Eingabestrom bleibt offen
+		//
+		try (GZIPInputStream gis = new GZIPInputStream(new NichtSchliessendeEingabe(eingabe), 
+				MedysPufferPool.KLEINSTE_KLASSE))
+		{
+			MedysFileIO.moveStreamData(gis, ausgabe);
+		}
+	}
+	
 	/**
 	 * Dekomprimiert gegebene Daten und liefert daraufhin die Daten in menschen-lesbarer 
-	 * Form als Zeichenkette in dem angegebenen Zeichensatz zur&uuml;ck. 
+	 * Form als Zeichenkette in dem angegebenen Zeichensatz zur&uuml;ck. Zeilenumbr&uuml;che bleiben erhalten.
 	 * 
 	 * @param compressed die GZip-komprimierten Daten
 	 * @param charset der Zeichensatz der zur&uuml;ckgelieferten Zeichenkette
@@ -69,27 +116,53 @@ public class GZip
 	public static String decompress(byte[] compressed, Charset charset) throws IOException
 	{
 		String s = null;
-		StringBuilder sb = null;
+		
 		if((compressed != null) && (charset != null))
 		{
-			sb = new StringBuilder();
-			ByteArrayInputStream bis = new ByteArrayInputStream(compressed);
-			GZIPInputStream gis = new GZIPInputStream(bis);
-			BufferedReader br = new BufferedReader(new InputStreamReader(gis, charset.name()));
-			String line;
-			while((line = br.readLine()) != null) 
-			{
-				sb.append(line);
-			}
-			br.close();
-			gis.close();
-			bis.close();
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, compressed.length * 2));
+			decompress(new ByteArrayInputStream(compressed), bos);
+			s = bos.toString(charset);
+			bos.close();
+		}
+		return s;
+	}
+	
+	/*
+	 * Ausgabestrom, dessen close() den umschlossenen Strom nur leert und offen lässt
+	 */
+	private static final class NichtSchliessendeAusgabe extends FilterOutputStream
+	{
+		private NichtSchliessendeAusgabe(OutputStream ausgabe)
+		{
+			super(ausgabe);
 		}
-		if(sb != null)
+		
+		@Override
+		public void write(byte[] bytes, int start, int laenge) throws IOException
+		{
+			out.write(bytes, start, laenge);
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			out.flush();
+		}
+	}
+	
+	/*
+	 * Eingabestrom, dessen close() den umschlossenen Strom offen lässt
+	 */
+	private static final class NichtSchliessendeEingabe extends FilterInputStream
+	{
+		private NichtSchliessendeEingabe(InputStream eingabe)
+		{
+			super(eingabe);
+		}
+		
+		@Override
+		public void close()
 		{
-			s = sb.toString();
 		}
-		return s;
 	}
 }
-
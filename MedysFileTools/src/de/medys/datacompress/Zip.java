@@ -1,12 +1,20 @@
 package de.medys.datacompress;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.medys.MedysFileIO;
 
@@ -28,6 +36,7 @@ import de.medys.MedysFileIO;
  */
 public class Zip 
 {
+	private static final AtomicInteger NUMMER = new AtomicInteger();
 
 	private String verzeichnis;
 
@@ -35,6 +44,8 @@ public class Zip
 	
 	private StringBuilder sb;
 	
+	private ZipKompression kompression = ZipKompression.STANDARD;
+	
 	public Zip()
 	{
 		sb = new StringBuilder();
@@ -66,34 +77,18 @@ public class Zip
 		{				
 			if (datei.isFile())
 			{
-				String destination = zielVerzeichnis.getAbsolutePath() + File.separator + datei.getName() + ".zip";
-				
-				int BUFFER = 2048;
-				
-				BufferedInputStream bis = new BufferedInputStream(new FileInputStream(datei));
-				
-				ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(destination), BUFFER));
-				
-				ZipEntry zipEntry;
-				
-				// eine einzelne Datei zippen
-				zipEntry = new ZipEntry(MedysFileIO.gibDateiInhaltToString(datei));
-				zos.putNextEntry(zipEntry);
+				Path ziel = zielVerzeichnis.toPath().resolve(datei.getName() + ".zip");
 				
-				byte[] dataBuffer = new byte[BUFFER];
-				
-				int count;
-				
-				while((count = bis.read(dataBuffer, 0, BUFFER)) != -1)
+				// eine einzelne Datei zippen, der Eintrag trägt den Namen der Datei
+				//
+				try (ZipSchreiber schreiber = new ZipSchreiber(ziel))
 				{
-					zos.write(dataBuffer, 0, count);
+					schreiber.schreibeDatei(datei.toPath(), datei.getName(), datei.lastModified(), 
+							kompression);
 				}
 				
 				setDateiName(datei.getName() + ".zip");
 				setVerzeichnis(MedysFileIO.gibValidenOrdnerPfad(zielVerzeichnis.getAbsolutePath()));
-				
-				bis.close();
-				zos.close();
 			}
 			else 
 			{
@@ -110,6 +105,22 @@ public class Zip
 	/**
 	 * Erstellt eine neue ZIP-Datei mit dem Verzeichnisnamen <code>&lt;verzeichnis-Name&gt;.zip</code> 
 	 * in einem angegegebenen Verzeichnis.
+	 * <br><br>
+	 * Der Verzeichnisbaum wird genau einmal durchlaufen und jede Datei genau einmal gelesen und direkt 
+	 * in das Archiv komprimiert (siehe {@link ZipSchreiber#schreibeDatei(Path, String, long, ZipKompression)}). 
+	 * Der Speicherbedarf ist dabei unabh&auml;ngig von der Gr&ouml;&szlig;e und Tiefe des Verzeichnisbaums.
+	 * <br><br>
+	 * <u>Eintr&auml;ge</u>
+	 * <blockquote>
+	 * 	<ul>
+	 * 		<li>die Namen sind relativ zum Verzeichnis, z.B. <code>Befunde/2018/scan.pdf</code></li>
+	 * 		<li>jedes Unterverzeichnis erh&auml;lt einen eigenen Eintrag, leere Verzeichnisse bleiben so erhalten</li>
+	 * 		<li>symbolische Links auf Dateien werden verfolgt und mit dem Inhalt ihres Ziels archiviert, Links auf
+	 * 			Verzeichnisse und Links ohne Ziel werden &uuml;bersprungen</li>
+	 * 	</ul>
+	 * </blockquote>
+	 * 
+	 * Um mehrere Prozessoren zu nutzen, siehe {@link #zipVerzeichnisParallel(File, File, int)}.
 	 * 
 	 * @param verzeichnis
 	 * 			das Verzeichnis, da&szlig; gezippt werden soll
@@ -123,45 +134,208 @@ public class Zip
 		if (MedysFileIO.existiert(verzeichnis) 
 			&& MedysFileIO.istVerzeichnisUndExistiert(zielVerzeichnis)) 
 		{
-			String destination = zielVerzeichnis.getAbsolutePath() + File.separator + verzeichnis.getName() + ".zip";
+			Path quelle = verzeichnis.toPath().toAbsolutePath().normalize();
+			Path ziel = zielVerzeichnis.toPath().toAbsolutePath().normalize().resolve(verzeichnis.getName() + ".zip");
 			
-			ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(destination)));
-			ZipEntry zipEntry;
-							
-			int BUFFER = 2048;
-			byte[] dataBuffer = new byte[BUFFER];
+			try (ZipSchreiber schreiber = new ZipSchreiber(ziel))
+			{
+				schreibeInhalt(schreiber, quelle, ziel);
+			}
 			
-			File[] files = verzeichnis.listFiles();
-				
-			if(files != null)
+			setDateiName(ziel.getFileName().toString());
+			setVerzeichnis(MedysFileIO.gibValidenOrdnerPfad(zielVerzeichnis.getAbsolutePath()));
+		}
+		else
+		{
+			sb.append("Fehler aus de.medys.datacompress.Zip.zipInhalt(File, File)").append("Die Datei ")
+					.append(zielVerzeichnis.getName()).append(" exisitiert nicht und muß ")
+					.append("vorher in einem Verzeichnis erzeugt werden!").append("\n");
+			
+			throw new Exception(sb.toString());
+		}
+	}
+	
+	/**
+	 * Erg&auml;nzt eine bestehende ZIP-Datei um eine Datei oder den Inhalt eines Verzeichnisses, ohne das Archiv
+	 * neu zu erstellen.
+	 * <br><br>
+	 * Die bestehenden Eintr&auml;ge bleiben unver&auml;ndert in der Datei, die neuen werden hinter das Ende des
+	 * Archivs geschrieben und nur das zentrale Verzeichnis wird neu geschrieben. Der Aufwand richtet sich damit
+	 * nach den neuen Dateien und nicht nach der Gr&ouml;&szlig;e des Archivs.
+	 * <br><br>
+	 * <u>Eintr&auml;ge</u>
+	 * <blockquote>
+	 * 	<ul>
+	 * 		<li>die Namen sind wie bei {@link #zipVerzeichnis(File, File)} relativ zum Verzeichnis, eine einzelne
+	 * 			Datei erh&auml;lt ihren Dateinamen</li>
+	 * 		<li>ein bestehender Eintrag gleichen Namens wird ersetzt, seine Daten bleiben als ungenutzte Bytes
+	 * 			im Archiv, bis es mit {@link #zipVerzeichnis(File, File)} neu erstellt wird</li>
+	 * 	</ul>
+	 * </blockquote>
+	 * 
+	 * <u>Wichtig</u>
+	 * <blockquote>
+	 * 	Das bisherige zentrale Verzeichnis bleibt erhalten, bis das neue vollst&auml;ndig geschrieben ist. Schl&auml;gt
+	 * 	das Schreiben fehl (z.B. volle Festplatte), so wird das Archiv auf seinen bisherigen Stand gek&uuml;rzt,
+	 * 	zu Abst&uuml;rzen und Programmen, die ein Archiv nur von vorne lesen, siehe {@link ZipSchreiber#ergaenze(Path)}.
+	 * </blockquote>
+	 * 
+	 * @param zipDatei
+	 * 			die bestehende ZIP-Datei
+	 * @param quelle
+	 * 			die Datei oder das Verzeichnis, dessen Inhalt erg&auml;nzt werden soll
+	 * @throws Exception wenn die ZIP-Datei oder die Quelle nicht exisitiert, die ZIP-Datei kein g&uuml;ltiges 
+	 * 			Archiv ist oder der Inhalt nicht ausgelesen und gezippt werden konnte
+	 */
+	public void aktualisiereZip(File zipDatei, File quelle) throws Exception
+	{
+		if (MedysFileIO.istDateiKeinVerzeichnis(zipDatei) 
+			&& MedysFileIO.existiert(quelle)) 
+		{
+			Path ziel = zipDatei.toPath().toAbsolutePath().normalize();
+			
+			try (ZipSchreiber schreiber = ZipSchreiber.ergaenze(ziel))
+			{
+				schreibeInhalt(schreiber, quelle.toPath().toAbsolutePath().normalize(), ziel);
+			}
+			
+			setDateiName(ziel.getFileName().toString());
+			setVerzeichnis(MedysFileIO.gibValidenOrdnerPfad(ziel.getParent().toString()));
+		}
+		else
+		{
+			sb.append("Fehler aus de.medys.datacompress.Zip.aktualisiereZip(File, File)").append("Die Datei ")
+					.append(zipDatei.getName()).append(" oder ").append(quelle.getName())
+					.append(" exisitiert nicht!").append("\n");
+			
+			throw new Exception(sb.toString());
+		}
+	}
+	
+	/**
+	 * Erstellt eine neue ZIP-Datei mit dem Verzeichnisnamen <code>&lt;verzeichnis-Name&gt;.zip</code> 
+	 * und komprimiert dabei so viele Dateien gleichzeitig, wie Prozessoren verf&uuml;gbar sind.
+	 * 
+	 * @param verzeichnis
+	 * 			das Verzeichnis, da&szlig; gezippt werden soll
+	 * @param zielVerzeichnis
+	 * 			wo das gezippte Verzeichnis liegen soll
+	 * @throws Exception wenn das Verzeichnis nicht exisitiert, ein Zugriff nicht klappt 
+	 * 			oder der Inhalt nicht ausgelesen und gezippt werden konnte
+	 * @see #zipVerzeichnisParallel(File, File, int)
+	 */
+	public void zipVerzeichnisParallel(File verzeichnis, File zielVerzeichnis) throws Exception
+	{
+		zipVerzeichnisParallel(verzeichnis, zielVerzeichnis, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Erstellt eine neue ZIP-Datei mit dem Verzeichnisnamen <code>&lt;verzeichnis-Name&gt;.zip</code> 
+	 * in einem angegegebenen Verzeichnis und komprimiert dabei mehrere Dateien gleichzeitig.
+	 * <br><br>
+	 * Der Verzeichnisbaum wird einmal durchlaufen, jede Datei wird auf einem Thread-Pool komprimiert 
+	 * (siehe {@link ZipSchreiber.Eintrag#komprimiere(Path, String, long, ZipKompression)}). Die fertigen Eintr&auml;ge 
+	 * werden in der Reihenfolge des Durchlaufs nacheinander durch den {@link ZipSchreiber} in das Archiv 
+	 * geschrieben, so da&szlig; der Durchsatz mit der Anzahl der Prozessoren w&auml;chst.
+	 * <br><br>
+	 * <u>Eintr&auml;ge</u>
+	 * <blockquote>
+	 * 	<ul>
+	 * 		<li>die Namen sind relativ zum Verzeichnis, z.B. <code>Befunde/2018/scan.pdf</code></li>
+	 * 		<li>jedes Unterverzeichnis erh&auml;lt einen eigenen Eintrag, leere Verzeichnisse bleiben so erhalten</li>
+	 * 		<li>symbolische Links auf Dateien werden verfolgt und mit dem Inhalt ihres Ziels archiviert, Links auf
+	 * 			Verzeichnisse und Links ohne Ziel werden &uuml;bersprungen</li>
+	 * 		<li>es werden h&ouml;chstens doppelt so viele Dateien im Voraus komprimiert, wie Threads laufen</li>
+	 * 	</ul>
+	 * </blockquote>
+	 * 
+	 * @param verzeichnis
+	 * 			das Verzeichnis, da&szlig; gezippt werden soll
+	 * @param zielVerzeichnis
+	 * 			wo das gezippte Verzeichnis liegen soll
+	 * @param parallelitaet
+	 * 			die Anzahl der Threads, die gleichzeitig komprimieren (mindestens 1)
+	 * @throws Exception wenn das Verzeichnis nicht exisitiert, ein Zugriff nicht klappt 
+	 * 			oder der Inhalt nicht ausgelesen und gezippt werden konnte
+	 */
+	public void zipVerzeichnisParallel(File verzeichnis, File zielVerzeichnis, int parallelitaet) throws Exception
+	{
+		if (parallelitaet < 1)
+		{
+			throw new IllegalArgumentException("Ungültige Parallelität " + parallelitaet);
+		}
+		
+		if (MedysFileIO.istVerzeichnisUndExistiert(verzeichnis) 
+			&& MedysFileIO.istVerzeichnisUndExistiert(zielVerzeichnis)) 
+		{
+			Path quelle = verzeichnis.toPath().toAbsolutePath().normalize();
+			Path ziel = zielVerzeichnis.toPath().toAbsolutePath().normalize().resolve(verzeichnis.getName() + ".zip");
+			
+			ExecutorService pool = Executors.newFixedThreadPool(parallelitaet, aufgabe -> {
+				Thread thread = new Thread(aufgabe, "Zip-" + NUMMER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			
+			ArrayDeque<Future<ZipSchreiber.Eintrag>> offen = new ArrayDeque<>();
+			
+			ZipKompression art = kompression;
+			
+			try (ZipSchreiber schreiber = new ZipSchreiber(ziel))
 			{
-				for(File file : files)
+				int maxImVoraus = 2 * parallelitaet;
+				
+				Files.walkFileTree(quelle, new SimpleFileVisitor<Path>()
 				{
-					BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file), BUFFER);
-					zipEntry = new ZipEntry(MedysFileIO.gibDateiInhaltToString(file));
-					if (file.isDirectory())
+					@Override
+					public FileVisitResult preVisitDirectory(Path unterverzeichnis, BasicFileAttributes attribute) 
+							throws IOException
 					{
-						zipVerzeichnis(file, zielVerzeichnis);
+						if (!unterverzeichnis.equals(quelle))
+						{
+							offen.add(CompletableFuture.completedFuture(ZipSchreiber.Eintrag.verzeichnis(
+									gibEintragsname(quelle, unterverzeichnis), attribute.lastModifiedTime().toMillis())));
+							
+							schreibeFertige(schreiber, offen, maxImVoraus);
+						}
+						return FileVisitResult.CONTINUE;
 					}
-					else
+					
+					@Override
+					public FileVisitResult visitFile(Path datei, BasicFileAttributes attribute) throws IOException
 					{
-						zos.putNextEntry(zipEntry);
-						
-						int count;
+						BasicFileAttributes dateiAttribute = folgeLink(datei, attribute);
 						
-						while((count = bis.read(dataBuffer, 0, BUFFER)) != -1)
+						// das entstehende Archiv kann selbst im Verzeichnis liegen
+						//
+						if ((dateiAttribute != null) && dateiAttribute.isRegularFile() && !datei.equals(ziel))
 						{
-							zos.write(dataBuffer, 0, count);
+							String name = gibEintragsname(quelle, datei);
+							long geaendert = dateiAttribute.lastModifiedTime().toMillis();
+							
+							offen.add(pool.submit(() -> ZipSchreiber.Eintrag.komprimiere(datei, name, geaendert, art)));
+							
+							schreibeFertige(schreiber, offen, maxImVoraus);
 						}
-						bis.close();
+						return FileVisitResult.CONTINUE;
 					}
-				}
+				});
+				
+				schreibeFertige(schreiber, offen, 0);
+			}
+			finally
+			{
+				pool.shutdown();
+				
+				verwirf(offen);
 			}
-			zos.close();
+			
+			setDateiName(ziel.getFileName().toString());
+			setVerzeichnis(MedysFileIO.gibValidenOrdnerPfad(zielVerzeichnis.getAbsolutePath()));
 		}
 		else
 		{
-			sb.append("Fehler aus de.medys.datacompress.Zip.zipInhalt(File, File)").append("Die Datei ")
+			sb.append("Fehler aus de.medys.datacompress.Zip.zipVerzeichnisParallel(File, File, int)").append("Die Datei ")
 					.append(zielVerzeichnis.getName()).append(" exisitiert nicht und muß ")
 					.append("vorher in einem Verzeichnis erzeugt werden!").append("\n");
 			
@@ -189,6 +363,162 @@ public class Zip
 		this.dateiName = dateiName;
 	}
 	
+	/**
+	 * Legt fest, wie die Eintr&auml;ge k&uuml;nftiger Archive komprimiert werden, 
+	 * Standard ist {@link ZipKompression#STANDARD}
+	 * 
+	 * @param kompression die Kompressionsstufe und ob bereits komprimierte Inhalte gespeichert werden
+	 */
+	public void setzeKompression(final ZipKompression kompression)
+	{
+		if (kompression == null)
+		{
+			throw new IllegalArgumentException("Die Kompression darf nicht NULL sein!");
+		}
+		this.kompression = kompression;
+	}
+	
+	public ZipKompression gibKompression()
+	{
+		return kompression;
+	}
+	
+	/*
+	 * schreibt Unterverzeichnisse und Dateien der Quelle in einem Durchlauf, eine Datei als Quelle ergibt einen Eintrag
+	 */
+	private void schreibeInhalt(ZipSchreiber schreiber, Path quelle, Path ziel) throws IOException
+	{
+		Files.walkFileTree(quelle, new SimpleFileVisitor<Path>()
+		{
+			@Override
+			public FileVisitResult preVisitDirectory(Path unterverzeichnis, BasicFileAttributes attribute) 
+					throws IOException
+			{
+				if (!unterverzeichnis.equals(quelle))
+				{
+					schreiber.schreibe(ZipSchreiber.Eintrag.verzeichnis(gibEintragsname(quelle, unterverzeichnis), 
+							attribute.lastModifiedTime().toMillis()));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult visitFile(Path datei, BasicFileAttributes attribute) throws IOException
+			{
+				BasicFileAttributes dateiAttribute = folgeLink(datei, attribute);
+				
+				// das Archiv kann selbst im Verzeichnis liegen
+				//
+				if ((dateiAttribute != null) && dateiAttribute.isRegularFile() && !datei.equals(ziel))
+				{
+					schreiber.schreibeDatei(datei, gibEintragsname(quelle, datei), 
+							dateiAttribute.lastModifiedTime().toMillis(), kompression);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+	
+	/*
+	 * walkFileTree liefert die Attribute eines Links selbst, wie bei File werden sie hier über den Link gelesen,
+	 * NULL bei einem Link ohne Ziel
+	 */
+	private static BasicFileAttributes folgeLink(Path datei, BasicFileAttributes attribute)
+	{
+		if (!attribute.isSymbolicLink())
+		{
+			return attribute;
+		}
+		
+		try
+		{
+			return Files.readAttributes(datei, BasicFileAttributes.class);
+		}
+		catch (IOException ohneZiel)
+		{
+			return null;
+		}
+	}
+	
+	/*
+	 * relativer Name mit '/' als Trenner, unabhängig vom Betriebssystem
+	 */
+	private static String gibEintragsname(Path quelle, Path pfad)
+	{
+		if (pfad.equals(quelle))
+		{
+			return pfad.getFileName().toString();
+		}
+		
+		StringBuilder name = new StringBuilder();
+		
+		for (Path teil : quelle.relativize(pfad))
+		{
+			if (name.length() > 0)
+			{
+				name.append('/');
+			}
+			name.append(teil.toString());
+		}
+		return name.toString();
+	}
+	
+	/*
+	 * schreibt die ältesten Einträge in das Archiv, bis höchstens maxOffen Einträge ausstehen
+	 */
+	private static void schreibeFertige(ZipSchreiber schreiber, ArrayDeque<Future<ZipSchreiber.Eintrag>> offen, 
+			int maxOffen) throws IOException
+	{
+		while (offen.size() > maxOffen)
+		{
+			Future<ZipSchreiber.Eintrag> aelteste = offen.peek();
+			
+			ZipSchreiber.Eintrag eintrag;
+			
+			try
+			{
+				eintrag = aelteste.get();
+			}
+			catch (InterruptedException unterbrochen)
+			{
+				Thread.currentThread().interrupt();
+				
+				throw new InterruptedIOException("Zippen wurde unterbrochen");
+			}
+			catch (ExecutionException fehler)
+			{
+				offen.poll();
+				
+				throw fehler.getCause() instanceof IOException 
+						? (IOException) fehler.getCause() 
+						: new IOException(fehler.getCause());
+			}
+			offen.poll();
+			
+			schreiber.schreibe(eintrag);
+		}
+	}
+	
+	/*
+	 * wartet nach einem Abbruch die ausstehenden Einträge ab und gibt ihre temporären Daten frei
+	 */
+	private static void verwirf(ArrayDeque<Future<ZipSchreiber.Eintrag>> offen)
+	{
+		for (Future<ZipSchreiber.Eintrag> aufgabe : offen)
+		{
+			try
+			{
+				aufgabe.get().close();
+			}
+			catch (Exception ignoriert)
+			{
+				// die Aufgabe ist fehlgeschlagen und hat ihre Daten selbst freigegeben
+				//
+			}
+		}
+		offen.clear();
+	}
+	
 	/**
 	 * Liefert die zuletzt erstellte Zip-Datei
 	 * 
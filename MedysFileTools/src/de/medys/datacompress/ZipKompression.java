@@ -0,0 +1,216 @@
+package de.medys.datacompress;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import de.medys.MedysPufferPool;
+
+/**
+ * Legt fest, wie die Eintr&auml;ge eines ZIP-Archivs komprimiert werden.
+ * <br><br>
+ * Bei adaptiver Kompression wird f&uuml;r jeden Eintrag einzeln entschieden, ob er komprimiert (Deflate) oder
+ * unver&auml;ndert gespeichert (Stored) wird. Bereits komprimierte Inhalte wie PDF-Dokumente, JPEG-Scans oder
+ * ZIP-Dateien werden kaum kleiner, kosten beim Komprimieren aber die meiste Rechenzeit.
+ * <br><br>
+ * <u>Ein Eintrag wird gespeichert, wenn</u>
+ * <blockquote>
+ * 	<ul>
+ * 		<li>seine Dateiendung ein komprimiertes Format bezeichnet (z.B. pdf, jpg, png, zip, docx, mp4), siehe
+ * 			{@link #istKomprimiertesFormat(String)}</li>
+ * 		<li>seine ersten Bytes die Signatur eines komprimierten Formats enthalten, siehe
+ * 			{@link #hatKomprimierteSignatur(byte[], int)}</li>
+ * 		<li>eine schnelle Probekompression des ersten Blocks weniger als 3% einspart, siehe
+ * 			{@link #istKaumKomprimierbar(byte[], int)}</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Alle &uuml;brigen Eintr&auml;ge werden mit der eingestellten Stufe komprimiert.
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH, W&uuml;lfrath 2018
+ * @see Zip#setzeKompression(ZipKompression)
+ */
+public final class ZipKompression
+{
+	/**
+	 * Adaptive Kompression mit der Standardstufe von {@link Deflater}
+	 */
+	public static final ZipKompression STANDARD = new ZipKompression(Deflater.DEFAULT_COMPRESSION, true);
+
+	/*
+	 * so viele Bytes des ersten Blocks werden probeweise komprimiert
+	 */
+	private static final int PROBE_GROESSE = 16 * 1024;
+
+	/*
+	 * kleinere Inhalte werden ohne Probe komprimiert
+	 */
+	private static final int MIN_PROBE = 256;
+
+	private static final Set<String> KOMPRIMIERTE_ENDUNGEN = new HashSet<>(Arrays.asList(
+			"pdf", "jpg", "jpeg", "jp2", "png", "gif", "webp", "heic",
+			"zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar",
+			"docx", "xlsx", "pptx", "odt", "ods", "odp",
+			"mp3", "mp4", "m4a", "mov", "avi", "mkv", "ogg", "flac"));
+
+	private static final byte[][] SIGNATUREN = {
+			{ '%', 'P', 'D', 'F' },
+			{ (byte) 0xFF, (byte) 0xD8, (byte) 0xFF },
+			{ (byte) 0x89, 'P', 'N', 'G' },
+			{ 'G', 'I', 'F', '8' },
+			{ 'P', 'K', 3, 4 },
+			{ 0x1F, (byte) 0x8B },
+			{ '7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C },
+			{ 'R', 'a', 'r', '!' },
+			{ 'B', 'Z', 'h' },
+			{ (byte) 0xFD, '7', 'z', 'X', 'Z', 0 } };
+
+	private final int stufe;
+
+	private final boolean adaptiv;
+
+	/**
+	 * @param stufe die Kompressionsstufe 1 bis 9 bzw. {@link Deflater#DEFAULT_COMPRESSION},
+	 * 			bei {@link Deflater#NO_COMPRESSION} wird jeder Eintrag unkomprimiert gespeichert
+	 * @param adaptiv <code>true</code> um bereits komprimierte Inhalte unkomprimiert zu speichern,
+	 * 			<code>false</code> um jeden Eintrag mit der Stufe zu komprimieren
+	 */
+	public ZipKompression(int stufe, boolean adaptiv)
+	{
+		if ((stufe != Deflater.DEFAULT_COMPRESSION) && ((stufe < Deflater.NO_COMPRESSION) || (stufe > Deflater.BEST_COMPRESSION)))
+		{
+			throw new IllegalArgumentException("Ungültige Kompressionsstufe " + stufe);
+		}
+		this.stufe = stufe;
+		this.adaptiv = adaptiv;
+	}
+
+	/**
+	 * @return die Kompressionsstufe f&uuml;r komprimierte Eintr&auml;ge
+	 */
+	public int gibStufe()
+	{
+		return stufe;
+	}
+
+	/**
+	 * @return <code>true</code> wenn je Eintrag zwischen Komprimieren und Speichern entschieden wird
+	 */
+	public boolean istAdaptiv()
+	{
+		return adaptiv;
+	}
+
+	/**
+	 * Pr&uuml;ft, ob ein Dateiname die Endung eines bereits komprimierten Formats tr&auml;gt (Gro&szlig;-
+	 * und Kleinschreibung wird nicht unterschieden)
+	 *
+	 * @param dateiName der Name der Datei
+	 * @return <code>true</code> wenn die Endung ein komprimiertes Format bezeichnet, sonst <code>false</code>
+	 */
+	public static boolean istKomprimiertesFormat(String dateiName)
+	{
+		int punkt = dateiName.lastIndexOf('.');
+
+		return (punkt >= 0) && KOMPRIMIERTE_ENDUNGEN.contains(dateiName.substring(punkt + 1).toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Pr&uuml;ft die ersten Bytes eines Inhalts auf die Signatur eines komprimierten Formats
+	 * (PDF, JPEG, PNG, GIF, ZIP, GZip, 7-Zip, RAR, BZip2, XZ)
+	 *
+	 * @param anfang die ersten Bytes des Inhalts
+	 * @param laenge die Anzahl g&uuml;ltiger Bytes
+	 * @return <code>true</code> wenn eine Signatur erkannt wurde, sonst <code>false</code>
+	 */
+	public static boolean hatKomprimierteSignatur(byte[] anfang, int laenge)
+	{
+		for (byte[] signatur : SIGNATUREN)
+		{
+			if ((laenge >= signatur.length) && beginntMit(anfang, signatur))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Komprimiert bis zu 16 KB eines Inhalts probeweise mit der schnellsten Stufe
+	 *
+	 * @param probe die ersten Bytes des Inhalts
+	 * @param laenge die Anzahl g&uuml;ltiger Bytes
+	 * @return <code>true</code> wenn die Probe um weniger als 3% kleiner wird, sonst <code>false</code>
+	 */
+	public static boolean istKaumKomprimierbar(byte[] probe, int laenge)
+	{
+		int anzahl = Math.min(laenge, PROBE_GROESSE);
+
+		if (anzahl < MIN_PROBE)
+		{
+			return false;
+		}
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+		byte[] ausgabe = MedysPufferPool.leiheHeap(PROBE_GROESSE);
+
+		try
+		{
+			deflater.setInput(probe, 0, anzahl);
+			deflater.finish();
+
+			// passt die Probe nicht in 97% ihrer Größe, so ist sie kaum komprimierbar
+			//
+			deflater.deflate(ausgabe, 0, anzahl * 97 / 100);
+
+			return !deflater.finished();
+		}
+		finally
+		{
+			deflater.end();
+
+			MedysPufferPool.gibZurueck(ausgabe);
+		}
+	}
+
+	/*
+	 * entscheidet anhand von Name und erstem Block über die Methode des Eintrags
+	 */
+	boolean speichern(String name, byte[] anfang, int laenge)
+	{
+		if (stufe == Deflater.NO_COMPRESSION)
+		{
+			return true;
+		}
+		if (!adaptiv)
+		{
+			return false;
+		}
+		return (laenge == 0) || istKomprimiertesFormat(name) || hatKomprimierteSignatur(anfang, laenge)
+				|| istKaumKomprimierbar(anfang, laenge);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ZipKompression[Stufe=" + stufe + ", adaptiv=" + adaptiv + "]";
+	}
+
+	/*
+	 * Arrays.equals mit Bereichsangaben gibt es erst ab Java 9
+	 */
+	private static boolean beginntMit(byte[] inhalt, byte[] signatur)
+	{
+		for (int i = 0; i < signatur.length; i++)
+		{
+			if (inhalt[i] != signatur[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,1276 @@
+package de.medys.datacompress;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import de.medys.MedysPufferPool;
+
+/**
+ * Schreibt ZIP-Archive direkt im ZIP-Dateiformat (lokale Kopfdaten, Daten, zentrales Verzeichnis).
+ * <br><br>
+ * Einzelne Dateien k&ouml;nnen durch {@link #schreibeDatei(Path, String, long, ZipKompression)} direkt in das Archiv
+ * komprimiert werden, ohne Zwischenspeicher und mit konstantem Speicherbedarf.
+ * <br><br>
+ * Im Gegensatz zu {@link java.util.zip.ZipOutputStream} kann das Komprimieren aber auch vom Schreiben getrennt
+ * werden:
+ * <blockquote>
+ * 	<ul>
+ * 		<li>{@link Eintrag#komprimiere(Path, String, long, ZipKompression)} komprimiert eine Datei vollst&auml;ndig
+ * 			(Deflate ohne zlib-Rahmen) und berechnet dabei CRC-32 und Gr&ouml;&szlig;en. Das kann auf beliebig
+ * 			vielen Threads gleichzeitig geschehen.</li>
+ * 		<li>{@link #schreibe(Eintrag)} h&auml;ngt einen fertigen Eintrag an das Archiv an. Das geschieht
+ * 			nacheinander auf einem Thread und kopiert nur noch die komprimierten Bytes.</li>
+ * 	</ul>
+ * </blockquote>
+ *
+ * Ob ein Eintrag komprimiert oder unver&auml;ndert gespeichert wird, legt eine {@link ZipKompression} fest.
+ * <br><br>
+ * Komprimierte Daten eines Eintrags und das zentrale Verzeichnis werden jeweils bis {@value #SPEICHER_GRENZE} Bytes
+ * im Speicher gehalten, gr&ouml;&szlig;ere in einer tempor&auml;ren Datei, so da&szlig; der Speicherbedarf
+ * unabh&auml;ngig von der Gr&ouml;&szlig;e und der Anzahl der Eintr&auml;ge begrenzt bleibt.
+ * <br><br>
+ * Das erzeugte Archiv ist ein Standard-ZIP (Dateinamen in UTF-8), lesbar durch {@link de.medys.datadecompress.Unzip}
+ * und {@link java.util.zip.ZipFile}.
+ * <br><br>
+ * Ein bestehendes Archiv kann durch {@link #ergaenze(Path)} um Eintr&auml;ge erweitert werden, dabei wird nur das
+ * zentrale Verzeichnis neu geschrieben.
+ * <br><br>
+ * <u>Zip64</u>
+ * <blockquote>
+ * 	Archive &uuml;ber 4 GB, Eintr&auml;ge &uuml;ber 4 GB und mehr als 65.535 Eintr&auml;ge werden durch die
+ * 	Zip64-Erweiterung unterst&uuml;tzt. Die Erweiterung wird nur dort geschrieben, wo ein Wert die Grenzen des
+ * 	ZIP-Formats &uuml;berschreitet, kleine Archive bleiben damit auch f&uuml;r &auml;ltere Programme lesbar.
+ * </blockquote>
+ *
+ * @author Hayri Emrah Kayaman, MEDYS GmbH, W&uuml;lfrath 2018
+ * @see Zip#zipVerzeichnis(java.io.File, java.io.File)
+ * @see Zip#zipVerzeichnisParallel(java.io.File, java.io.File, int)
+ * @see Zip#aktualisiereZip(java.io.File, java.io.File)
+ */
+public class ZipSchreiber implements Closeable
+{
+	/**
+	 * Bis zu dieser Anzahl Bytes werden die komprimierten Daten eines Eintrags im Speicher gehalten
+	 */
+	public static final int SPEICHER_GRENZE = 1024 * 1024;
+
+	static final int LOKAL_SIGNATUR = 0x04034b50;
+
+	static final int ZENTRAL_SIGNATUR = 0x02014b50;
+
+	static final int ENDE_SIGNATUR = 0x06054b50;
+
+	static final int ZIP64_ENDE_SIGNATUR = 0x06064b50;
+
+	static final int ZIP64_VERWEIS_SIGNATUR = 0x07064b50;
+
+	/*
+	 * Kennung des Zip64-Zusatzfeldes
+	 */
+	static final int ZIP64_FELD = 0x0001;
+
+	static final int GESPEICHERT = 0;
+
+	static final int DEFLATE = 8;
+
+	static final long ZIP32_GRENZE = 0xFFFFFFFFL;
+
+	static final int ZIP32_MAX_EINTRAEGE = 0xFFFF;
+
+	/*
+	 * ab dieser Dateigröße erhält der lokale Kopf vorsorglich das Zip64-Zusatzfeld, da Deflate inkompressible
+	 * Daten geringfügig vergrößert (5 Bytes je Block)
+	 */
+	private static final long ZIP64_SCHWELLE = ZIP32_GRENZE - 16L * 1024 * 1024;
+
+	/*
+	 * Bit 11: Dateinamen sind UTF-8 kodiert
+	 */
+	private static final int UTF8_FLAG = 0x0800;
+
+	private static final int VERSION = 20;
+
+	private static final int VERSION_ZIP64 = 45;
+
+	private static final int VERZEICHNIS_ATTRIBUT = 0x10;
+
+	private static final int PUFFER_GROESSE = 64 * 1024;
+
+	private final FileChannel kanal;
+
+	private final ByteBuffer puffer;
+
+	/*
+	 * zentrale Köpfe der neuen Einträge
+	 */
+	private final Zwischenspeicher zentral = new Zwischenspeicher();
+
+	/*
+	 * nur beim Ergänzen: die zentralen Köpfe des bestehenden Archivs und die Namen der neuen Einträge, 
+	 * gleichnamige bestehende Einträge werden beim Schließen verworfen
+	 */
+	private final Zwischenspeicher bestand;
+
+	private final long bestandAnzahl;
+
+	/*
+	 * Position, ab der geschrieben wird, beim Ergänzen die bisherige Länge des Archivs
+	 */
+	private final long beginn;
+
+	private final Set<String> neueNamen;
+
+	private long position;
+
+	/*
+	 * Position des ersten Bytes im Puffer innerhalb der Datei
+	 */
+	private long geleert;
+
+	private int anzahlEintraege;
+
+	private boolean geschlossen;
+
+	/**
+	 * Erstellt ein neues Archiv, eine existierende Datei wird &uuml;berschrieben
+	 *
+	 * @param ziel die Pfadangabe der ZIP-Datei
+	 * @throws IOException wenn die Datei nicht angelegt werden kann
+	 */
+	public ZipSchreiber(Path ziel) throws IOException
+	{
+		this(FileChannel.open(ziel, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING), 0L, null, 0L);
+	}
+
+	private ZipSchreiber(FileChannel kanal, long position, Zwischenspeicher bestand, long bestandAnzahl)
+	{
+		this.kanal = kanal;
+		this.puffer = MedysPufferPool.leiheDirekt(PUFFER_GROESSE).order(ByteOrder.LITTLE_ENDIAN);
+		this.position = position;
+		this.geleert = position;
+		this.beginn = position;
+		this.bestand = bestand;
+		this.bestandAnzahl = bestandAnzahl;
+		this.neueNamen = bestand != null ? new HashSet<>() : null;
+	}
+
+	/**
+	 * &Ouml;ffnet ein bestehendes Archiv, um es um weitere Eintr&auml;ge zu erg&auml;nzen.
+	 * <br><br>
+	 * Die Daten der bestehenden Eintr&auml;ge bleiben unver&auml;ndert in der Datei. Neue Eintr&auml;ge werden
+	 * hinter das Ende des Archivs geschrieben, also hinter das bisherige zentrale Verzeichnis und seinen
+	 * Abschlu&szlig;, und beim Schlie&szlig;en wird nur das zentrale Verzeichnis neu geschrieben. Der Aufwand
+	 * richtet sich damit nach den neuen Eintr&auml;gen und nicht nach der Gr&ouml;&szlig;e des Archivs.
+	 * <br><br>
+	 * Bis der neue Abschlu&szlig; in {@link #close()} geschrieben ist, bleibt das bisherige Archiv vollst&auml;ndig
+	 * erhalten. Schl&auml;gt das Schlie&szlig;en fehl, so wird die Datei auf ihre bisherige L&auml;nge
+	 * gek&uuml;rzt.
+	 * <br><br>
+	 * <u>Wichtig</u>
+	 * <blockquote>
+	 * 	<ul>
+	 * 		<li>ein bestehender Eintrag mit dem Namen eines neuen Eintrags wird ersetzt, seine Daten bleiben als
+	 * 			ungenutzte Bytes im Archiv, bis es neu erstellt wird</li>
+	 * 		<li>das bisherige zentrale Verzeichnis und sein Abschlu&szlig; bleiben als ungenutzte Bytes zwischen den
+	 * 			alten und den neuen Eintr&auml;gen stehen, Programme, die ein Archiv nur von vorne lesen
+	 * 			(z.B. {@link java.util.zip.ZipInputStream}), sehen die neuen Eintr&auml;ge daher nicht</li>
+	 * 		<li>bricht das Programm vor {@link #close()} ab (z.B. Absturz), so stehen die bereits geschriebenen
+	 * 			Bytes hinter dem bisherigen Abschlu&szlig;, Programme, die den Abschlu&szlig; nur in den letzten 64 KB
+	 * 			suchen, finden ihn dann nicht mehr</li>
+	 * 		<li>ein Kommentar des Archivs entf&auml;llt</li>
+	 * 	</ul>
+	 * </blockquote>
+	 *
+	 * @param archiv die Pfadangabe der bestehenden ZIP-Datei
+	 * @return der Schreiber, positioniert hinter dem Ende des Archivs
+	 * @throws IOException wenn die Datei nicht gelesen werden kann oder kein g&uuml;ltiges ZIP-Archiv ist
+	 */
+	public static ZipSchreiber ergaenze(Path archiv) throws IOException
+	{
+		FileChannel kanal = FileChannel.open(archiv, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		Zwischenspeicher bestand = new Zwischenspeicher();
+
+		try
+		{
+			VerzeichnisEnde ende = VerzeichnisEnde.lese(kanal, archiv);
+
+			uebernimmVerzeichnis(kanal, ende, bestand, archiv);
+
+			long laenge = kanal.size();
+
+			kanal.position(laenge);
+
+			return new ZipSchreiber(kanal, laenge, bestand, ende.anzahl);
+		}
+		catch (IOException | RuntimeException fehler)
+		{
+			try
+			{
+				bestand.close();
+			}
+			finally
+			{
+				kanal.close();
+			}
+			throw fehler;
+		}
+	}
+
+	/**
+	 * H&auml;ngt einen fertig komprimierten Eintrag an das Archiv an und gibt seine tempor&auml;ren Daten frei
+	 *
+	 * @param eintrag der Eintrag
+	 * @throws IOException wenn nicht geschrieben werden kann
+	 */
+	public void schreibe(Eintrag eintrag) throws IOException
+	{
+		try
+		{
+			eintrag.zip64Lokal = (eintrag.original >= ZIP32_GRENZE) || (eintrag.komprimiert >= ZIP32_GRENZE);
+
+			long offset = position;
+
+			schreibeKopf(LOKAL_SIGNATUR, eintrag, offset);
+
+			if (eintrag.daten != null)
+			{
+				schreibeBytes(eintrag.daten, 0, (int) eintrag.komprimiert);
+			}
+			else if (eintrag.temp != null)
+			{
+				uebertrage(eintrag.temp, eintrag.komprimiert);
+			}
+
+			trageEin(eintrag, offset);
+		}
+		finally
+		{
+			eintrag.close();
+		}
+	}
+
+	/**
+	 * Liest eine Datei einmal vollst&auml;ndig und komprimiert sie direkt in das Archiv.
+	 * <br><br>
+	 * Der lokale Kopf wird zuerst mit Platzhaltern geschrieben und nach dem Komprimieren um CRC-32 und
+	 * Gr&ouml;&szlig;en erg&auml;nzt, der Speicherbedarf ist unabh&auml;ngig von der Dateigr&ouml;&szlig;e.
+	 * Dateien ab knapp 4 GB erhalten dabei vorsorglich das Zip64-Zusatzfeld im lokalen Kopf.
+	 *
+	 * @param datei die Datei
+	 * @param name der relative Name im Archiv, mit <code>/</code> als Trenner
+	 * @param geaendert der &Auml;nderungszeitpunkt in Millisekunden
+	 * @param kompression legt fest, ob der Eintrag komprimiert oder gespeichert wird
+	 * @throws IOException wenn die Datei nicht gelesen oder das Archiv nicht geschrieben werden kann
+	 */
+	public void schreibeDatei(Path datei, String name, long geaendert, ZipKompression kompression) throws IOException
+	{
+		Eintrag eintrag = new Eintrag(name, DEFLATE, geaendert);
+
+		long offset = position;
+
+		// der lokale Kopf wird erst geschrieben, wenn die Methode anhand des ersten Blocks feststeht
+		//
+		try (FileChannel quellKanal = FileChannel.open(datei, StandardOpenOption.READ);
+				InputStream quelle = Channels.newInputStream(quellKanal))
+		{
+			eintrag.zip64Lokal = quellKanal.size() >= ZIP64_SCHWELLE;
+
+			eintrag.crc = verarbeite(quelle, kompression, eintrag, this::schreibeBytes,
+					() -> schreibeKopf(LOKAL_SIGNATUR, eintrag, offset));
+		}
+
+		eintrag.komprimiert = position - offset - eintrag.gibLokaleKopfLaenge();
+
+		pruefeGrenzen(eintrag);
+
+		// der Kopf hat unverändert seine Länge, er wird daher vollständig überschrieben
+		//
+		ByteBuffer kopf = baueKopf(LOKAL_SIGNATUR, eintrag, offset);
+
+		ueberschreibe(offset, kopf.array(), kopf.position());
+
+		trageEin(eintrag, offset);
+	}
+
+	/**
+	 * @return die Anzahl der bisher geschriebenen Eintr&auml;ge, beim Erg&auml;nzen ohne die bestehenden
+	 */
+	public int gibAnzahlEintraege()
+	{
+		return anzahlEintraege;
+	}
+
+	/**
+	 * Schreibt das zentrale Verzeichnis und schlie&szlig;t das Archiv.
+	 * <br><br>
+	 * &Uuml;berschreiten Anzahl, Gr&ouml;&szlig;e oder Position des zentralen Verzeichnisses die Grenzen des
+	 * ZIP-Formats, so werden zus&auml;tzlich der Zip64-Abschlu&szlig; und sein Verweis geschrieben.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (geschlossen)
+		{
+			return;
+		}
+		geschlossen = true;
+
+		boolean abgeschlossen = false;
+
+		try
+		{
+			long offset = position;
+
+			long anzahl = anzahlEintraege;
+
+			if (bestand != null)
+			{
+				anzahl += uebernehmeBestand();
+			}
+
+			try (InputStream neue = zentral.oeffne())
+			{
+				kopiere(neue);
+			}
+
+			long groesse = position - offset;
+
+			boolean zip64 = (anzahl >= ZIP32_MAX_EINTRAEGE) || (offset >= ZIP32_GRENZE) || (groesse >= ZIP32_GRENZE);
+
+			ByteBuffer ende = ByteBuffer.allocate(zip64 ? 56 + 20 + 22 : 22).order(ByteOrder.LITTLE_ENDIAN);
+
+			if (zip64)
+			{
+				long ende64 = position;
+
+				ende.putInt(ZIP64_ENDE_SIGNATUR)
+					.putLong(44L)
+					.putShort((short) VERSION_ZIP64)
+					.putShort((short) VERSION_ZIP64)
+					.putInt(0)
+					.putInt(0)
+					.putLong(anzahl)
+					.putLong(anzahl)
+					.putLong(groesse)
+					.putLong(offset);
+
+				ende.putInt(ZIP64_VERWEIS_SIGNATUR)
+					.putInt(0)
+					.putLong(ende64)
+					.putInt(1);
+			}
+
+			// bei Zip64 stehen im Abschluss nur noch Platzhalter
+			//
+			ende.putInt(ENDE_SIGNATUR)
+				.putShort((short) 0)
+				.putShort((short) 0)
+				.putShort((short) Math.min(anzahl, ZIP32_MAX_EINTRAEGE))
+				.putShort((short) Math.min(anzahl, ZIP32_MAX_EINTRAEGE))
+				.putInt((int) Math.min(groesse, ZIP32_GRENZE))
+				.putInt((int) Math.min(offset, ZIP32_GRENZE))
+				.putShort((short) 0);
+
+			schreibeBytes(ende.array(), 0, ende.position());
+
+			leerePuffer();
+
+			abgeschlossen = true;
+		}
+		finally
+		{
+			MedysPufferPool.gibZurueck(puffer);
+
+			try
+			{
+				// ohne neuen Abschluß gilt beim Ergänzen weiter das bisherige Archiv, die angefangenen Bytes entfallen
+				//
+				if (!abgeschlossen && (bestand != null))
+				{
+					kuerzeAufBeginn();
+				}
+			}
+			finally
+			{
+				try
+				{
+					kanal.close();
+				}
+				finally
+				{
+					try
+					{
+						zentral.close();
+					}
+					finally
+					{
+						if (bestand != null)
+						{
+							bestand.close();
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * ein Fehler beim Kürzen darf den eigentlichen Fehler nicht verdecken
+	 */
+	private void kuerzeAufBeginn()
+	{
+		try
+		{
+			kanal.truncate(beginn);
+		}
+		catch (IOException ignoriert)
+		{
+			// die angefangenen Bytes bleiben dann hinter dem bisherigen Abschluß stehen
+			//
+		}
+	}
+
+	/*
+	 * zentraler Kopf in das zentrale Verzeichnis, beim Ergänzen ersetzt der Eintrag gleichnamige bestehende
+	 */
+	private void trageEin(Eintrag eintrag, long offset) throws IOException
+	{
+		schreibeKopf(ZENTRAL_SIGNATUR, eintrag, offset);
+
+		if (neueNamen != null)
+		{
+			neueNamen.add(eintrag.name);
+		}
+		anzahlEintraege++;
+	}
+
+	/*
+	 * schreibt die bestehenden zentralen Köpfe unverändert, außer denen ersetzter Einträge, 
+	 * und liefert ihre Anzahl
+	 */
+	private long uebernehmeBestand() throws IOException
+	{
+		long behalten = 0L;
+
+		byte[] kopf = new byte[46];
+
+		try (DataInputStream eingabe = new DataInputStream(new BufferedInputStream(bestand.oeffne(), PUFFER_GROESSE)))
+		{
+			for (long i = 0; i < bestandAnzahl; i++)
+			{
+				byte[] rest = leseZentralenKopf(eingabe, kopf, "ZipSchreiber.close");
+
+				// Namen ohne UTF-8-Kennzeichen liest auch java.util.zip als UTF-8
+				//
+				String name = new String(rest, 0, gibKurz(kopf, 28), StandardCharsets.UTF_8);
+
+				if (!neueNamen.contains(name))
+				{
+					schreibeBytes(kopf, 0, kopf.length);
+					schreibeBytes(rest, 0, rest.length);
+
+					behalten++;
+				}
+			}
+		}
+		return behalten;
+	}
+
+	private void kopiere(InputStream eingabe) throws IOException
+	{
+		byte[] bytes = MedysPufferPool.leiheHeap(PUFFER_GROESSE);
+
+		try
+		{
+			for (int gelesen; (gelesen = eingabe.read(bytes)) > 0;)
+			{
+				schreibeBytes(bytes, 0, gelesen);
+			}
+		}
+		finally
+		{
+			MedysPufferPool.gibZurueck(bytes);
+		}
+	}
+
+	/*
+	 * nur beim direkten Schreiben: die Datei ist während des Lesens über die Schwelle des lokalen Kopfes gewachsen
+	 */
+	private void pruefeGrenzen(Eintrag eintrag) throws IOException
+	{
+		if (!eintrag.zip64Lokal && ((eintrag.original >= ZIP32_GRENZE) || (eintrag.komprimiert >= ZIP32_GRENZE)))
+		{
+			throw new IOException("IOException aus ZipSchreiber.schreibeDatei\nDie Datei " + eintrag.name
+					+ " ist während des Komprimierens über 4 GB gewachsen!");
+		}
+	}
+
+	/*
+	 * lokaler Kopf ins Archiv bzw. zentraler Kopf in das zentrale Verzeichnis
+	 */
+	private void schreibeKopf(int signatur, Eintrag eintrag, long offset) throws IOException
+	{
+		ByteBuffer kopf = baueKopf(signatur, eintrag, offset);
+
+		if (signatur == LOKAL_SIGNATUR)
+		{
+			schreibeBytes(kopf.array(), 0, kopf.position());
+		}
+		else
+		{
+			zentral.lege(kopf.array(), kopf.position());
+		}
+	}
+
+	/*
+	 * Werte ab 4 GB stehen als 0xFFFFFFFF im Kopf und im Zip64-Zusatzfeld, der lokale Kopf enthält im Zusatzfeld
+	 * immer beide Größen
+	 */
+	private static ByteBuffer baueKopf(int signatur, Eintrag eintrag, long offset)
+	{
+		boolean lokal = signatur == LOKAL_SIGNATUR;
+
+		boolean grossesOriginal = lokal ? eintrag.zip64Lokal : eintrag.original >= ZIP32_GRENZE;
+		boolean grosseKompression = lokal ? eintrag.zip64Lokal : eintrag.komprimiert >= ZIP32_GRENZE;
+		boolean grosserOffset = !lokal && (offset >= ZIP32_GRENZE);
+
+		int zip64Laenge = (grossesOriginal ? 8 : 0) + (grosseKompression ? 8 : 0) + (grosserOffset ? 8 : 0);
+		int zusatzLaenge = zip64Laenge > 0 ? 4 + zip64Laenge : 0;
+		int version = zip64Laenge > 0 ? VERSION_ZIP64 : VERSION;
+
+		ByteBuffer kopf = ByteBuffer.allocate((lokal ? 30 : 46) + eintrag.nameBytes.length + zusatzLaenge)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		kopf.putInt(signatur);
+
+		if (!lokal)
+		{
+			kopf.putShort((short) version);
+		}
+
+		kopf.putShort((short) version)
+			.putShort((short) UTF8_FLAG)
+			.putShort((short) eintrag.methode)
+			.putInt(eintrag.dosZeit)
+			.putInt((int) eintrag.crc)
+			.putInt(grosseKompression ? (int) ZIP32_GRENZE : (int) eintrag.komprimiert)
+			.putInt(grossesOriginal ? (int) ZIP32_GRENZE : (int) eintrag.original)
+			.putShort((short) eintrag.nameBytes.length)
+			.putShort((short) zusatzLaenge);
+
+		if (!lokal)
+		{
+			kopf.putShort((short) 0)
+				.putShort((short) 0)
+				.putShort((short) 0)
+				.putInt(eintrag.istVerzeichnis() ? VERZEICHNIS_ATTRIBUT : 0)
+				.putInt(grosserOffset ? (int) ZIP32_GRENZE : (int) offset);
+		}
+		kopf.put(eintrag.nameBytes);
+
+		if (zip64Laenge > 0)
+		{
+			kopf.putShort((short) ZIP64_FELD)
+				.putShort((short) zip64Laenge);
+
+			if (grossesOriginal)
+			{
+				kopf.putLong(eintrag.original);
+			}
+			if (grosseKompression)
+			{
+				kopf.putLong(eintrag.komprimiert);
+			}
+			if (grosserOffset)
+			{
+				kopf.putLong(offset);
+			}
+		}
+		return kopf;
+	}
+
+	/*
+	 * überschreibt bereits geschriebene Bytes, der Teil vor dem Puffer in der Datei, der Rest im Puffer
+	 */
+	private void ueberschreibe(long stelle, byte[] bytes, int laenge) throws IOException
+	{
+		int inDatei = (int) Math.min(laenge, Math.max(0L, geleert - stelle));
+
+		ByteBuffer werte = ByteBuffer.wrap(bytes, 0, inDatei);
+
+		long ziel = stelle;
+
+		while (werte.hasRemaining())
+		{
+			ziel += kanal.write(werte, ziel);
+		}
+
+		if (inDatei < laenge)
+		{
+			ByteBuffer imPuffer = puffer.duplicate();
+
+			imPuffer.position((int) (stelle + inDatei - geleert));
+			imPuffer.put(bytes, inDatei, laenge - inDatei);
+		}
+	}
+
+	/*
+	 * liest das bestehende zentrale Verzeichnis einmal, prüft es und legt es unverändert im Zwischenspeicher ab
+	 */
+	private static void uebernimmVerzeichnis(FileChannel kanal, VerzeichnisEnde ende, Zwischenspeicher bestand,
+			Path archiv) throws IOException
+	{
+		kanal.position(ende.offset);
+
+		// der Strom wird nicht geschlossen, da er sonst den Kanal schließt
+		//
+		DataInputStream eingabe = new DataInputStream(new BufferedInputStream(Channels.newInputStream(kanal), PUFFER_GROESSE));
+
+		byte[] kopf = new byte[46];
+
+		long gelesen = 0L;
+
+		for (long i = 0; i < ende.anzahl; i++)
+		{
+			byte[] rest = leseZentralenKopf(eingabe, kopf, "ZipSchreiber.ergaenze");
+
+			bestand.lege(kopf, kopf.length);
+			bestand.lege(rest, rest.length);
+
+			gelesen += kopf.length + rest.length;
+		}
+
+		if (gelesen != ende.groesse)
+		{
+			throw new IOException("IOException aus ZipSchreiber.ergaenze\nDas zentrale Verzeichnis von " + archiv
+					+ " ist beschädigt!");
+		}
+	}
+
+	/*
+	 * liest einen zentralen Kopf in kopf und liefert Name, Zusatzfelder und Kommentar
+	 */
+	private static byte[] leseZentralenKopf(DataInputStream eingabe, byte[] kopf, String herkunft) throws IOException
+	{
+		eingabe.readFully(kopf);
+
+		if (ByteBuffer.wrap(kopf).order(ByteOrder.LITTLE_ENDIAN).getInt(0) != ZENTRAL_SIGNATUR)
+		{
+			throw new IOException("IOException aus " + herkunft + "\nDas zentrale Verzeichnis ist beschädigt!");
+		}
+
+		byte[] rest = new byte[gibKurz(kopf, 28) + gibKurz(kopf, 30) + gibKurz(kopf, 32)];
+
+		eingabe.readFully(rest);
+
+		return rest;
+	}
+
+	private static int gibKurz(byte[] bytes, int stelle)
+	{
+		return (bytes[stelle] & 0xFF) | ((bytes[stelle + 1] & 0xFF) << 8);
+	}
+
+	private static void schreibeVoll(FileChannel ziel, byte[] bytes, int laenge) throws IOException
+	{
+		ByteBuffer inhalt = ByteBuffer.wrap(bytes, 0, laenge);
+
+		while (inhalt.hasRemaining())
+		{
+			ziel.write(inhalt);
+		}
+	}
+
+	private void schreibeBytes(byte[] bytes, int laenge) throws IOException
+	{
+		schreibeBytes(bytes, 0, laenge);
+	}
+
+	private void schreibeBytes(byte[] bytes, int start, int laenge) throws IOException
+	{
+		int geschrieben = 0;
+
+		while (geschrieben < laenge)
+		{
+			if (!puffer.hasRemaining())
+			{
+				leerePuffer();
+			}
+
+			int anzahl = Math.min(puffer.remaining(), laenge - geschrieben);
+
+			puffer.put(bytes, start + geschrieben, anzahl);
+
+			geschrieben += anzahl;
+
+			position += anzahl;
+		}
+	}
+
+	private void uebertrage(Path temp, long laenge) throws IOException
+	{
+		leerePuffer();
+
+		try (FileChannel quelle = FileChannel.open(temp, StandardOpenOption.READ))
+		{
+			long uebertragen = 0L;
+
+			while (uebertragen < laenge)
+			{
+				long anzahl = quelle.transferTo(uebertragen, laenge - uebertragen, kanal);
+
+				if (anzahl <= 0)
+				{
+					throw new IOException("IOException aus ZipSchreiber.schreibe\nDie temporären Daten "
+							+ temp + " sind unvollständig!");
+				}
+				uebertragen += anzahl;
+			}
+		}
+		position += laenge;
+
+		geleert = position;
+	}
+
+	private void leerePuffer() throws IOException
+	{
+		puffer.flip();
+
+		while (puffer.hasRemaining())
+		{
+			kanal.write(puffer);
+		}
+		puffer.clear();
+
+		geleert = position;
+	}
+
+	/*
+	 * liest die Quelle einmal, wählt anhand des ersten Blocks die Methode, zählt die Originalgröße im Eintrag
+	 * und liefert die CRC-32
+	 */
+	private static long verarbeite(InputStream quelle, ZipKompression kompression, Eintrag eintrag, Ablage ablage,
+			Vorbereitung kopf) throws IOException
+	{
+		byte[] eingabe = MedysPufferPool.leiheHeap(PUFFER_GROESSE);
+		byte[] ausgabe = MedysPufferPool.leiheHeap(PUFFER_GROESSE);
+
+		CRC32 crc = new CRC32();
+
+		Deflater deflater = null;
+
+		try
+		{
+			int gelesen = fuelle(quelle, eingabe);
+
+			if (kompression.speichern(eintrag.name, eingabe, gelesen))
+			{
+				eintrag.methode = GESPEICHERT;
+			}
+			else
+			{
+				deflater = new Deflater(kompression.gibStufe(), true);
+			}
+
+			if (kopf != null)
+			{
+				kopf.fuehreAus();
+			}
+
+			while (gelesen > 0)
+			{
+				crc.update(eingabe, 0, gelesen);
+
+				eintrag.original += gelesen;
+
+				if (deflater == null)
+				{
+					ablage.lege(eingabe, gelesen);
+				}
+				else
+				{
+					deflater.setInput(eingabe, 0, gelesen);
+
+					while (!deflater.needsInput())
+					{
+						ablage.lege(ausgabe, deflater.deflate(ausgabe));
+					}
+				}
+				gelesen = quelle.read(eingabe);
+			}
+
+			if (deflater != null)
+			{
+				deflater.finish();
+
+				while (!deflater.finished())
+				{
+					ablage.lege(ausgabe, deflater.deflate(ausgabe));
+				}
+			}
+			return crc.getValue();
+		}
+		finally
+		{
+			// der native Speicher des Deflaters wird sonst erst vom GC freigegeben
+			//
+			if (deflater != null)
+			{
+				deflater.end();
+			}
+			MedysPufferPool.gibZurueck(eingabe);
+			MedysPufferPool.gibZurueck(ausgabe);
+		}
+	}
+
+	/*
+	 * liest bis der Puffer voll oder die Quelle erschöpft ist, damit die Probe aussagekräftig ist
+	 */
+	private static int fuelle(InputStream quelle, byte[] puffer) throws IOException
+	{
+		int gelesen = 0;
+
+		int anzahl;
+
+		while ((gelesen < puffer.length) && ((anzahl = quelle.read(puffer, gelesen, puffer.length - gelesen)) > 0))
+		{
+			gelesen += anzahl;
+		}
+		return gelesen;
+	}
+
+	/*
+	 * Ziel der (komprimierten) Bytes: das Archiv selbst oder der Zwischenspeicher eines Eintrags
+	 */
+	private interface Ablage
+	{
+		void lege(byte[] bytes, int laenge) throws IOException;
+	}
+
+	/*
+	 * Schritt zwischen Wahl der Methode und dem ersten Byte der Daten, z.B. der lokale Kopf
+	 */
+	private interface Vorbereitung
+	{
+		void fuehreAus() throws IOException;
+	}
+
+	/*
+	 * MS-DOS Datum und Uhrzeit in lokaler Zeit, 2 Sekunden genau, frühestens 1980
+	 */
+	static int zuDosZeit(long millis)
+	{
+		LocalDateTime zeit = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+
+		if (zeit.getYear() < 1980)
+		{
+			return (1 << 21) | (1 << 16);
+		}
+		return ((zeit.getYear() - 1980) << 25) | (zeit.getMonthValue() << 21) | (zeit.getDayOfMonth() << 16)
+				| (zeit.getHour() << 11) | (zeit.getMinute() << 5) | (zeit.getSecond() >> 1);
+	}
+
+	/*
+	 * Lage des zentralen Verzeichnisses laut Abschluss bzw. Zip64-Abschluss eines bestehenden Archivs
+	 */
+	private static final class VerzeichnisEnde
+	{
+		private long anzahl;
+
+		private long groesse;
+
+		private long offset;
+
+		private static VerzeichnisEnde lese(FileChannel kanal, Path archiv) throws IOException
+		{
+			long dateiGroesse = kanal.size();
+
+			// der Abschluss steht am Ende, gefolgt von höchstens 65.535 Bytes Kommentar
+			//
+			int suchLaenge = (int) Math.min(dateiGroesse, 22 + 0xFFFF);
+
+			ByteBuffer ende = lese(kanal, dateiGroesse - suchLaenge, suchLaenge);
+
+			for (int stelle = suchLaenge - 22; stelle >= 0; stelle--)
+			{
+				if ((ende.getInt(stelle) == ENDE_SIGNATUR)
+						&& (stelle + 22 + (ende.getShort(stelle + 20) & 0xFFFF) <= suchLaenge))
+				{
+					VerzeichnisEnde verzeichnis = new VerzeichnisEnde();
+
+					verzeichnis.anzahl = ende.getShort(stelle + 10) & 0xFFFF;
+					verzeichnis.groesse = ende.getInt(stelle + 12) & ZIP32_GRENZE;
+					verzeichnis.offset = ende.getInt(stelle + 16) & ZIP32_GRENZE;
+
+					long endePosition = dateiGroesse - suchLaenge + stelle;
+
+					if (endePosition >= 20)
+					{
+						ByteBuffer verweis = lese(kanal, endePosition - 20, 20);
+
+						if (verweis.getInt(0) == ZIP64_VERWEIS_SIGNATUR)
+						{
+							endePosition = verweis.getLong(8);
+
+							ByteBuffer ende64 = lese(kanal, endePosition, 56);
+
+							if (ende64.getInt(0) != ZIP64_ENDE_SIGNATUR)
+							{
+								break;
+							}
+							verzeichnis.anzahl = ende64.getLong(32);
+							verzeichnis.groesse = ende64.getLong(40);
+							verzeichnis.offset = ende64.getLong(48);
+						}
+					}
+
+					if ((verzeichnis.anzahl < 0) || (verzeichnis.offset < 0) || (verzeichnis.groesse < 0)
+							|| (verzeichnis.offset + verzeichnis.groesse > endePosition))
+					{
+						break;
+					}
+					return verzeichnis;
+				}
+			}
+			throw new IOException("IOException aus ZipSchreiber.ergaenze\n" + archiv + " ist kein gültiges ZIP-Archiv!");
+		}
+
+		private static ByteBuffer lese(FileChannel kanal, long stelle, int laenge) throws IOException
+		{
+			ByteBuffer bytes = ByteBuffer.allocate(laenge).order(ByteOrder.LITTLE_ENDIAN);
+
+			while (bytes.hasRemaining())
+			{
+				if (kanal.read(bytes, stelle + bytes.position()) < 0)
+				{
+					throw new IOException("IOException aus ZipSchreiber.ergaenze\nUnerwartetes Dateiende!");
+				}
+			}
+			return bytes;
+		}
+	}
+
+	/*
+	 * hält Bytes bis SPEICHER_GRENZE im Speicher, darüber in einer temporären Datei
+	 */
+	private static final class Zwischenspeicher implements Closeable
+	{
+		private final ByteArrayOutputStream speicher = new ByteArrayOutputStream();
+
+		private Path temp;
+
+		private FileChannel tempKanal;
+
+		private long groesse;
+
+		private void lege(byte[] bytes, int laenge) throws IOException
+		{
+			if ((temp == null) && (groesse + laenge > SPEICHER_GRENZE))
+			{
+				temp = Files.createTempFile("medys", ".zipzentral");
+				tempKanal = FileChannel.open(temp, StandardOpenOption.WRITE);
+
+				schreibeVoll(tempKanal, speicher.toByteArray(), speicher.size());
+
+				speicher.reset();
+			}
+
+			if (tempKanal != null)
+			{
+				schreibeVoll(tempKanal, bytes, laenge);
+			}
+			else
+			{
+				speicher.write(bytes, 0, laenge);
+			}
+			groesse += laenge;
+		}
+
+		/*
+		 * danach darf nichts mehr abgelegt werden
+		 */
+		private InputStream oeffne() throws IOException
+		{
+			if (temp == null)
+			{
+				return new ByteArrayInputStream(speicher.toByteArray());
+			}
+			if (tempKanal != null)
+			{
+				tempKanal.close();
+
+				tempKanal = null;
+			}
+			return Files.newInputStream(temp);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			speicher.reset();
+
+			try
+			{
+				if (tempKanal != null)
+				{
+					tempKanal.close();
+
+					tempKanal = null;
+				}
+			}
+			finally
+			{
+				if (temp != null)
+				{
+					Files.deleteIfExists(temp);
+
+					temp = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ein fertig komprimierter Eintrag, der durch {@link ZipSchreiber#schreibe(Eintrag)} an ein Archiv
+	 * angeh&auml;ngt werden kann.
+	 * <br><br>
+	 * Wird ein Eintrag nicht geschrieben, so mu&szlig; er durch {@link #close()} freigegeben werden, damit
+	 * seine tempor&auml;re Datei entfernt wird.
+	 */
+	public static final class Eintrag implements Closeable
+	{
+		private final String name;
+
+		private final byte[] nameBytes;
+
+		private int methode;
+
+		private final int dosZeit;
+
+		private long crc;
+
+		private long komprimiert;
+
+		private long original;
+
+		/*
+		 * der lokale Kopf trägt das Zip64-Zusatzfeld
+		 */
+		private boolean zip64Lokal;
+
+		private byte[] daten;
+
+		private Path temp;
+
+		private FileChannel tempKanal;
+
+		private Eintrag(String name, int methode, long geaendert)
+		{
+			this.name = name;
+			this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+			this.methode = methode;
+			this.dosZeit = zuDosZeit(geaendert);
+
+			if (nameBytes.length > 0xFFFF)
+			{
+				throw new IllegalArgumentException("Der Name des Eintrags ist zu lang: " + name);
+			}
+		}
+
+		/**
+		 * Erstellt den Eintrag eines Verzeichnisses, z.B. f&uuml;r leere Verzeichnisse
+		 *
+		 * @param name der relative Name im Archiv, mit <code>/</code> als Trenner
+		 * @param geaendert der &Auml;nderungszeitpunkt in Millisekunden
+		 * @return der Eintrag, sein Name endet mit <code>/</code>
+		 */
+		public static Eintrag verzeichnis(String name, long geaendert)
+		{
+			return new Eintrag(name.endsWith("/") ? name : name + "/", GESPEICHERT, geaendert);
+		}
+
+		/**
+		 * Liest eine Datei einmal vollst&auml;ndig und komprimiert sie zu einem Eintrag.
+		 * <br><br>
+		 * Jeder Aufruf nutzt dabei einen eigenen {@link Deflater}, der am Ende wieder freigegeben wird, die Methode
+		 * kann daher gleichzeitig von mehreren Threads aufgerufen werden.
+		 *
+		 * @param datei die Datei
+		 * @param name der relative Name im Archiv, mit <code>/</code> als Trenner
+		 * @param geaendert der &Auml;nderungszeitpunkt in Millisekunden
+		 * @param kompression legt fest, ob der Eintrag komprimiert oder gespeichert wird
+		 * @return der komprimierte Eintrag
+		 * @throws IOException wenn die Datei nicht gelesen werden kann
+		 */
+		public static Eintrag komprimiere(Path datei, String name, long geaendert, ZipKompression kompression) 
+				throws IOException
+		{
+			Eintrag eintrag = new Eintrag(name, DEFLATE, geaendert);
+
+			try (InputStream quelle = Files.newInputStream(datei))
+			{
+				eintrag.crc = verarbeite(quelle, kompression, eintrag, eintrag::ablegen, null);
+
+				eintrag.beendeAblage();
+			}
+			catch (IOException | RuntimeException fehler)
+			{
+				eintrag.close();
+
+				throw fehler;
+			}
+			return eintrag;
+		}
+
+		/**
+		 * @return der relative Name im Archiv
+		 */
+		public String gibName()
+		{
+			return name;
+		}
+
+		/**
+		 * @return die Gr&ouml;&szlig;e der Originaldaten in Bytes
+		 */
+		public long gibOriginalGroesse()
+		{
+			return original;
+		}
+
+		/**
+		 * @return die Gr&ouml;&szlig;e der komprimierten Daten in Bytes
+		 */
+		public long gibKomprimierteGroesse()
+		{
+			return komprimiert;
+		}
+
+		/**
+		 * @return <code>true</code> wenn der Eintrag unkomprimiert gespeichert ist (Stored)
+		 */
+		public boolean istGespeichert()
+		{
+			return methode == GESPEICHERT;
+		}
+
+		/**
+		 * @return <code>true</code> wenn der Eintrag ein Verzeichnis ist
+		 */
+		public boolean istVerzeichnis()
+		{
+			return name.endsWith("/");
+		}
+
+		/**
+		 * Entfernt die tempor&auml;re Datei des Eintrags, falls vorhanden
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			daten = null;
+
+			try
+			{
+				if (tempKanal != null)
+				{
+					tempKanal.close();
+				}
+			}
+			finally
+			{
+				tempKanal = null;
+
+				if (temp != null)
+				{
+					Files.deleteIfExists(temp);
+
+					temp = null;
+				}
+			}
+		}
+
+		/*
+		 * hält die komprimierten Bytes im Speicher, ab SPEICHER_GRENZE in einer temporären Datei
+		 */
+		private void ablegen(byte[] bytes, int laenge) throws IOException
+		{
+			if (laenge <= 0)
+			{
+				return;
+			}
+
+			if ((tempKanal == null) && (komprimiert + laenge > SPEICHER_GRENZE))
+			{
+				temp = Files.createTempFile("medys", ".zipteil");
+				tempKanal = FileChannel.open(temp, StandardOpenOption.WRITE);
+
+				if (daten != null)
+				{
+					schreibeVoll(tempKanal, daten, (int) komprimiert);
+
+					daten = null;
+				}
+			}
+
+			if (tempKanal != null)
+			{
+				schreibeVoll(tempKanal, bytes, laenge);
+			}
+			else
+			{
+				if (daten == null)
+				{
+					daten = new byte[Math.max(laenge, 4 * 1024)];
+				}
+				else if (komprimiert + laenge > daten.length)
+				{
+					byte[] groesser = new byte[(int) Math.min(SPEICHER_GRENZE, Math.max(komprimiert + laenge, 2L * daten.length))];
+
+					System.arraycopy(daten, 0, groesser, 0, (int) komprimiert);
+
+					daten = groesser;
+				}
+				System.arraycopy(bytes, 0, daten, (int) komprimiert, laenge);
+			}
+			komprimiert += laenge;
+		}
+
+		private int gibLokaleKopfLaenge()
+		{
+			return 30 + nameBytes.length + (zip64Lokal ? 20 : 0);
+		}
+
+		private void beendeAblage() throws IOException
+		{
+			if (tempKanal != null)
+			{
+				tempKanal.close();
+
+				tempKanal = null;
+			}
+		}
+	}
+}
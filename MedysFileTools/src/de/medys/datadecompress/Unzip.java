@@ -5,11 +5,13 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.Enumeration;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
+import de.medys.MedysPufferPool;
+import de.medys.MedysVerzeichnisLoescher;
 import de.medys.datacompress.GZip;
 
 /**
@@ -89,9 +91,10 @@ public class Unzip {
 	private String zipDateiOrdnername;
 	
 	/*
-     * Puffergrösse für read/write in Dateien
+     * Puffergrösse für read/write in Dateien, die Puffer selbst werden je Aufruf 
+     * aus dem MedysPufferPool geliehen
      */
-    private static final byte[] BUFFER = new byte[0xFFF];
+    private static final int PUFFER_GROESSE = 0x1000;
     
 	private File zipFile;
 	
@@ -227,6 +230,11 @@ public class Unzip {
 	 * Existiert der Ordner nicht, so wird er im angegebenen Verzeichnis
 	 * erstellt.
 	 * 
+	 * <br><br>
+	 * 
+	 * Archive &uuml;ber 4 GB und mit mehr als 65.535 Eintr&auml;gen (Zip64) werden unterst&uuml;tzt,
+	 * die Eintr&auml;ge werden nacheinander aufgez&auml;hlt und entpackt.
+	 * 
 	 * @param zipDatei
 	 *            die gezippte Datei
 	 * @param zielVerzeichnis
@@ -275,8 +283,15 @@ public class Unzip {
 		
 		System.out.println(sb.toString());
 		
-		for (final ZipEntry zipInhalt : Collections.list(zipFile.entries()))
+		// die Einträge werden einzeln aufgezählt statt vorab in eine Liste übernommen,
+		// auch bei Archiven mit sehr vielen Einträgen (Zip64)
+		//
+		Enumeration<? extends ZipEntry> zipInhalte = zipFile.entries();
+		
+		while (zipInhalte.hasMoreElements())
 		{
+			final ZipEntry zipInhalt = zipInhalte.nextElement();
+			
 			String entpackProzessText = "Entpacke : " + zipInhalt.getName();
 			
 			// for DEBUG ONLY
@@ -339,12 +354,7 @@ public class Unzip {
     {
         int read = 0;
         
-        int bufferSize = Unzip.BUFFER.length;
-        
-        if(data.length > bufferSize)
-        {
-        	bufferSize = data.length;
-        }
+        int bufferSize = data.length;
         
         while ((read = zis.read(data, 0, bufferSize)) != -1) 
         {
@@ -386,18 +396,27 @@ public class Unzip {
 				
 				BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(datei));
 				
-				for (int read; (read = bis.read(Unzip.BUFFER)) != -1;)
-				{
-					bos.write(Unzip.BUFFER, 0, read);
-				}
+				byte[] puffer = MedysPufferPool.leiheHeap(PUFFER_GROESSE);
 				
-				if (bis != null)
+				try
 				{
-					bis.close();
+					for (int read; (read = bis.read(puffer)) != -1;)
+					{
+						bos.write(puffer, 0, read);
+					}
 				}
-				if (bos != null)
+				finally
 				{
-					bos.close();
+					MedysPufferPool.gibZurueck(puffer);
+					
+					if (bis != null)
+					{
+						bis.close();
+					}
+					if (bos != null)
+					{
+						bos.close();
+					}
 				}
 			}
 		}
@@ -424,62 +443,18 @@ public class Unzip {
     
 	/**
 	 * L&ouml;scht einen Ordner, auch wenn der Ordner nicht leer ist (rekursives Löschen)
+	 * <br><br>
+	 * Intern wird {@link MedysVerzeichnisLoescher} eingesetzt, der den Ordner einmal durchl&auml;uft 
+	 * und die Dateien parallel l&ouml;scht.
 	 * 
 	 * @param parentFolderPath
 	 * 			absolute Verzeichnispfadangabe zum übergeordneten Verzeichnis
 	 * @param folderName
 	 * 			der Name des Verzeichnisses, das gelöscht werden soll
+	 * @return das Ergebnis mit Anzahl, Bytes und Fehlschl&auml;gen des L&ouml;schvorgangs
 	 */
-	public static void loescheOrdner(String parentFolderPath, String folderName)
+	public static MedysVerzeichnisLoescher.Ergebnis loescheOrdner(String parentFolderPath, String folderName)
 	{
-		File file = new File(parentFolderPath, folderName);
-		
-		while (file.exists())
-		{
-			Unzip.loescheOrdner(file);
-		}
-	}
-	
-	private static void loescheOrdner(File folder)
-	{
-		if (folder != null)
-		{
-			File[] files = folder.listFiles();
-			
-			if (files != null)
-			{
-				if (folder.listFiles().length == 0)
-				{
-					folder.delete();
-				}
-				else
-				{
-					for (File file : files)
-					{
-						if (file.isDirectory())
-						{
-							if (file.listFiles().length == 0)
-							{
-								System.out.println(
-										"Ordner gelöscht " + file.getAbsolutePath() + File.separator + file.getName());
-								
-								file.delete();
-							}
-							else
-							{
-								Unzip.loescheOrdner(file);
-							}
-						}
-						else
-						{
-							System.out.println(
-									"Datei gelöscht " + file.getAbsolutePath() + File.separator + file.getName());
-							
-							file.delete();
-						}
-					}
-				}
-			}
-		}
+		return new MedysVerzeichnisLoescher().loesche(new File(parentFolderPath, folderName).toPath());
 	}
 }